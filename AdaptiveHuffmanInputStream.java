@@ -0,0 +1,94 @@
+import java.io.*;
+
+/**
+ * Flujo que descomprime lo escrito por AdaptiveHuffmanOutputStream.
+ * Cada trama se lee completa (solo se bloquea esperando bytes que el
+ * escritor ya envió) y se decodifica con el mismo modelo adaptativo,
+ * actualizado en los mismos puntos que al comprimir.
+ */
+public class AdaptiveHuffmanInputStream extends InputStream {
+    private final DataInputStream in;
+    private final byte type;
+    private final AdaptiveHuffmanModel model;
+    private byte[] frame = new byte[0]; // Bits de la trama actual
+    private BitReader reader;
+    private int frameRemaining; // Símbolos que faltan decodificar en la trama actual
+    private boolean finished;
+
+    public AdaptiveHuffmanInputStream(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        if (this.in.readInt() != AdaptiveHuffmanModel.MAGIC) {
+            throw new IOException("El flujo no es un flujo de Huffman adaptativo");
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != AdaptiveHuffmanModel.VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        this.type = this.in.readByte();
+        int rebuildInterval = this.in.readInt();
+        if (rebuildInterval < 1) {
+            throw new IOException("Intervalo de reconstrucción inválido: " + rebuildInterval);
+        }
+        this.model = new AdaptiveHuffmanModel(rebuildInterval);
+    }
+
+    // Tipo de contenido declarado en la cabecera
+    public byte type() {
+        return type;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (frameRemaining == 0) {
+            if (finished || !nextFrame()) {
+                return -1;
+            }
+        }
+        int count = Math.min(len, Math.min(frameRemaining, model.symbolsUntilRebuild()));
+        try {
+            model.decoder().decode(reader, b, off, count);
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+        model.update(b, off, count);
+        frameRemaining -= count;
+        return count;
+    }
+
+    // Lee la siguiente trama; devuelve false al llegar a la marca de fin
+    private boolean nextFrame() throws IOException {
+        int symbols = in.readInt();
+        if (symbols == 0) {
+            finished = true;
+            return false;
+        }
+        int bytes = in.readInt();
+        // Cada símbolo ocupa entre 1 y MAX_CODE_LENGTH bits: una trama que
+        // declara más símbolos que bits está dañada
+        if (symbols < 0 || bytes < 0 || bytes > (long) symbols * AdaptiveHuffmanModel.MAX_CODE_LENGTH / 8 + 1
+                || symbols > 8L * bytes) {
+            throw new IOException("Trama inválida");
+        }
+        if (frame.length < bytes) {
+            frame = new byte[bytes];
+        }
+        in.readFully(frame, 0, bytes);
+        reader = new BitReader(frame, 0, bytes);
+        frameRemaining = symbols;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
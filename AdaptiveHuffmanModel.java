@@ -0,0 +1,115 @@
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Modelo de Huffman adaptativo compartido por el codificador y el decodificador.
+ * Todos los bytes empiezan con frecuencia 1 (códigos de 8 bits) y la tabla de
+ * códigos canónicos se reconstruye cada cierta cantidad de símbolos con las
+ * frecuencias vistas hasta ese momento. Como ambos lados actualizan el modelo
+ * con los mismos símbolos y en los mismos puntos, el archivo no necesita
+ * guardar frecuencias ni longitudes de código.
+ * Los intervalos empiezan en 256 símbolos y se duplican hasta el intervalo
+ * pedido, para adaptarse rápido al principio del flujo. Cuando el total de
+ * frecuencias crece demasiado se reducen a la mitad, de modo que el modelo
+ * sigue los cambios de la entrada.
+ *
+ * Cabecera del flujo:
+ * magia "HADP" (4 bytes) | versión (1 byte) | tipo de contenido (1 byte)
+ * intervalo de reconstrucción (4 bytes)
+ */
+public class AdaptiveHuffmanModel {
+    public static final int MAGIC = 0x48414450; // "HADP"
+    public static final int VERSION = 1;
+
+    public static final int DEFAULT_REBUILD_INTERVAL = 4096;
+    // Longitud máxima de los códigos: mantiene pequeña la tabla del decodificador
+    public static final int MAX_CODE_LENGTH = 15;
+
+    private static final int INITIAL_REBUILD_INTERVAL = 256;
+    // Total de frecuencias a partir del cual se reducen a la mitad
+    private static final long MAX_TOTAL_FREQUENCY = 1L << 20;
+
+    private final int rebuildInterval;
+    private final long[] counts = new long[256];
+    private long total;
+    private int interval; // Intervalo actual (crece hasta rebuildInterval)
+    private int untilRebuild; // Símbolos que faltan para la próxima reconstrucción
+    private byte[] lengths;
+    private long[] codes;
+    private HuffmanDecoder decoder; // Se construye solo si se pide
+
+    public AdaptiveHuffmanModel(int rebuildInterval) {
+        if (rebuildInterval < 1) {
+            throw new IllegalArgumentException("Intervalo de reconstrucción inválido: " + rebuildInterval);
+        }
+        this.rebuildInterval = rebuildInterval;
+        Arrays.fill(counts, 1);
+        this.total = counts.length;
+        this.interval = Math.min(INITIAL_REBUILD_INTERVAL, rebuildInterval);
+        this.untilRebuild = interval;
+        this.lengths = new byte[256];
+        Arrays.fill(lengths, (byte) 8);
+        this.codes = Huffman.canonicalCodes(lengths);
+    }
+
+    public int rebuildInterval() {
+        return rebuildInterval;
+    }
+
+    // Símbolos que se pueden procesar con la tabla actual
+    public int symbolsUntilRebuild() {
+        return untilRebuild;
+    }
+
+    // Códigos y longitudes actuales, indexados por byte
+    public long[] codes() {
+        return codes;
+    }
+
+    public byte[] lengths() {
+        return lengths;
+    }
+
+    public HuffmanDecoder decoder() {
+        if (decoder == null) {
+            decoder = HuffmanDecoder.fromLengths(lengths);
+        }
+        return decoder;
+    }
+
+    // Registra los símbolos ya procesados (a lo sumo symbolsUntilRebuild()) y
+    // reconstruye la tabla al completar el intervalo
+    public void update(byte[] data, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+        total += length;
+        untilRebuild -= length;
+        if (untilRebuild == 0) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        if (total > MAX_TOTAL_FREQUENCY) {
+            total = 0;
+            for (int symbol = 0; symbol < counts.length; symbol++) {
+                counts[symbol] = Math.max(1, counts[symbol] >>> 1);
+                total += counts[symbol];
+            }
+        }
+        lengths = Arrays.copyOf(Huffman.codeLengths(counts, MAX_CODE_LENGTH), 256);
+        codes = Huffman.canonicalCodes(lengths);
+        decoder = null;
+        interval = (int) Math.min((long) interval * 2, rebuildInterval);
+        untilRebuild = interval;
+    }
+
+    // Escribe la cabecera de un flujo adaptativo
+    static void writeHeader(DataOutputStream out, byte type, int rebuildInterval) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(type);
+        out.writeInt(rebuildInterval);
+    }
+}
@@ -0,0 +1,91 @@
+import java.io.*;
+
+/**
+ * Flujo que comprime con Huffman adaptativo en una sola pasada.
+ * No necesita conocer la entrada de antemano: los bytes se codifican con el
+ * modelo actual a medida que llegan. Los bits se envían en tramas (cantidad
+ * de símbolos, cantidad de bytes y bits empaquetados); flush() cierra la
+ * trama actual, de modo que el lector puede decodificar todo lo escrito hasta
+ * ese momento sin esperar más datos. Una trama de cero símbolos marca el fin.
+ */
+public class AdaptiveHuffmanOutputStream extends OutputStream {
+    // Símbolos máximos por trama: acota la memoria y la latencia
+    private static final int FRAME_SYMBOLS = 64 * 1024;
+
+    private final DataOutputStream out;
+    private final AdaptiveHuffmanModel model;
+    private final BitWriter writer = new BitWriter(FRAME_SYMBOLS / 2);
+    private int frameSymbols; // Símbolos codificados en la trama actual
+    private boolean closed;
+
+    public AdaptiveHuffmanOutputStream(OutputStream out, byte type) throws IOException {
+        this(out, type, AdaptiveHuffmanModel.DEFAULT_REBUILD_INTERVAL);
+    }
+
+    public AdaptiveHuffmanOutputStream(OutputStream out, byte type, int rebuildInterval) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.model = new AdaptiveHuffmanModel(rebuildInterval);
+        AdaptiveHuffmanModel.writeHeader(this.out, type, rebuildInterval);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("El flujo está cerrado");
+        }
+        while (len > 0) {
+            // Cada tramo se codifica con una sola tabla y dentro de una sola trama
+            int chunk = Math.min(len, Math.min(model.symbolsUntilRebuild(), FRAME_SYMBOLS - frameSymbols));
+            writer.writeSymbols(b, off, chunk, model.codes(), model.lengths());
+            model.update(b, off, chunk);
+            frameSymbols += chunk;
+            if (frameSymbols == FRAME_SYMBOLS) {
+                writeFrame();
+            }
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    // Envía la trama actual y vacía la salida
+    @Override
+    public void flush() throws IOException {
+        if (closed) {
+            throw new IOException("El flujo está cerrado");
+        }
+        if (frameSymbols > 0) {
+            writeFrame();
+        }
+        out.flush();
+    }
+
+    // Completa la trama actual, escribe la marca de fin y cierra la salida
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            if (frameSymbols > 0) {
+                writeFrame();
+            }
+            out.writeInt(0);
+        } finally {
+            closed = true;
+            out.close();
+        }
+    }
+
+    private void writeFrame() throws IOException {
+        writer.flush();
+        out.writeInt(frameSymbols);
+        out.writeInt(writer.pendingBytes());
+        writer.drainTo(out);
+        frameSymbols = 0;
+    }
+}
@@ -0,0 +1,395 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compresión incremental de archivos que solo crecen (registros de texto,
+ * secuencias de ADN): update comprime únicamente lo que se agregó al final
+ * del original desde la última vez, así que el costo depende de los datos
+ * nuevos y no del tamaño total.
+ * Lo nuevo se guarda en bloques autodescriptivos; cada bloque reutiliza la
+ * tabla vigente mientras su histograma no se aleje de ella más de un umbral
+ * (los bits de más que costaría frente a una tabla nueva), y si no lleva su
+ * propia tabla.
+ *
+ * Cada actualización termina con un índice de sus bloques y una cola que
+ * apunta a la cola anterior. El archivo se confirma recién al final: se
+ * escriben bloques, índice y cola después de lo confirmado, se fuerzan al
+ * disco y solo entonces se actualiza la longitud confirmada de la cabecera
+ * (8 bytes en una sola escritura). Si el proceso se corta a mitad de camino,
+ * los lectores siguen viendo la versión anterior completa, y la siguiente
+ * actualización descarta lo que quedó a medias.
+ *
+ * Formato:
+ * magia "HAPN" (4 bytes) | versión (1 byte) | tipo (1 byte) | longitud confirmada del archivo (8 bytes)
+ * por actualización: bloques | índice: por bloque, posición (8 bytes) y símbolos (4 bytes)
+ * cola: cantidad de bloques (4 bytes) | posición de la cola anterior (8 bytes, -1: ninguna)
+ * longitud original total (8 bytes) | posición del bloque con la tabla vigente (8 bytes, -1: ninguna)
+ * magia "HAPN" (4 bytes)
+ * bloque: modo (1 byte) | [BLOCK_FRESH: longitudes de los 256 códigos, 4 bits cada una (128 bytes)]
+ * símbolos (4 bytes) | tamaño de los datos (4 bytes) | datos (bits de Huffman o bytes tal cual)
+ */
+public class AppendableHuffman {
+    public static final int MAGIC = 0x4841504E; // "HAPN"
+    public static final int VERSION = 1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    // Un bloque reutiliza la tabla vigente si le cuesta a lo sumo un 2 % más que una propia
+    public static final double DEFAULT_DRIFT_THRESHOLD = 0.02;
+
+    // Las longitudes se guardan en 4 bits
+    private static final int MAX_CODE_LENGTH = 15;
+    private static final int TABLE_BYTES = 128;
+
+    // Tipo esperado que acepta cualquier tipo de contenido
+    private static final int ANY_TYPE = -1;
+
+    private static final byte BLOCK_RAW = 0;
+    private static final byte BLOCK_FRESH = 1;
+    private static final byte BLOCK_REUSE = 2;
+
+    private static final int HEADER_BYTES = 4 + 1 + 1 + 8;
+    private static final int COMMITTED_POSITION = 4 + 1 + 1;
+    private static final int INDEX_ENTRY_BYTES = 8 + 4;
+    private static final int TRAILER_BYTES = 4 + 8 + 8 + 8 + 4;
+
+    // Lectura posicional de un archivo (FileChannel::read) o de un arreglo en
+    // memoria; devuelve los bytes leídos o -1 al final
+    private interface Source {
+        int read(ByteBuffer buffer, long position) throws IOException;
+    }
+
+    // Estado del archivo según su última cola confirmada
+    private static final class State {
+        byte type;
+        long committed; // Longitud confirmada del archivo
+        long trailerPosition = -1; // Posición de la última cola
+        long originalLength;
+        long tablePosition = -1;
+    }
+
+    // Indica si el archivo tiene este formato
+    public static boolean isAppendable(String filename) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(filename))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    public static long update(String inputFile, String outputFile, byte type) throws IOException {
+        return update(inputFile, outputFile, type, DEFAULT_BLOCK_SIZE, DEFAULT_DRIFT_THRESHOLD);
+    }
+
+    // Comprime lo que se agregó a 'inputFile' desde la última actualización de
+    // 'outputFile' (o todo, si 'outputFile' no existe) y devuelve la cantidad
+    // de bytes nuevos comprimidos. El original solo debe crecer: los bytes ya
+    // comprimidos no se vuelven a leer.
+    public static long update(String inputFile, String outputFile, byte type, int blockSize, double driftThreshold)
+            throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Tamaño de bloque inválido: " + blockSize);
+        }
+        try (FileChannel output = FileChannel.open(Paths.get(outputFile), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+                FileChannel input = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ)) {
+            State state;
+            if (output.size() == 0) {
+                state = new State();
+                state.type = type;
+                state.committed = HEADER_BYTES;
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).put((byte) VERSION).put(type).putLong(0); // Nada confirmado todavía
+                writeFully(output, header.flip(), 0);
+            } else {
+                state = readState(output::read, output.size());
+                if (state.type != type) {
+                    throw new IOException("El archivo contiene otro tipo de datos (tipo " + state.type + ")");
+                }
+            }
+            long inputSize = input.size();
+            if (inputSize < state.originalLength) {
+                throw new IOException("El original es más corto que lo ya comprimido: no solo creció");
+            }
+            if (inputSize == state.originalLength && state.trailerPosition >= 0) {
+                return 0;
+            }
+            // Lo que haya después de lo confirmado es de una actualización interrumpida
+            output.truncate(state.committed);
+
+            byte[] table = null;
+            if (state.tablePosition >= 0) {
+                table = CodeLengths.unpack(readFully(output::read, state.tablePosition + 1, TABLE_BYTES));
+                HuffmanFormat.checkCodeLengths(table);
+            }
+            long[] codes = table != null ? Huffman.canonicalCodes(table) : null;
+
+            List<long[]> index = new ArrayList<>();
+            long position = state.committed;
+            long tablePosition = state.tablePosition;
+            byte[] block = new byte[(int) Math.min(blockSize, Math.max(1, inputSize - state.originalLength))];
+            for (long done = state.originalLength; done < inputSize; ) {
+                int length = (int) Math.min(blockSize, inputSize - done);
+                readFully(input::read, ByteBuffer.wrap(block, 0, length), done);
+                long[] histogram = Huffman.countBytes(block, 0, length);
+
+                byte mode;
+                byte[] lengths = table;
+                byte[] fresh = null;
+                long reuseBytes = table != null ? CodeLengths.codedBytes(histogram, table) : Long.MAX_VALUE;
+                boolean reusable = reuseBytes != Long.MAX_VALUE && reuseBytes < length;
+                // Ninguna tabla nueva baja de la entropía: si reutilizar cuesta
+                // menos que esa cota, no hace falta calcular la tabla nueva
+                long minimumFresh = TABLE_BYTES + HuffmanEstimator.minimumBytes(histogram);
+                if (reusable && reuseBytes <= minimumFresh * (1 + driftThreshold)) {
+                    mode = BLOCK_REUSE;
+                } else {
+                    fresh = Arrays.copyOf(Huffman.codeLengths(histogram, MAX_CODE_LENGTH), 256);
+                    long freshBytes = TABLE_BYTES + CodeLengths.codedBytes(histogram, fresh);
+                    if (reusable && reuseBytes <= freshBytes * (1 + driftThreshold)) {
+                        mode = BLOCK_REUSE;
+                    } else if (freshBytes < length) {
+                        mode = BLOCK_FRESH;
+                        lengths = fresh;
+                    } else {
+                        mode = BLOCK_RAW;
+                    }
+                }
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 2 + TABLE_BYTES + 16);
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeByte(mode);
+                if (mode == BLOCK_FRESH) {
+                    out.write(CodeLengths.pack(fresh));
+                    table = fresh;
+                    codes = Huffman.canonicalCodes(fresh);
+                    tablePosition = position;
+                }
+                out.writeInt(length);
+                if (mode == BLOCK_RAW) {
+                    out.writeInt(length);
+                    out.write(block, 0, length);
+                } else {
+                    BitWriter writer = new BitWriter(length / 2 + 16);
+                    writer.writeSymbols(block, 0, length, codes, lengths);
+                    byte[] bits = writer.toByteArray();
+                    out.writeInt(bits.length);
+                    out.write(bits);
+                }
+                writeFully(output, ByteBuffer.wrap(bytes.toByteArray()), position);
+                index.add(new long[] {position, length});
+                position += bytes.size();
+                done += length;
+            }
+
+            // Índice y cola de esta actualización
+            ByteBuffer trailer = ByteBuffer.allocate(index.size() * INDEX_ENTRY_BYTES + TRAILER_BYTES);
+            for (long[] entry : index) {
+                trailer.putLong(entry[0]).putInt((int) entry[1]);
+            }
+            trailer.putInt(index.size()).putLong(state.trailerPosition).putLong(inputSize).putLong(tablePosition)
+                    .putInt(MAGIC);
+            writeFully(output, trailer.flip(), position);
+            long committed = position + trailer.capacity();
+
+            // Primero los datos, después la longitud confirmada que los hace visibles
+            output.force(true);
+            ByteBuffer length = ByteBuffer.allocate(8).putLong(0, committed);
+            writeFully(output, length, COMMITTED_POSITION);
+            output.force(true);
+            return inputSize - state.originalLength;
+        }
+    }
+
+    // Descomprime la última versión confirmada, bloque por bloque
+    public static void decompressFile(String inputFile, String outputFile, byte expectedType) throws IOException {
+        try (FileChannel input = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile),
+                        HuffmanFormat.STREAM_BUFFER_SIZE)) {
+            decompress(input::read, input.size(), out, expectedType, Long.MAX_VALUE);
+        }
+    }
+
+    // Descomprime un archivo incremental completo en memoria, sea cual sea su tipo
+    public static byte[] decompress(byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        decompress((buffer, position) -> {
+            if (position >= compressed.length) {
+                return -1;
+            }
+            int count = (int) Math.min(buffer.remaining(), compressed.length - position);
+            buffer.put(compressed, (int) position, count);
+            return count;
+        }, compressed.length, out, ANY_TYPE, Integer.MAX_VALUE - 8);
+        return out.toByteArray();
+    }
+
+    // Escribe en 'out' los bytes de la última versión confirmada de 'input';
+    // 'expectedType' es ANY_TYPE para aceptar cualquier tipo
+    private static void decompress(Source input, long fileSize, OutputStream out, int expectedType, long maxLength)
+            throws IOException {
+        State state = readState(input, fileSize);
+        if (expectedType != ANY_TYPE && state.type != expectedType) {
+            throw new IOException("El archivo contiene otro tipo de datos (tipo " + state.type + ")");
+        }
+        if (state.trailerPosition < 0) {
+            throw new IOException("El archivo no tiene ninguna actualización confirmada");
+        }
+        if (state.originalLength > maxLength) {
+            throw new IOException("El archivo es demasiado grande para descomprimirse en memoria");
+        }
+        long[] positions = blockPositions(input, state);
+
+        HuffmanDecoder decoder = null;
+        long written = 0;
+        for (long position : positions) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    readFully(input, position, (int) Math.min(1 + TABLE_BYTES + 8, state.committed - position))));
+            byte mode = in.readByte();
+            int headerBytes = 1 + 8;
+            if (mode == BLOCK_FRESH) {
+                byte[] packed = new byte[TABLE_BYTES];
+                in.readFully(packed);
+                byte[] lengths = CodeLengths.unpack(packed);
+                HuffmanFormat.checkCodeLengths(lengths);
+                try {
+                    decoder = HuffmanDecoder.fromLengths(lengths);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Tabla de Huffman inválida", e);
+                }
+                headerBytes += TABLE_BYTES;
+            } else if (mode == BLOCK_REUSE) {
+                if (decoder == null) {
+                    throw new IOException("Bloque sin tabla que reutilizar");
+                }
+            } else if (mode != BLOCK_RAW) {
+                throw new IOException("Modo de bloque desconocido: " + mode);
+            }
+            int symbols = in.readInt();
+            int size = in.readInt();
+            if (symbols < 0 || size < 0 || size > state.committed - position - headerBytes
+                    || (mode == BLOCK_RAW && size != symbols) || (long) symbols > 8L * size) {
+                throw new IOException("Bloque inválido en la posición " + position);
+            }
+            byte[] data = readFully(input, position + headerBytes, size);
+            if (mode == BLOCK_RAW) {
+                out.write(data);
+            } else {
+                byte[] decoded = new byte[symbols];
+                try {
+                    decoder.decode(new BitReader(data), decoded, 0, symbols);
+                } catch (IllegalStateException e) {
+                    throw new IOException("Datos comprimidos corruptos", e);
+                }
+                out.write(decoded);
+            }
+            written += symbols;
+        }
+        if (written != state.originalLength) {
+            throw new IOException("El índice no coincide con la longitud original");
+        }
+    }
+
+    // Lee la cabecera y la última cola confirmada
+    private static State readState(Source channel, long fileSize) throws IOException {
+        if (fileSize < HEADER_BYTES) {
+            throw new IOException("El archivo no es un archivo comprimido incremental");
+        }
+        ByteBuffer header = ByteBuffer.wrap(readFully(channel, 0, HEADER_BYTES));
+        if (header.getInt() != MAGIC) {
+            throw new IOException("El archivo no es un archivo comprimido incremental");
+        }
+        int version = header.get() & 0xFF;
+        if (version != VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        State state = new State();
+        state.type = header.get();
+        long committed = header.getLong();
+        if (committed == 0) {
+            // Se cortó la primera actualización: no hay nada confirmado
+            state.committed = HEADER_BYTES;
+            return state;
+        }
+        if (committed < HEADER_BYTES + TRAILER_BYTES || committed > fileSize) {
+            throw new IOException("Longitud confirmada inválida: " + committed);
+        }
+        state.committed = committed;
+        state.trailerPosition = committed - TRAILER_BYTES;
+        ByteBuffer trailer = ByteBuffer.wrap(readFully(channel, state.trailerPosition, TRAILER_BYTES));
+        trailer.getInt(); // Cantidad de bloques
+        trailer.getLong(); // Cola anterior
+        state.originalLength = trailer.getLong();
+        state.tablePosition = trailer.getLong();
+        if (trailer.getInt() != MAGIC || state.originalLength < 0 || state.tablePosition < -1
+                || (state.tablePosition >= 0 && state.tablePosition + 1 + TABLE_BYTES > committed)) {
+            throw new IOException("Cola inválida");
+        }
+        return state;
+    }
+
+    // Posiciones de todos los bloques, en orden, siguiendo las colas hacia atrás
+    private static long[] blockPositions(Source channel, State state) throws IOException {
+        List<long[]> updates = new ArrayList<>();
+        long total = 0;
+        long trailerPosition = state.trailerPosition;
+        long limit = trailerPosition;
+        while (trailerPosition >= 0) {
+            ByteBuffer trailer = ByteBuffer.wrap(readFully(channel, trailerPosition, TRAILER_BYTES));
+            int count = trailer.getInt();
+            long previous = trailer.getLong();
+            if (count < 0 || (long) count * INDEX_ENTRY_BYTES > trailerPosition - HEADER_BYTES
+                    || previous >= trailerPosition - (long) count * INDEX_ENTRY_BYTES) {
+                throw new IOException("Índice inválido");
+            }
+            ByteBuffer index = ByteBuffer.wrap(
+                    readFully(channel, trailerPosition - (long) count * INDEX_ENTRY_BYTES, count * INDEX_ENTRY_BYTES));
+            long[] positions = new long[count];
+            for (int i = 0; i < count; i++) {
+                positions[i] = index.getLong();
+                index.getInt(); // Símbolos del bloque
+                if (positions[i] < HEADER_BYTES || positions[i] >= limit) {
+                    throw new IOException("Índice inválido");
+                }
+            }
+            updates.add(positions);
+            total += count;
+            limit = trailerPosition;
+            trailerPosition = previous;
+        }
+        long[] result = new long[(int) total];
+        int next = 0;
+        for (int i = updates.size() - 1; i >= 0; i--) {
+            System.arraycopy(updates.get(i), 0, result, next, updates.get(i).length);
+            next += updates.get(i).length;
+        }
+        return result;
+    }
+
+    private static byte[] readFully(Source channel, long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        readFully(channel, ByteBuffer.wrap(bytes), position);
+        return bytes;
+    }
+
+    private static void readFully(Source channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new EOFException("Archivo incompleto");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long start = position - buffer.position();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Lector de bits empaquetados (el primer bit ocupa la posición más
+ * significativa de cada byte), complemento de BitWriter.
+ * Mantiene un registro de 64 bits alineado a la izquierda que se recarga de a
+ * 8 bytes, de modo que un decodificador puede mirar hasta 56 bits por
+ * adelantado sin volver a leer el arreglo.
+ */
+public class BitReader {
+    // Lectura de 8 bytes big-endian de una sola vez
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.BIG_ENDIAN);
+
+    // Bits que refill() garantiza en el registro
+    public static final int MAX_PEEK_BITS = 56;
+
+    private final byte[] data; // Bytes empaquetados
+    private int position; // Siguiente byte a cargar en el registro
+    private int limit; // Fin de los bytes válidos
+    private InputStream source; // Flujo del que se recarga 'data' (null si no hay más)
+    private long buffer; // Bits cargados, alineados a la izquierda
+    private int availableBits; // Cantidad de bits válidos en el registro
+
+    public BitReader(byte[] data) {
+        this(data, 0, data.length);
+    }
+
+    public BitReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    // Lee los bits de un flujo usando un buffer de tamaño fijo
+    public BitReader(InputStream source, int bufferSize) {
+        this.data = new byte[Math.max(16, bufferSize)];
+        this.source = source;
+    }
+
+    // Garantiza al menos MAX_PEEK_BITS bits en el registro; pasado el final de
+    // los datos se leen ceros
+    public void refill() {
+        if (availableBits >= MAX_PEEK_BITS) {
+            return;
+        }
+        if (position + 8 > limit && source != null) {
+            loadFromSource();
+        }
+        if (position + 8 <= limit) {
+            // Camino rápido: carga 8 bytes y avanza solo los que caben enteros
+            long word = (long) LONG_VIEW.get(data, position);
+            buffer |= word >>> availableBits;
+            int loadedBytes = (63 - availableBits) >>> 3;
+            position += loadedBytes;
+            availableBits += loadedBytes << 3;
+            return;
+        }
+        while (availableBits < MAX_PEEK_BITS) {
+            long next = position < limit ? data[position] & 0xFF : 0;
+            position++;
+            buffer |= next << (56 - availableBits);
+            availableBits += 8;
+        }
+    }
+
+    // Mueve los bytes sin consumir al inicio del buffer y lo completa desde el flujo
+    private void loadFromSource() {
+        int remaining = Math.max(0, limit - position);
+        System.arraycopy(data, position, data, 0, remaining);
+        position = 0;
+        limit = remaining;
+        try {
+            while (limit < data.length) {
+                int read = source.read(data, limit, data.length - limit);
+                if (read < 0) {
+                    source = null; // Fin del flujo: en adelante se leen ceros
+                    return;
+                }
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Indica si ya se consumieron bits de relleno posteriores al final de los
+    // datos, es decir, si los datos terminaron antes de lo esperado
+    public boolean pastEnd() {
+        return source == null && (long) (position - limit) * 8 > availableBits;
+    }
+
+    // Devuelve los próximos 'count' bits sin consumirlos (1 <= count <= 32)
+    public int peek(int count) {
+        return (int) (buffer >>> (64 - count));
+    }
+
+    // Devuelve 'count' bits ubicados después de los primeros 'skipped' bits, sin consumirlos
+    public int peek(int skipped, int count) {
+        return (int) ((buffer << skipped) >>> (64 - count));
+    }
+
+    // Consume 'count' bits ya cargados en el registro
+    public void skip(int count) {
+        buffer <<= count;
+        availableBits -= count;
+    }
+
+    // Lee y consume 'count' bits (1 <= count <= 32)
+    public int read(int count) {
+        refill();
+        int value = peek(count);
+        skip(count);
+        return value;
+    }
+}
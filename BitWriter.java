@@ -0,0 +1,114 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Escritor de bits empaquetados (el primer bit ocupa la posición más
+ * significativa de cada byte).
+ * Acumula los códigos en un registro de 64 bits y los vuelca al arreglo de
+ * salida de 32 en 32 bits, sin crear objetos por símbolo.
+ */
+public class BitWriter {
+    private byte[] buffer; // Bytes ya empaquetados
+    private int position; // Siguiente posición libre en el buffer
+    private long accumulator; // Bits pendientes, alineados a la derecha
+    private int pendingBits; // Cantidad de bits pendientes en el acumulador (siempre < 32)
+    private long drainedBytes; // Bytes ya enviados con drainTo
+
+    public BitWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    // Escribe los 'length' bits menos significativos de 'code' (1 <= length <= 64)
+    public void write(long code, int length) {
+        if (length > 32) {
+            // Divide los códigos largos para no desbordar el acumulador
+            write(code >>> 32, length - 32);
+            write(code & 0xFFFFFFFFL, 32);
+            return;
+        }
+        accumulator = (accumulator << length) | code;
+        pendingBits += length;
+        if (pendingBits >= 32) {
+            pendingBits -= 32;
+            putInt((int) (accumulator >>> pendingBits));
+        }
+    }
+
+    // Codifica cada carácter usando las tablas de códigos y longitudes indexadas por símbolo
+    public void writeSymbols(String data, long[] codes, byte[] lengths) {
+        for (int i = 0; i < data.length(); i++) {
+            char symbol = data.charAt(i);
+            write(codes[symbol], lengths[symbol]);
+        }
+    }
+
+    // Codifica los bytes [offset, offset + length) usando las tablas indexadas por símbolo
+    public void writeSymbols(byte[] data, int offset, int length, long[] codes, byte[] lengths) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int symbol = data[i] & 0xFF;
+            write(codes[symbol], lengths[symbol]);
+        }
+    }
+
+    // Envía los bytes completos a la salida y vacía el buffer; los bits
+    // pendientes quedan en el acumulador. Permite codificar en flujo con un
+    // buffer de tamaño acotado.
+    public void drainTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, position);
+        drainedBytes += position;
+        position = 0;
+    }
+
+    // Igual que el anterior, hacia un buffer
+    public void drainTo(ByteBuffer out) {
+        out.put(buffer, 0, position);
+        drainedBytes += position;
+        position = 0;
+    }
+
+    // Cantidad de bytes completos que todavía no se enviaron con drainTo
+    public int pendingBytes() {
+        return position;
+    }
+
+    // Cantidad total de bits escritos hasta el momento
+    public long bitLength() {
+        return (drainedBytes + position) * 8 + pendingBits;
+    }
+
+    // Completa el último byte con ceros y devuelve los bytes empaquetados
+    public byte[] toByteArray() {
+        flush();
+        return Arrays.copyOf(buffer, position);
+    }
+
+    // Vuelca los bits pendientes completando el último byte con ceros. Lo que
+    // se escriba después empieza en un byte nuevo.
+    public void flush() {
+        while (pendingBits > 0) {
+            int take = Math.min(8, pendingBits);
+            pendingBits -= take;
+            int value = (int) (accumulator >>> pendingBits) & ((1 << take) - 1);
+            ensureCapacity(1);
+            buffer[position++] = (byte) (value << (8 - take));
+        }
+        accumulator = 0;
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(4);
+        buffer[position] = (byte) (value >>> 24);
+        buffer[position + 1] = (byte) (value >>> 16);
+        buffer[position + 2] = (byte) (value >>> 8);
+        buffer[position + 3] = (byte) value;
+        position += 4;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+}
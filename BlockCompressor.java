@@ -0,0 +1,350 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Compresión por bloques con tablas de Huffman adaptativas, para archivos
+ * heterogéneos (partes de texto, binarias o ya comprimidas).
+ * Cada bloque elige, según lo que estima su histograma, la forma más chica:
+ * - una tabla nueva, calculada para el bloque;
+ * - la tabla vigente (la última tabla nueva), sin repetirla en el archivo;
+ * - los bytes tal cual, si Huffman no los achicaría (datos casi uniformes).
+ * Los bloques que ni siquiera según la entropía de Shannon se achicarían se
+ * guardan tal cual sin construir el árbol ni codificarlos. Los histogramas y
+ * la codificación de los bloques se reparten entre los hilos; solo las
+ * decisiones, que son baratas, se toman en orden.
+ *
+ * Formato:
+ * magia "HBLK" (4 bytes) | versión (1 byte) | tamaño de bloque (4 bytes) | longitud original (8 bytes)
+ * por bloque: modo (1 byte) | [BLOCK_FRESH: longitudes de los 256 códigos, 4 bits cada una (128 bytes)]
+ * tamaño de los datos (4 bytes) | datos (bits de Huffman o bytes tal cual)
+ */
+public class BlockCompressor {
+    public static final int MAGIC = 0x48424C4B; // "HBLK"
+    public static final int VERSION = 1;
+
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+    // Un grupo de bloques tiene que caber en un arreglo
+    public static final int MAX_BLOCK_SIZE = 1 << 24;
+
+    // Las longitudes se guardan en 4 bits
+    private static final int MAX_CODE_LENGTH = 15;
+    private static final int TABLE_BYTES = 128;
+    private static final int HEADER_BYTES = 4 + 1 + 4 + 8;
+
+    // Forma de guardar cada bloque
+    private static final byte BLOCK_RAW = 0;
+    private static final byte BLOCK_FRESH = 1;
+    private static final byte BLOCK_REUSE = 2;
+
+    // Bloques que se leen y se procesan juntos al comprimir archivos en flujo
+    private static final int BLOCKS_PER_GROUP = 64;
+
+    // Tabla de Huffman de un bloque, compartida por los que la reutilizan
+    private static final class Table {
+        final byte[] lengths; // Longitud de cada uno de los 256 símbolos (0: sin código)
+        long[] codes;
+        HuffmanDecoder decoder;
+
+        Table(byte[] lengths) {
+            this.lengths = lengths;
+        }
+    }
+
+    // Decisiones y datos codificados de un grupo de bloques
+    private static final class Group {
+        final byte[] modes;
+        final Table[] tables;
+        final byte[][] payloads;
+
+        Group(int blockCount) {
+            modes = new byte[blockCount];
+            tables = new Table[blockCount];
+            payloads = new byte[blockCount][];
+        }
+    }
+
+    public static byte[] compress(byte[] data) {
+        return compress(data, DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public static byte[] compress(byte[] data, int blockSize, ForkJoinPool pool) {
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("Tamaño de bloque inválido: " + blockSize);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 2 + 64);
+        try {
+            DataOutputStream out = new DataOutputStream(buffer);
+            writeHeader(out, blockSize, data.length);
+            writeBlocks(out, data, data.length, blockSize, null, pool);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // No ocurre al escribir en memoria
+        }
+        return buffer.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] compressed) throws IOException {
+        return decompress(compressed, ForkJoinPool.commonPool());
+    }
+
+    public static byte[] decompress(byte[] compressed, ForkJoinPool pool) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed));
+        int blockSize = readHeaderBlockSize(in);
+        long originalLength = readOriginalLength(in, compressed.length);
+        if (originalLength > Integer.MAX_VALUE - 8) {
+            throw new IOException("El archivo es demasiado grande para descomprimirse en memoria");
+        }
+        byte[] output = new byte[(int) originalLength];
+        readBlocks(in, output, output.length, blockSize, null, pool);
+        return output;
+    }
+
+    // Comprime un archivo en flujo, de a BLOCKS_PER_GROUP bloques
+    public static void compressFile(String inputFile, String outputFile) throws IOException {
+        int blockSize = DEFAULT_BLOCK_SIZE;
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        try (InputStream in = new FileInputStream(inputFile);
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(outputFile), HuffmanFormat.STREAM_BUFFER_SIZE))) {
+            writeHeader(out, blockSize, new File(inputFile).length());
+            byte[] group = new byte[blockSize * BLOCKS_PER_GROUP];
+            Table current = null;
+            int read;
+            while ((read = in.readNBytes(group, 0, group.length)) > 0) {
+                current = writeBlocks(out, group, read, blockSize, current, pool);
+            }
+        }
+    }
+
+    // Descomprime un archivo en flujo, de a BLOCKS_PER_GROUP bloques
+    public static void decompressFile(String inputFile, String outputFile) throws IOException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(inputFile), HuffmanFormat.STREAM_BUFFER_SIZE));
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile),
+                        HuffmanFormat.STREAM_BUFFER_SIZE)) {
+            int blockSize = readHeaderBlockSize(in);
+            long remaining = readOriginalLength(in, new File(inputFile).length());
+            byte[] group = new byte[(int) Math.min((long) blockSize * BLOCKS_PER_GROUP, remaining)];
+            Table current = null;
+            while (remaining > 0) {
+                int length = (int) Math.min(group.length, remaining);
+                current = readBlocks(in, group, length, blockSize, current, pool);
+                out.write(group, 0, length);
+                remaining -= length;
+            }
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out, int blockSize, long originalLength) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(blockSize);
+        out.writeLong(originalLength);
+    }
+
+    // Valida la cabecera y devuelve el tamaño de bloque
+    private static int readHeaderBlockSize(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no es un archivo comprimido por bloques");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        int blockSize = in.readInt();
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new IOException("Tamaño de bloque inválido: " + blockSize);
+        }
+        return blockSize;
+    }
+
+    // Lee la longitud original; cada byte ocupa al menos un bit de los datos
+    // (un byte si el bloque se guardó tal cual), así que una longitud mayor
+    // que los bits del archivo indica una cabecera dañada
+    private static long readOriginalLength(DataInputStream in, long fileSize) throws IOException {
+        long originalLength = in.readLong();
+        if (originalLength < 0 || originalLength > 8 * (fileSize - HEADER_BYTES)) {
+            throw new IOException("Cabecera de bloques inválida");
+        }
+        return originalLength;
+    }
+
+    // Comprime los primeros 'length' bytes de 'data' como bloques consecutivos
+    // y devuelve la tabla vigente al terminar
+    private static Table writeBlocks(DataOutputStream out, byte[] data, int length, int blockSize, Table current,
+            ForkJoinPool pool) throws IOException {
+        int blockCount = (length + blockSize - 1) / blockSize;
+        if (blockCount == 0) {
+            return current;
+        }
+        long[][] histograms = new long[blockCount][];
+        forEachBlock(pool, blockCount, block -> {
+            int start = block * blockSize;
+            histograms[block] = Huffman.countBytes(data, start, Math.min(length, start + blockSize));
+        });
+
+        // Las decisiones dependen de la tabla vigente: se toman en orden
+        Group group = new Group(blockCount);
+        for (int block = 0; block < blockCount; block++) {
+            int blockLength = Math.min(blockSize, length - block * blockSize);
+            current = choose(group, block, histograms[block], blockLength, current);
+        }
+
+        forEachBlock(pool, blockCount, block -> {
+            if (group.modes[block] == BLOCK_RAW) {
+                return;
+            }
+            int start = block * blockSize;
+            int blockLength = Math.min(blockSize, length - start);
+            Table table = group.tables[block];
+            BitWriter writer = new BitWriter(blockLength / 2 + 16);
+            writer.writeSymbols(data, start, blockLength, table.codes, table.lengths);
+            group.payloads[block] = writer.toByteArray();
+        });
+
+        for (int block = 0; block < blockCount; block++) {
+            out.writeByte(group.modes[block]);
+            if (group.modes[block] == BLOCK_FRESH) {
+                out.write(CodeLengths.pack(group.tables[block].lengths));
+            }
+            if (group.modes[block] == BLOCK_RAW) {
+                int start = block * blockSize;
+                int blockLength = Math.min(blockSize, length - start);
+                out.writeInt(blockLength);
+                out.write(data, start, blockLength);
+            } else {
+                out.writeInt(group.payloads[block].length);
+                out.write(group.payloads[block]);
+            }
+        }
+        return current;
+    }
+
+    // Elige la forma de guardar un bloque comparando los tamaños estimados a
+    // partir del histograma, y devuelve la tabla vigente después del bloque
+    private static Table choose(Group group, int block, long[] histogram, int blockLength, Table current) {
+        // Ningún código de prefijo baja de la entropía: si ni así se achica,
+        // el bloque se guarda tal cual sin construir el árbol
+        long entropyBytes = (long) Math.ceil(CodeLengths.entropy(histogram) * blockLength / 8);
+        if (entropyBytes >= blockLength) {
+            group.modes[block] = BLOCK_RAW;
+            return current;
+        }
+        long reuseBytes = current != null ? CodeLengths.codedBytes(histogram, current.lengths) : Long.MAX_VALUE;
+        // Si reutilizar cuesta menos que cualquier tabla nueva posible, no hace falta calcularla
+        if (reuseBytes <= entropyBytes + TABLE_BYTES && reuseBytes < blockLength) {
+            group.modes[block] = BLOCK_REUSE;
+            group.tables[block] = current;
+            return current;
+        }
+        Table fresh = new Table(Arrays.copyOf(Huffman.codeLengths(histogram, MAX_CODE_LENGTH), 256));
+        long freshBytes = TABLE_BYTES + CodeLengths.codedBytes(histogram, fresh.lengths);
+        if (blockLength <= Math.min(freshBytes, reuseBytes)) {
+            group.modes[block] = BLOCK_RAW;
+            return current;
+        }
+        if (reuseBytes <= freshBytes) {
+            group.modes[block] = BLOCK_REUSE;
+            group.tables[block] = current;
+            return current;
+        }
+        fresh.codes = Huffman.canonicalCodes(fresh.lengths);
+        group.modes[block] = BLOCK_FRESH;
+        group.tables[block] = fresh;
+        return fresh;
+    }
+
+    // Lee los bloques que forman los primeros 'length' bytes de 'output', los
+    // decodifica en paralelo y devuelve la tabla vigente al terminar
+    private static Table readBlocks(DataInputStream in, byte[] output, int length, int blockSize, Table current,
+            ForkJoinPool pool) throws IOException {
+        int blockCount = (int) (((long) length + blockSize - 1) / blockSize);
+        Group group = new Group(blockCount);
+        for (int block = 0; block < blockCount; block++) {
+            int start = block * blockSize;
+            int blockLength = Math.min(blockSize, length - start);
+            byte mode = in.readByte();
+            if (mode == BLOCK_FRESH) {
+                byte[] packed = new byte[TABLE_BYTES];
+                in.readFully(packed);
+                current = new Table(CodeLengths.unpack(packed));
+                HuffmanFormat.checkCodeLengths(current.lengths);
+                current.codes = Huffman.canonicalCodes(current.lengths);
+                try {
+                    current.decoder = new HuffmanDecoder(current.codes, current.lengths);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Tabla de Huffman inválida", e);
+                }
+            } else if (mode == BLOCK_REUSE) {
+                if (current == null) {
+                    throw new IOException("Bloque sin tabla que reutilizar");
+                }
+            } else if (mode != BLOCK_RAW) {
+                throw new IOException("Modo de bloque desconocido: " + mode);
+            }
+            int size = in.readInt();
+            if (size < 0 || size > blockLength * 2L + 64 || (mode == BLOCK_RAW && size != blockLength)) {
+                throw new IOException("Tamaño de bloque inválido: " + size);
+            }
+            if (mode == BLOCK_RAW) {
+                in.readFully(output, start, blockLength);
+            } else {
+                group.payloads[block] = new byte[size];
+                in.readFully(group.payloads[block]);
+                group.tables[block] = current;
+            }
+            group.modes[block] = mode;
+        }
+
+        try {
+            forEachBlock(pool, blockCount, block -> {
+                if (group.modes[block] == BLOCK_RAW) {
+                    return;
+                }
+                int start = block * blockSize;
+                group.tables[block].decoder.decode(new BitReader(group.payloads[block]), output, start,
+                        Math.min(blockSize, length - start));
+            });
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+        return current;
+    }
+
+    // Ejecuta la acción para cada bloque, repartiendo los bloques entre los hilos del pool
+    private static void forEachBlock(ForkJoinPool pool, int blockCount, IntConsumer action) {
+        if (blockCount == 1) {
+            action.accept(0);
+        } else if (blockCount > 1) {
+            pool.invoke(new BlockTask(action, 0, blockCount));
+        }
+    }
+
+    // Aplica la acción a los bloques [from, to) dividiendo el rango
+    private static class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer action;
+        private final int from, to;
+
+        BlockTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BlockTask(action, from, middle), new BlockTask(action, middle, to));
+                return;
+            }
+            action.accept(from);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+
+/**
+ * Calcula las longitudes de los códigos de Huffman sin crear nodos.
+ * Los símbolos se ordenan por frecuencia en un arreglo de long y sobre ese
+ * mismo arreglo se aplica el método de dos colas en su versión en el lugar
+ * (Moffat y Katajainen): tres recorridos lineales que dejan primero los
+ * padres, luego las profundidades internas y por último la longitud de cada
+ * hoja. Los arreglos de trabajo se reutilizan entre llamadas, por lo que
+ * construir miles de códigos no genera basura.
+ * Un constructor no debe compartirse entre hilos.
+ */
+public class CodeLengthBuilder {
+    // Bits reservados para el símbolo al empaquetar (frecuencia, símbolo) en un long
+    private static final int SYMBOL_BITS = 16;
+    private static final long MAX_PACKED_FREQUENCY = 1L << (63 - SYMBOL_BITS);
+
+    private long[] weights = new long[256]; // Pesos ordenados; luego padres y profundidades
+    private int[] symbols = new int[256]; // Símbolo de cada posición de 'weights'
+
+    // Calcula las longitudes de código indexadas por símbolo
+    public byte[] codeLengths(long[] histogram) {
+        int size = histogram.length;
+        while (size > 0 && histogram[size - 1] == 0) {
+            size--;
+        }
+        byte[] lengths = new byte[size];
+        codeLengths(histogram, lengths);
+        return lengths;
+    }
+
+    // Escribe las longitudes en 'lengths' (que debe cubrir todos los símbolos presentes)
+    public void codeLengths(long[] histogram, byte[] lengths) {
+        Arrays.fill(lengths, (byte) 0);
+        int count = sortSymbols(histogram);
+        if (count < 0) {
+            // Frecuencias demasiado grandes para empaquetarlas: se usa el árbol de nodos
+            byte[] treeLengths = Huffman.codeLengths(Huffman.buildTree(histogram));
+            System.arraycopy(treeLengths, 0, lengths, 0, treeLengths.length);
+            return;
+        }
+        if (count == 0) {
+            return;
+        }
+        if (count == 1) {
+            lengths[symbols[0]] = 1; // Un solo símbolo: código de un bit
+            return;
+        }
+        computeDepths(weights, count);
+        for (int i = 0; i < count; i++) {
+            lengths[symbols[i]] = (byte) weights[i];
+        }
+    }
+
+    // Ordena los símbolos presentes por frecuencia ascendente (a igual frecuencia,
+    // por símbolo). Deja los pesos en 'weights' y los símbolos en 'symbols', y
+    // devuelve la cantidad, o -1 si alguna frecuencia no se puede empaquetar.
+    private int sortSymbols(long[] histogram) {
+        if (weights.length < histogram.length) {
+            weights = new long[histogram.length];
+            symbols = new int[histogram.length];
+        }
+        int count = 0;
+        for (int symbol = 0; symbol < histogram.length; symbol++) {
+            long frequency = histogram[symbol];
+            if (frequency > 0) {
+                if (frequency >= MAX_PACKED_FREQUENCY) {
+                    return -1;
+                }
+                weights[count++] = (frequency << SYMBOL_BITS) | symbol;
+            }
+        }
+        Arrays.sort(weights, 0, count);
+        for (int i = 0; i < count; i++) {
+            symbols[i] = (int) (weights[i] & ((1 << SYMBOL_BITS) - 1));
+            weights[i] >>>= SYMBOL_BITS;
+        }
+        return count;
+    }
+
+    // Reemplaza los pesos ordenados a[0..n) por la profundidad de cada hoja
+    private static void computeDepths(long[] a, int n) {
+        // Primer recorrido: combina los dos menores entre hojas y nodos internos;
+        // cada nodo interno guarda su peso y luego el índice de su padre
+        a[0] += a[1];
+        int root = 0;
+        int leaf = 2;
+        for (int next = 1; next < n - 1; next++) {
+            if (leaf >= n || a[root] < a[leaf]) {
+                a[next] = a[root];
+                a[root++] = next;
+            } else {
+                a[next] = a[leaf++];
+            }
+            if (leaf >= n || (root < next && a[root] < a[leaf])) {
+                a[next] += a[root];
+                a[root++] = next;
+            } else {
+                a[next] += a[leaf++];
+            }
+        }
+        // Segundo recorrido: profundidad de cada nodo interno a partir de su padre
+        a[n - 2] = 0;
+        for (int next = n - 3; next >= 0; next--) {
+            a[next] = a[(int) a[next]] + 1;
+        }
+        // Tercer recorrido: reparte las hojas en cada nivel según los nodos
+        // internos disponibles
+        int available = 1;
+        int used = 0;
+        int depth = 0;
+        root = n - 2;
+        int next = n - 1;
+        while (available > 0) {
+            while (root >= 0 && a[root] == depth) {
+                used++;
+                root--;
+            }
+            while (available > used) {
+                a[next--] = depth;
+                available--;
+            }
+            available = 2 * used;
+            depth++;
+            used = 0;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Cuentas sobre histogramas y longitudes de código que comparten los
+ * formatos: la entropía de Shannon (la cota inferior de cualquier código
+ * prefijo), el tamaño de unos datos codificados con una tabla dada y la forma
+ * de guardar las longitudes de hasta 15 bits, dos por byte.
+ */
+public class CodeLengths {
+
+    // Bits por símbolo según la entropía de Shannon del histograma
+    public static double entropy(long[] histogram) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        double entropy = 0;
+        for (long count : histogram) {
+            if (count > 0) {
+                double probability = (double) count / total;
+                entropy -= probability * Math.log(probability) / Math.log(2);
+            }
+        }
+        return entropy;
+    }
+
+    // Bytes que ocupan los símbolos del histograma codificados con las
+    // longitudes dadas, o Long.MAX_VALUE si algún símbolo presente no tiene código
+    public static long codedBytes(long[] histogram, byte[] lengths) {
+        long bits = 0;
+        for (int symbol = 0; symbol < histogram.length; symbol++) {
+            if (histogram[symbol] > 0) {
+                if (symbol >= lengths.length || lengths[symbol] == 0) {
+                    return Long.MAX_VALUE;
+                }
+                bits += histogram[symbol] * lengths[symbol];
+            }
+        }
+        return (bits + 7) >>> 3;
+    }
+
+    // Las longitudes van de 0 a 15: caben 2 en un byte
+    public static byte[] pack(byte[] lengths) {
+        byte[] packed = new byte[(lengths.length + 1) / 2];
+        for (int i = 0; i < lengths.length; i++) {
+            packed[i >> 1] |= (byte) (lengths[i] << ((i & 1) == 0 ? 4 : 0));
+        }
+        return packed;
+    }
+
+    public static byte[] unpack(byte[] packed) {
+        byte[] lengths = new byte[2 * packed.length];
+        for (int i = 0; i < packed.length; i++) {
+            lengths[2 * i] = (byte) ((packed[i] >>> 4) & 0x0F);
+            lengths[2 * i + 1] = (byte) (packed[i] & 0x0F);
+        }
+        return lengths;
+    }
+}
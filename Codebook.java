@@ -0,0 +1,195 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tabla de códigos de Huffman canónicos entrenada de antemano con un corpus de
+ * ejemplo (texto, ADN, imágenes...) e identificada por un número.
+ * Los registros comprimidos con un codebook guardan solo su identificador, la
+ * cantidad de bytes y los bits, sin tabla de frecuencias ni árbol: para
+ * entradas pequeñas la cabecera de un .huf ocuparía más que los datos.
+ * Todos los bytes tienen código (el entrenamiento suma 1 a cada frecuencia),
+ * así que cualquier entrada se puede comprimir con cualquier codebook.
+ *
+ * Archivo de un codebook (<id>.cbk):
+ * magia "HCBK" (4 bytes) | versión (1 byte) | identificador (4 bytes) | 256 longitudes
+ *
+ * Registro comprimido:
+ * identificador (entero variable) | cantidad de bytes (entero variable) | bits
+ */
+public class Codebook {
+    public static final int MAGIC = 0x4843424B; // "HCBK"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".cbk";
+
+    public static final int DEFAULT_MAX_CODE_LENGTH = 15;
+
+    private final int id;
+    private final byte[] lengths;
+    private final long[] codes;
+    private volatile HuffmanDecoder decoder; // Se construye una sola vez, al decodificar
+
+    public Codebook(int id, byte[] lengths) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Identificador de codebook inválido: " + id);
+        }
+        this.id = id;
+        this.lengths = Arrays.copyOf(lengths, 256);
+        this.codes = Huffman.canonicalCodes(this.lengths);
+    }
+
+    // Entrena un codebook con el histograma de un corpus
+    public static Codebook train(int id, long[] histogram, int maxCodeLength) {
+        long[] counts = new long[256];
+        for (int symbol = 0; symbol < counts.length; symbol++) {
+            counts[symbol] = 1 + (symbol < histogram.length ? histogram[symbol] : 0);
+        }
+        return new Codebook(id, Huffman.codeLengths(counts, maxCodeLength));
+    }
+
+    // Entrena un codebook con varias muestras
+    public static Codebook train(int id, List<byte[]> samples) {
+        long[] histogram = new long[256];
+        for (byte[] sample : samples) {
+            long[] counts = Huffman.countBytes(sample, 0, sample.length);
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                histogram[symbol] += counts[symbol];
+            }
+        }
+        return train(id, histogram, DEFAULT_MAX_CODE_LENGTH);
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public byte[] lengths() {
+        return lengths.clone();
+    }
+
+    private HuffmanDecoder decoder() {
+        HuffmanDecoder result = decoder;
+        if (result == null) {
+            result = HuffmanDecoder.fromLengths(lengths);
+            decoder = result;
+        }
+        return result;
+    }
+
+    // Comprime un registro con este codebook
+    public byte[] compress(byte[] data) {
+        BitWriter writer = new BitWriter(data.length / 2 + 16);
+        writer.writeSymbols(data, 0, data.length, codes, lengths);
+        byte[] bits = writer.toByteArray();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bits.length + 10);
+        writeVarInt(out, id);
+        writeVarInt(out, data.length);
+        out.write(bits, 0, bits.length);
+        return out.toByteArray();
+    }
+
+    // Descomprime un registro comprimido con este codebook
+    public byte[] decompress(byte[] record) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(record);
+        int recordId = readVarInt(in);
+        if (recordId != id) {
+            throw new IOException("El registro usa el codebook " + recordId + ", no el " + id);
+        }
+        int length = readVarInt(in);
+        int offset = record.length - in.available();
+        // Cada símbolo ocupa al menos un bit
+        if (length < 0 || (long) length > 8L * (record.length - offset)) {
+            throw new IOException("Registro comprimido inválido");
+        }
+        byte[] output = new byte[length];
+        try {
+            decoder().decode(new BitReader(record, offset, record.length - offset), output, 0, length);
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+        return output;
+    }
+
+    // Identificador del codebook que usa un registro
+    public static int recordId(byte[] record) throws IOException {
+        return readVarInt(new ByteArrayInputStream(record));
+    }
+
+    // Guarda el codebook en el directorio como <id>.cbk. Se escribe en un
+    // archivo temporal que después se renombra, así que quien lo cargue al
+    // mismo tiempo ve el archivo anterior o el nuevo, nunca uno a medias.
+    public void save(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, id + "-", EXTENSION + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(id);
+                out.write(lengths);
+            }
+            Files.move(temporary, path(directory, id), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Carga el codebook <id>.cbk del directorio
+    public static Codebook load(Path directory, int id) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path(directory, id))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("El archivo no es un codebook");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Versión de formato no soportada: " + version);
+            }
+            int storedId = in.readInt();
+            if (storedId != id) {
+                throw new IOException("El archivo contiene el codebook " + storedId + ", no el " + id);
+            }
+            byte[] lengths = new byte[256];
+            in.readFully(lengths);
+            HuffmanFormat.checkCodeLengths(lengths);
+            return new Codebook(id, lengths);
+        }
+    }
+
+    static Path path(Path directory, int id) {
+        return directory.resolve(id + EXTENSION);
+    }
+
+    // Enteros de longitud variable: 7 bits por byte, el bit alto indica que sigue otro byte
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(ByteArrayInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int next = in.read();
+            if (next < 0) {
+                throw new IOException("Registro comprimido incompleto");
+            }
+            // Del quinto byte solo quedan 4 bits, y es el último
+            if (shift == 28 && next > 0x0F) {
+                throw new IOException("Entero variable demasiado largo");
+            }
+            value |= (next & 0x7F) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Entero variable demasiado largo");
+    }
+}
@@ -0,0 +1,75 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de codebooks cargados desde un directorio, con desalojo del menos
+ * usado recientemente (LRU). Cada codebook guarda su propia tabla de
+ * decodificación, de modo que un codebook en caché no vuelve a leerse ni a
+ * construir sus tablas. Se puede usar desde varios hilos; el disco se lee y
+ * se escribe fuera del bloqueo.
+ */
+public class CodebookCache {
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private final Path directory;
+    private final Map<Integer, Codebook> codebooks;
+
+    public CodebookCache(Path directory) {
+        this(directory, DEFAULT_CAPACITY);
+    }
+
+    public CodebookCache(Path directory, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacidad de caché inválida: " + capacity);
+        }
+        this.directory = directory;
+        // Orden de acceso: el primero es siempre el menos usado recientemente
+        this.codebooks = new LinkedHashMap<Integer, Codebook>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Codebook> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // Devuelve el codebook, cargándolo del directorio si no está en caché.
+    // La lectura del archivo se hace fuera del bloqueo para no frenar a los
+    // hilos que piden codebooks ya cargados; si dos hilos cargan el mismo a
+    // la vez, se queda el primero que llega a la caché.
+    public Codebook get(int id) throws IOException {
+        synchronized (this) {
+            Codebook codebook = codebooks.get(id);
+            if (codebook != null) {
+                return codebook;
+            }
+        }
+        Codebook loaded = Codebook.load(directory, id);
+        synchronized (this) {
+            Codebook codebook = codebooks.putIfAbsent(id, loaded);
+            return codebook != null ? codebook : loaded;
+        }
+    }
+
+    // Guarda un codebook recién entrenado (fuera del bloqueo) y lo deja en caché
+    public void put(Codebook codebook) throws IOException {
+        codebook.save(directory);
+        synchronized (this) {
+            codebooks.put(codebook.id(), codebook);
+        }
+    }
+
+    public synchronized int size() {
+        return codebooks.size();
+    }
+
+    public byte[] compress(int id, byte[] data) throws IOException {
+        return get(id).compress(data);
+    }
+
+    // Descomprime un registro con el codebook que indica su identificador
+    public byte[] decompress(byte[] record) throws IOException {
+        return get(Codebook.recordId(record)).decompress(record);
+    }
+}
@@ -1,11 +1,8 @@
 import java.io.*;
-import java.awt.image.BufferedImage;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Base64;
 import java.util.Map;
 import java.util.Scanner;
-import javax.imageio.ImageIO;
 
 /**
  * Clase principal que maneja la interacción con el usuario y la compresión de
@@ -13,6 +10,11 @@ import javax.imageio.ImageIO;
  * Utiliza la clase Huffman para realizar la compresión.
  */
 public class CompressMain {
+    // A partir de este tamaño los archivos se comprimen en flujo, sin cargarlos en memoria
+    private static final long STREAMING_THRESHOLD = 64L * 1024 * 1024;
+    // Longitud máxima de los códigos: mantiene pequeñas las tablas del decodificador
+    private static final int MAX_CODE_LENGTH = 15;
+
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
         boolean exit = false;
@@ -23,6 +25,7 @@ public class CompressMain {
             System.out.println("2. Comprimir texto");
             System.out.println("3. Comprimir ADN");
             System.out.println("4. Comprimir imagen BMP");
+            System.out.println("5. Agregar lo nuevo de un texto o ADN que crece");
 
             int choice = scanner.nextInt();
             scanner.nextLine(); // Consume la nueva línea
@@ -40,6 +43,9 @@ public class CompressMain {
                 case 4:
                     compressImageBMP(scanner);
                     break;
+                case 5:
+                    appendGrowingFile(scanner);
+                    break;
                 default:
                     System.out.println("Opción no válida. Intenta de nuevo.");
             }
@@ -52,24 +58,28 @@ public class CompressMain {
     private static void compressText(Scanner scanner) {
         System.out.println("Ingresa el nombre del archivo de texto a comprimir:");
         String inputFile = scanner.nextLine();
-        String outputFile = "Text/compressed_text.txt";
+        String outputFile = "Text/compressed_text.huf";
         System.out.println("El archivo se guardardo como: " + outputFile);
 
         try {
-            String content = new String(Files.readAllBytes(Paths.get(inputFile)));
-            Huffman.CompressionResult result = Huffman.compressText(content);
+            if (Files.size(Paths.get(inputFile)) > STREAMING_THRESHOLD) {
+                compressLargeFile(inputFile, outputFile, HuffmanFormat.TYPE_TEXT);
+                return;
+            }
+            long readStart = System.nanoTime();
+            byte[] content = Files.readAllBytes(Paths.get(inputFile));
+            long readNanos = System.nanoTime() - readStart;
+            // Se comprimen los bytes tal cual: cualquier archivo vuelve idéntico
+            Huffman.CompressionResult result = Huffman.compress(content, MAX_CODE_LENGTH);
+            result.metrics.addTime(CompressionMetrics.Stage.READ, readNanos);
 
             // Construir y mostrar el árbol de Huffman
             Huffman.Node root = Huffman.buildTree(result.frequencies);
             System.out.println("Árbol de Huffman:");
             Huffman.printTree(root);
 
-            saveCompressionResult(outputFile, result);
+            saveCompressionResult(outputFile, HuffmanFormat.TYPE_TEXT, result);
             displayCompressionResults(result);
-            saveHuffmanDetails("Text/huffman_text.txt", result);
-            Huffman.generateAndSaveAsciiKey("Text/ascii_key.txt");
-            System.out.println("Archivo de clave ASCII generado: ascii_key.txt");
-            System.out.println("Archivo del mapa de huffman generado: huffman_text.txt");
 
         } catch (IOException e) {
             System.err.println("Error al procesar el archivo de texto: " + e.getMessage());
@@ -79,136 +89,118 @@ public class CompressMain {
     private static void compressDNA(Scanner scanner) {
         System.out.println("Ingresa el nombre del archivo de ADN a comprimir:");
         String inputFile = scanner.nextLine();
-        String outputFile = "ADN/compressed_adn.txt";
+        String outputFile = "ADN/compressed_adn.huf";
         System.out.println("El archivo se guardardo como: " + outputFile);
 
         try {
-            String content = new String(Files.readAllBytes(Paths.get(inputFile)));
-            Huffman.CompressionResult result = Huffman.compressDNA(content);
-            saveCompressionResult(outputFile, result);
-            displayCompressionResults(result);
-            saveHuffmanDetails("ADN/huffman_dna.txt", result);
-            Huffman.generateAndSaveAsciiKey("ADN/ascii_key.txt");
-            System.out.println("Archivo de clave ASCII generado: ascii_key.txt");
-            System.out.println("Archivo del mapa de huffman generado: huffman_dna.txt");
+            if (Files.size(Paths.get(inputFile)) > DnaCompressor.CHUNK_SIZE) {
+                // En flujo, de a trozos que se comprimen por separado
+                System.out.println("Archivo grande: se comprime en flujo sin cargarlo en memoria");
+                DnaCompressor.compressFile(inputFile, outputFile, DnaCompressor.DEFAULT_CONTEXT_ORDER);
+                System.out.println("Resultado de compresión guardado en " + outputFile);
+                System.out.println("Tamaño original: " + Files.size(Paths.get(inputFile)) + " bytes, comprimido: "
+                        + Files.size(Paths.get(outputFile)) + " bytes");
+                return;
+            }
+            // Compresión sin pérdida: bases a 2 bits (o por contexto), N, saltos de
+            // línea y minúsculas en listas aparte
+            byte[] content = Files.readAllBytes(Paths.get(inputFile));
+            byte[] compressed = DnaCompressor.compress(content, DnaCompressor.DEFAULT_CONTEXT_ORDER);
+            Files.write(Paths.get(outputFile), compressed);
+            System.out.println("Resultado de compresión guardado en " + outputFile);
+            System.out.println("Tamaño original: " + content.length + " bytes, comprimido: " + compressed.length
+                    + " bytes");
 
         } catch (IOException e) {
             System.err.println("Error al procesar el archivo de ADN: " + e.getMessage());
         }
     }
 
+    // Comprime solo lo que se agregó al archivo desde la última vez, en la
+    // misma salida que las opciones 2 y 3, así que DescompressMain la lee igual
+    private static void appendGrowingFile(Scanner scanner) {
+        System.out.println("Ingresa el nombre del archivo que crece (texto o ADN):");
+        String inputFile = scanner.nextLine();
+        System.out.println("¿Es ADN? (s/n):");
+        boolean dna = scanner.nextLine().trim().equalsIgnoreCase("s");
+        String outputFile = dna ? "ADN/compressed_adn.huf" : "Text/compressed_text.huf";
+        byte type = dna ? HuffmanFormat.TYPE_DNA : HuffmanFormat.TYPE_TEXT;
+
+        try {
+            // Una salida de las opciones 2 y 3 no es incremental: se reemplaza
+            if (Files.exists(Paths.get(outputFile)) && !AppendableHuffman.isAppendable(outputFile)) {
+                System.out.println("La salida anterior no es incremental: se comprime todo de nuevo");
+                Files.delete(Paths.get(outputFile));
+            }
+            long added = AppendableHuffman.update(inputFile, outputFile, type);
+            System.out.println("Bytes nuevos comprimidos: " + added + ", guardado en " + outputFile);
+            System.out.println("Tamaño original: " + Files.size(Paths.get(inputFile)) + " bytes, comprimido: "
+                    + Files.size(Paths.get(outputFile)) + " bytes");
+
+        } catch (IOException e) {
+            System.err.println("Error al actualizar el archivo comprimido: " + e.getMessage());
+        }
+    }
+
     private static void compressImageBMP(Scanner scanner) {
         System.out.println("Ingresa el nombre del archivo de imagen BMP a comprimir:");
         String inputFile = scanner.nextLine();
-        String outputFile = "Bmp/compressed_bmp.txt";
+        String outputFile = "Bmp/compressed_bmp.huf";
         System.out.println("El archivo se guardardo como: " + outputFile);
 
         try {
-            String imageData = readImageBMP(inputFile);
-            Huffman.CompressionResult result = Huffman.compressGrayscaleImage(imageData);
-            saveCompressionResult(outputFile, result);
-            displayCompressionResults(result);
-            saveHuffmanDetails("Bmp/huffman_image.txt", result);
-            Huffman.generateAndSaveAsciiKey("Bmp/ascii_key.txt");
-            System.out.println("Archivo de clave ASCII generado: ascii_key.txt");
-            System.out.println("Archivo del mapa de huffman generado: huffman_image.txt");
+            // Todos los canales del raster, filtrados por fila antes de Huffman
+            ImageCompressor.compressFile(inputFile, outputFile);
+            long originalSize = Files.size(Paths.get(inputFile));
+            long compressedSize = Files.size(Paths.get(outputFile));
+            System.out.println("Resultado de compresión guardado en " + outputFile);
+            System.out.println("Tamaño original: " + originalSize + " bytes, comprimido: " + compressedSize
+                    + " bytes");
 
         } catch (IOException e) {
             System.err.println("Error al procesar el archivo de imagen: " + e.getMessage());
         }
     }
 
-    // Guarda el resultado de la compresión en un archivo
-    private static void saveCompressionResult(String outputFile, Huffman.CompressionResult result) throws IOException {
-        // Convierte la cadena comprimida en un array de bytes
-        byte[] compressedBytes = result.compressedData.getBytes();
-
-        // Codificar los bytes comprimidos a Base64
-        String base64Encoded = Base64.getEncoder().encodeToString(compressedBytes);
-
-        // Guardar la cadena Base64 en el archivo de salida
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-            writer.write(base64Encoded);
+    // Guarda el resultado de la compresión (cabecera, longitudes de los códigos
+    // y bits empaquetados) en un solo archivo binario
+    private static void saveCompressionResult(String outputFile, byte type, Huffman.CompressionResult result)
+            throws IOException {
+        CompressionMetrics.Timer timer = result.metrics.time(CompressionMetrics.Stage.WRITE);
+        try {
+            HuffmanFormat.write(outputFile, type, result);
+        } finally {
+            timer.close();
         }
+        result.metrics.setOutputBytes(Files.size(Paths.get(outputFile)));
+        result.metrics.commit();
+
+        System.out.println("Resultado de compresión guardado en " + outputFile);
+    }
 
+    // Comprime un archivo grande en flujo (histograma y codificación en dos
+    // pasadas con buffers fijos); el archivo se guarda sin filtrar ningún byte
+    private static void compressLargeFile(String inputFile, String outputFile, byte type) throws IOException {
+        System.out.println("Archivo grande: se comprime en flujo sin cargarlo en memoria");
+        HuffmanFormat.compressFile(inputFile, outputFile, type, MAX_CODE_LENGTH);
+        long originalSize = Files.size(Paths.get(inputFile));
+        long compressedSize = Files.size(Paths.get(outputFile));
         System.out.println("Resultado de compresión guardado en " + outputFile);
+        System.out.println("Tamaño original: " + originalSize + " bytes, comprimido: " + compressedSize + " bytes");
     }
 
     // Muestra los resultados de la compresión
     private static void displayCompressionResults(Huffman.CompressionResult result) {
-        System.out.println("Datos comprimidos: " + result.compressedData);
-        System.out.println("Porcentaje de compresión: " + result.compressionPercentage + "%");
+        System.out.printf("Porcentaje de compresión: %.2f%%%n", result.compressionPercentage);
+        System.out.println(result.metrics);
         System.out.println("Códigos de Huffman y frecuencias:");
         // Muestra los códigos de Huffman y las frecuencias de los caracteres
         for (Map.Entry<Character, String> entry : result.huffmanCodes.entrySet()) {
             // Obtiene el carácter, el código de Huffman y la frecuencia
             char character = entry.getKey();
             String code = entry.getValue();
-            int frequency = result.frequencies.get(character);
+            long frequency = result.frequencies[character];
             System.out.println("Carácter: " + character + ", Frecuencia: " + frequency + ", Código Huffman: " + code);
         }
     }
-
-    // Lee una imagen BMP y la convierte a una cadena de caracteres
-    private static String readImageBMP(String filename) throws IOException {
-        try {
-            // Lee la imagen BMP
-            BufferedImage image = ImageIO.read(new File(filename));
-
-            if (image == null) {
-                // No se pudo leer el archivo o el formato no es compatible
-                throw new IOException("No se pudo leer el archivo BMP o el formato no es compatible.");
-            }
-            // Convierte la imagen a escala de grises
-            StringBuilder imageData = new StringBuilder();
-            // Recorre la imagen por filas y columnas
-            for (int y = 0; y < image.getHeight(); y++) {
-                for (int x = 0; x < image.getWidth(); x++) {
-                    int rgb = image.getRGB(x, y);
-                    int gray = (rgb >> 16) & 0xff;
-                    char grayChar = (char) gray;
-                    imageData.append(grayChar);
-                }
-            }
-
-            return imageData.toString();
-        } catch (Exception e) {
-            throw new IOException("Error al leer el archivo BMP: " + e.getMessage(), e);
-        }
-    }
-
-    private static void saveHuffmanDetails(String outputFile, Huffman.CompressionResult result) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-            // Escribe la cabecera (opcional)
-            writer.write("Carácter, Frecuencia\n");
-            for (Map.Entry<Character, Integer> entry : result.frequencies.entrySet()) {
-                char character = entry.getKey();
-                int frequency = entry.getValue();
-
-                // Representa caracteres especiales como cadenas legibles
-                String charRepresentation = getCharRepresentation(character);
-
-                // Escribe el par clave-valor en el archivo
-                writer.write(charRepresentation + ", " + frequency + "\n");
-            }
-        }
-        System.out.println("Detalles de Huffman guardados en " + outputFile);
-    }
-
-    private static String getCharRepresentation(char character) {
-        // Convierte caracteres no imprimibles o especiales a una forma legible
-        switch (character) {
-            case '\n':
-                return "\\n";
-            case '\r':
-                return "\\r";
-            case '\t':
-                return "\\t";
-            case ' ':
-                return "[espacio]";
-            // Agrega más casos si es necesario
-            default:
-                return character + ""; // Convierte el carácter a una cadena
-        }
-    }
 }
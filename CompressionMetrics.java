@@ -0,0 +1,213 @@
+import java.util.function.Supplier;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Métricas de una compresión: tiempo de cada etapa, bytes de entrada y de
+ * salida, bits por símbolo comparados con la entropía de Shannon del
+ * histograma y velocidad en MB/s. Se devuelven junto al resultado
+ * (CompressionResult.metrics).
+ * Cada etapa también se registra como evento de JFR ("huffman.Stage") y cada
+ * compresión terminada como "huffman.Compression" (con commit, una vez
+ * escrita la salida), de modo que se pueden
+ * seguir en producción con una grabación de JFR sin cambiar el código:
+ *
+ * java -XX:StartFlightRecording=filename=huffman.jfr ...
+ * jfr print --events huffman.Compression huffman.jfr
+ */
+public class CompressionMetrics {
+    // Etapas de la compresión, en orden
+    public enum Stage {
+        READ, HISTOGRAM, TREE, ENCODE, PACK, WRITE
+    }
+
+    private final long[] stageNanos = new long[Stage.values().length];
+    private long inputBytes;
+    private long outputBytes;
+    private long symbols;
+    private long bitLength;
+    private double entropy; // Bits por símbolo según la entropía de Shannon
+
+    // Mide una etapa que no lanza excepciones comprobadas:
+    // codes = metrics.time(Stage.TREE, () -> canonicalCodes(lengths));
+    public <T> T time(Stage stage, Supplier<T> action) {
+        Timer timer = new Timer(stage);
+        try {
+            return action.get();
+        } finally {
+            timer.close();
+        }
+    }
+
+    public void time(Stage stage, Runnable action) {
+        Timer timer = new Timer(stage);
+        try {
+            action.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    // Mide una etapa que hace E/S; el llamador cierra el temporizador en un finally
+    public Timer time(Stage stage) {
+        return new Timer(stage);
+    }
+
+    // Suma un tiempo medido por fuera (por ejemplo, en otro hilo)
+    public void addTime(Stage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    // Completa las métricas con el histograma y los bits producidos; el
+    // evento de JFR se registra recién con commit
+    public void complete(long[] histogram, long bitLength, long outputBytes) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        this.symbols = total;
+        this.inputBytes = Math.max(inputBytes, total);
+        this.entropy = CodeLengths.entropy(histogram);
+        this.bitLength = bitLength;
+        this.outputBytes = outputBytes;
+    }
+
+    // Registra el evento de JFR de la compresión; lo llama quien termina la
+    // compresión, después de medir la escritura y fijar los bytes de entrada y salida
+    public void commit() {
+        CompressionEvent event = new CompressionEvent();
+        if (event.shouldCommit()) {
+            event.inputBytes = inputBytes;
+            event.outputBytes = outputBytes;
+            event.symbols = symbols;
+            event.bitsPerSymbol = bitsPerSymbol();
+            event.entropy = entropy;
+            event.stagesDuration = totalNanos();
+            event.throughput = throughput();
+            event.commit();
+        }
+    }
+
+    // Bytes leídos de la entrada, si son más que los símbolos codificados
+    // (por ejemplo, si se filtraron caracteres)
+    public void setInputBytes(long inputBytes) {
+        this.inputBytes = inputBytes;
+    }
+
+    // Bytes escritos en la salida, incluida la cabecera
+    public void setOutputBytes(long outputBytes) {
+        this.outputBytes = outputBytes;
+    }
+
+    public long nanos(Stage stage) {
+        return stageNanos[stage.ordinal()];
+    }
+
+    public long totalNanos() {
+        long total = 0;
+        for (long nanos : stageNanos) {
+            total += nanos;
+        }
+        return total;
+    }
+
+    public long inputBytes() {
+        return inputBytes;
+    }
+
+    public long outputBytes() {
+        return outputBytes;
+    }
+
+    public double bitsPerSymbol() {
+        return symbols == 0 ? 0 : (double) bitLength / symbols;
+    }
+
+    public double entropy() {
+        return entropy;
+    }
+
+    // Velocidad en MB/s sobre el tiempo total de las etapas medidas
+    public double throughput() {
+        long nanos = totalNanos();
+        return nanos == 0 ? 0 : inputBytes / (nanos / 1e9) / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Entrada: %d bytes, salida: %d bytes%n", inputBytes, outputBytes));
+        builder.append(String.format("Bits por símbolo: %.3f (entropía: %.3f)%n", bitsPerSymbol(), entropy));
+        for (Stage stage : Stage.values()) {
+            if (nanos(stage) > 0) {
+                builder.append(String.format("  %-9s %10.3f ms%n", stage, nanos(stage) / 1e6));
+            }
+        }
+        builder.append(String.format("Total: %.3f ms, %.1f MB/s", totalNanos() / 1e6, throughput()));
+        return builder.toString();
+    }
+
+    // Mide el tiempo de una etapa y la registra como evento de JFR
+    public final class Timer implements AutoCloseable {
+        private final Stage stage;
+        private final StageEvent event = new StageEvent();
+        private final long start;
+
+        private Timer(Stage stage) {
+            this.stage = stage;
+            event.stage = stage.name();
+            event.begin();
+            this.start = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            addTime(stage, System.nanoTime() - start);
+            event.commit();
+        }
+    }
+
+    @Name("huffman.Stage")
+    @Label("Etapa de compresión")
+    @Category("Huffman")
+    static class StageEvent extends Event {
+        @Label("Etapa")
+        String stage;
+    }
+
+    @Name("huffman.Compression")
+    @Label("Compresión")
+    @Category("Huffman")
+    @Description("Resumen de una compresión terminada")
+    static class CompressionEvent extends Event {
+        @Label("Bytes de entrada")
+        @DataAmount
+        long inputBytes;
+
+        @Label("Bytes de salida")
+        @DataAmount
+        long outputBytes;
+
+        @Label("Símbolos")
+        long symbols;
+
+        @Label("Bits por símbolo")
+        double bitsPerSymbol;
+
+        @Label("Entropía")
+        @Description("Bits por símbolo según la entropía de Shannon del histograma")
+        double entropy;
+
+        @Label("Duración de las etapas")
+        @Timespan
+        long stagesDuration;
+
+        @Label("MB/s")
+        double throughput;
+    }
+}
@@ -0,0 +1,362 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
+
+/**
+ * Servicio local de compresión por HTTP: un solo proceso atiende a todos los
+ * clientes del equipo, de modo que el arranque de la JVM y el calentamiento
+ * del JIT se pagan una sola vez.
+ *
+ * POST /compress?type=text|dna|image|block|lz[&level=1..9]
+ *                                     cuerpo: datos originales (una imagen en
+ *                                     cualquier formato que lea ImageIO; block
+ *                                     elige una tabla por bloque; lz aplica
+ *                                     LZ77 antes de Huffman)
+ * POST /decompress                    cuerpo: datos comprimidos (el formato se
+ *                                     reconoce por la cabecera; las imágenes
+ *                                     se devuelven como BMP)
+ * GET  /health
+ *
+ * Ejemplo: curl --data-binary @Text/Text.txt "http://localhost:8765/compress?type=text" -o texto.huf
+ *
+ * Cada solicitud se atiende en un hilo virtual si la JVM los tiene (Java 21
+ * o posterior) y si no en un grupo de hilos acotado. Las tablas de
+ * decodificación se guardan en caché según las longitudes de los códigos,
+ * así que las solicitudes repetidas no vuelven a construirlas. El cuerpo de
+ * cada solicitud y la respuesta usan buffers de un pool (los de hasta
+ * MAX_POOLED_BUFFER bytes), y los .huf se decodifican desde el cuerpo
+ * recibido directamente en un buffer del pool. Los demás compresores y el
+ * codificador de Huffman trabajan con arreglos propios: reciben una copia
+ * del cuerpo y reservan sus propios datos codificados. Solo escucha en la
+ * interfaz local.
+ */
+public class CompressionService {
+    public static final int DEFAULT_PORT = 8765;
+
+    private static final int MAX_CODE_LENGTH = 15;
+    private static final int CACHED_DECODERS = 64;
+    // Buffers que guarda el pool y tamaño máximo de cada uno: las solicitudes
+    // más grandes usan buffers propios
+    private static final int POOLED_BUFFERS = 32;
+    private static final int MAX_POOLED_BUFFER = 4 * 1024 * 1024;
+    private static final int MIN_BUFFER = 64 * 1024;
+    // Tamaño máximo de una solicitud: el cuerpo se procesa en memoria
+    private static final int MAX_REQUEST_SIZE = 512 * 1024 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+    // Decodificadores por longitudes de código (ByteBuffer compara por contenido)
+    private final Map<ByteBuffer, HuffmanDecoder> decoders = new LinkedHashMap<ByteBuffer, HuffmanDecoder>(16,
+            0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, HuffmanDecoder> eldest) {
+            return size() > CACHED_DECODERS;
+        }
+    };
+
+    public CompressionService(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = requestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/compress", exchange -> handle(exchange, true));
+        server.createContext("/decompress", exchange -> handle(exchange, false));
+        server.createContext("/health", exchange -> respond(exchange, 200, text("ok")));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        CompressionService service = new CompressionService(port);
+        service.start();
+        System.out.println("Servicio de compresión escuchando en http://localhost:" + service.port());
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Hilos virtuales si la JVM los tiene (Java 21+); si no, un grupo acotado
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        }
+    }
+
+    // Buffers tomados del pool durante una solicitud; se devuelven al terminar
+    final class Buffers implements AutoCloseable {
+        private final List<byte[]> taken = new ArrayList<>(2);
+
+        // Buffer vacío con lugar para al menos 'capacity' bytes
+        ByteBuffer take(int capacity) {
+            byte[] buffer = buffers.poll();
+            if (buffer == null || buffer.length < capacity) {
+                // Los tamaños se redondean a potencias de dos, así que el pool
+                // termina guardando buffers que sirven para casi todo
+                buffer = new byte[capacity <= MIN_BUFFER ? MIN_BUFFER
+                        : capacity > MAX_POOLED_BUFFER ? capacity : Integer.highestOneBit(capacity - 1) << 1];
+            }
+            taken.add(buffer);
+            return ByteBuffer.wrap(buffer, 0, capacity);
+        }
+
+        @Override
+        public void close() {
+            for (byte[] buffer : taken) {
+                if (buffer.length <= MAX_POOLED_BUFFER) {
+                    buffers.offer(buffer); // Si el pool está lleno el buffer se descarta
+                }
+            }
+            taken.clear();
+        }
+    }
+
+    // La respuesta se envía fuera del try que atrapa los errores: si el cliente
+    // se desconecta mientras se escribe, no se intenta enviar una segunda
+    // respuesta con otro estado
+    private void handle(HttpExchange exchange, boolean compress) throws IOException {
+        try (Buffers work = new Buffers()) {
+            int status;
+            ByteBuffer response;
+            try {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    status = 405;
+                    response = text("Solo se admite POST");
+                } else {
+                    ByteBuffer body = readBody(exchange, work);
+                    URI uri = exchange.getRequestURI();
+                    response = compress ? compress(parameter(uri, "type"), parameter(uri, "level"), body, work)
+                            : decompress(body, work);
+                    status = 200;
+                }
+            } catch (IOException | IllegalArgumentException | IllegalStateException e) {
+                status = 400;
+                response = text("Error: " + e.getMessage());
+            } catch (RuntimeException e) {
+                status = 500;
+                response = text("Error interno: " + e);
+            }
+            try {
+                respond(exchange, status, response);
+            } finally {
+                exchange.close();
+            }
+        }
+    }
+
+    // Lee el cuerpo en un buffer del pool; sin Content-Length el buffer se
+    // agranda a medida que llegan los datos
+    private ByteBuffer readBody(HttpExchange exchange, Buffers work) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared != null) {
+            long length = Long.parseLong(declared);
+            if (length < 0 || length > MAX_REQUEST_SIZE) {
+                throw new IOException("Solicitud demasiado grande");
+            }
+            ByteBuffer body = work.take((int) length);
+            if (in.readNBytes(body.array(), 0, (int) length) != length) {
+                throw new EOFException("Solicitud incompleta");
+            }
+            return body;
+        }
+        ByteBuffer body = work.take(MIN_BUFFER);
+        body.limit(body.capacity());
+        int read;
+        while ((read = in.read(body.array(), body.position(), body.remaining())) >= 0) {
+            body.position(body.position() + read);
+            if (!body.hasRemaining()) {
+                if (body.capacity() > MAX_REQUEST_SIZE) {
+                    throw new IOException("Solicitud demasiado grande");
+                }
+                ByteBuffer larger = work.take((int) Math.min(2L * body.capacity(), MAX_REQUEST_SIZE + 1L));
+                larger.limit(larger.capacity());
+                body = larger.put(body.flip());
+            }
+        }
+        return body.flip();
+    }
+
+    byte[] compress(String type, String level, byte[] data) throws IOException {
+        try (Buffers work = new Buffers()) {
+            return bytes(compress(type, level, ByteBuffer.wrap(data), work));
+        }
+    }
+
+    // Comprime los bytes restantes de 'data'; la respuesta puede ocupar un
+    // buffer de 'work'
+    private ByteBuffer compress(String type, String level, ByteBuffer data, Buffers work) throws IOException {
+        if (type == null) {
+            throw new IllegalArgumentException("Falta el parámetro type (text, dna, image, block o lz)");
+        }
+        switch (type) {
+            case "text": {
+                Huffman.CompressionResult result = Huffman.compress(bytes(data), MAX_CODE_LENGTH);
+                byte[] header = HuffmanFormat.headerBytes(HuffmanFormat.header(HuffmanFormat.TYPE_TEXT, result));
+                ByteBuffer out = work.take(header.length + result.packedData.length);
+                out.put(header).put(result.packedData).flip();
+                result.metrics.setOutputBytes(out.remaining());
+                result.metrics.commit();
+                return out;
+            }
+            case "dna":
+                return ByteBuffer.wrap(DnaCompressor.compress(bytes(data), DnaCompressor.DEFAULT_CONTEXT_ORDER));
+            case "block":
+                return ByteBuffer.wrap(BlockCompressor.compress(bytes(data)));
+            case "lz":
+                return ByteBuffer.wrap(LzCompressor.compress(bytes(data),
+                        level != null ? Integer.parseInt(level) : LzCompressor.DEFAULT_LEVEL));
+            case "image": {
+                BufferedImage image = ImageIO.read(
+                        new ByteArrayInputStream(data.array(), data.arrayOffset() + data.position(), data.remaining()));
+                if (image == null) {
+                    throw new IOException("No se pudo leer la imagen o el formato no es compatible.");
+                }
+                return ByteBuffer.wrap(ImageCompressor.compress(ImageCompressor.readPixels(image)));
+            }
+            default:
+                throw new IllegalArgumentException("Tipo desconocido: " + type);
+        }
+    }
+
+    byte[] decompress(byte[] data) throws IOException {
+        try (Buffers work = new Buffers()) {
+            return bytes(decompress(ByteBuffer.wrap(data), work));
+        }
+    }
+
+    private ByteBuffer decompress(ByteBuffer data, Buffers work) throws IOException {
+        if (data.remaining() < 4) {
+            throw new IOException("El archivo no es un archivo comprimido");
+        }
+        switch (data.getInt(data.position())) {
+            case HuffmanFormat.MAGIC:
+                return decompressHuffman(data, work);
+            case DnaCompressor.MAGIC:
+            case DnaCompressor.CHUNKED_MAGIC:
+                return ByteBuffer.wrap(DnaCompressor.decompress(bytes(data)));
+            case ImageCompressor.MAGIC: {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ImageCompressor.writeBMP(ImageCompressor.decompress(bytes(data)), out);
+                return ByteBuffer.wrap(out.toByteArray());
+            }
+            case AdaptiveHuffmanModel.MAGIC:
+                return ByteBuffer.wrap(new AdaptiveHuffmanInputStream(new ByteArrayInputStream(data.array(),
+                        data.arrayOffset() + data.position(), data.remaining())).readAllBytes());
+            case BlockCompressor.MAGIC:
+                return ByteBuffer.wrap(BlockCompressor.decompress(bytes(data)));
+            case LzCompressor.MAGIC:
+                return ByteBuffer.wrap(LzCompressor.decompress(bytes(data)));
+            case AppendableHuffman.MAGIC:
+                return ByteBuffer.wrap(AppendableHuffman.decompress(bytes(data)));
+            default:
+                throw new IOException("El archivo no es un archivo comprimido");
+        }
+    }
+
+    // Decodifica un .huf con la tabla en caché para sus longitudes de código,
+    // leyendo los bits desde el cuerpo recibido sin copiarlos
+    private ByteBuffer decompressHuffman(ByteBuffer data, Buffers work) throws IOException {
+        int start = data.arrayOffset() + data.position();
+        ByteArrayInputStream bytes = new ByteArrayInputStream(data.array(), start, data.remaining());
+        HuffmanFormat.Header header = HuffmanFormat.readHeader(new DataInputStream(bytes));
+        if (header.originalLength > MAX_REQUEST_SIZE || header.codeLengths.length > 256) {
+            throw new IOException("El archivo es demasiado grande para descomprimirse en el servicio");
+        }
+        int offset = start + data.remaining() - bytes.available();
+        int length = bytes.available();
+        // Antes de reservar la salida: cada símbolo ocupa al menos un bit
+        HuffmanFormat.checkPayload(header, length);
+        HuffmanDecoder decoder = decoder(header.codeLengths);
+        ByteBuffer output = work.take((int) header.originalLength);
+        try {
+            if (header.hasBlockIndex()) {
+                ParallelHuffman.decompress(header, data.array(), offset, length, decoder, output.array(),
+                        ForkJoinPool.commonPool());
+            } else {
+                decoder.decode(new BitReader(data.array(), offset, length), output.array(), 0, output.remaining());
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+        return output;
+    }
+
+    private HuffmanDecoder decoder(byte[] codeLengths) throws IOException {
+        ByteBuffer key = ByteBuffer.wrap(codeLengths);
+        synchronized (decoders) {
+            HuffmanDecoder decoder = decoders.get(key);
+            if (decoder != null) {
+                return decoder;
+            }
+        }
+        // La tabla se construye fuera del bloqueo; dos solicitudes simultáneas
+        // pueden construirla a la vez, pero el resultado es el mismo
+        HuffmanDecoder decoder = HuffmanFormat.decoder(codeLengths);
+        synchronized (decoders) {
+            decoders.put(key, decoder);
+        }
+        return decoder;
+    }
+
+    // Copia los bytes restantes del buffer, para los compresores que trabajan
+    // con un arreglo del tamaño exacto
+    private static byte[] bytes(ByteBuffer buffer) {
+        int start = buffer.arrayOffset() + buffer.position();
+        return Arrays.copyOfRange(buffer.array(), start, start + buffer.remaining());
+    }
+
+    private static ByteBuffer text(String message) {
+        return ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String parameter(URI uri, String name) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return pair.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, ByteBuffer body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type",
+                status == 200 ? "application/octet-stream" : "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.remaining() == 0 ? -1 : body.remaining());
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
+        }
+    }
+}
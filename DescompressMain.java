@@ -1,6 +1,5 @@
 import java.io.*;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
 
 public class DescompressMain {
@@ -14,7 +13,8 @@ public class DescompressMain {
             System.out.println("1. Descomprimir archivo de texto");
             System.out.println("2. Descomprimir cadena de ADN");
             System.out.println("3. Descomprimir imagen BMP");
-            System.out.println("4. Salir");
+            System.out.println("4. Leer una región de un archivo con índice (texto o ADN)");
+            System.out.println("5. Salir");
 
             int choice = scanner.nextInt();
             scanner.nextLine(); // Consume la nueva línea
@@ -30,6 +30,9 @@ public class DescompressMain {
                     decompressImageBMP(scanner);
                     break;
                 case 4:
+                    decompressRegion(scanner);
+                    break;
+                case 5:
                     exit = true;
                     break;
                 default:
@@ -41,26 +44,11 @@ public class DescompressMain {
     }
 
     private static void decompressText(Scanner scanner) {
-
-        String compressedFile = "Text/compressed_text.txt"; // Archivo en Base64 o ASCII
-        String huffmanFile = "Text/huffman_text.txt"; // Archivo con frecuencias de Huffman
-        String asciiFile = "Text/ascii_key.txt"; // Archivo con clave ASCII
-        String binaryOutputFile = "Text/binary_output.txt"; // Salida de archivo binario
+        String compressedFile = "Text/compressed_text.huf"; // Archivo comprimido
         String outputFile = "Text/decompressed_output.txt"; // Archivo de salida descomprimido
 
         try {
-            // Leer la clave ASCII y las frecuencias
-            Map<Character, String> asciiKey = readAsciiKey(asciiFile);
-            Map<Character, Integer> frequencies = readFrequencies(huffmanFile);
-
-            // Reconstruir el árbol de Huffman
-            Huffman.Node root = rebuildHuffmanTree(frequencies);
-
-            // Convertir el archivo comprimido a texto binario
-            convertCompressedToBinary(compressedFile, binaryOutputFile, asciiKey);
-
-            // Descomprimir el archivo binario
-            decompressBinaryFile(binaryOutputFile, root, outputFile);
+            decompressFile(compressedFile, HuffmanFormat.TYPE_TEXT, outputFile);
             System.out.println("Texto descomprimido guardado en: " + outputFile);
 
         } catch (IOException e) {
@@ -69,114 +57,19 @@ public class DescompressMain {
         }
     }
 
-    // Lee la clave ASCII desde un archivo y la almacena en un mapa
-    private static Map<Character, String> readAsciiKey(String filename) throws IOException {
-        Map<Character, String> asciiKey = new HashMap<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(" = ");
-                if (parts.length == 2) {
-                    char asciiChar = parts[0].charAt(1);
-                    String binaryCode = parts[1];
-                    asciiKey.put(asciiChar, binaryCode);
-                }
-            }
-        }
-        return asciiKey;
-    }
-
-    // Convierte el contenido del archivo comprimido a texto binario y lo guarda en
-    // un archivo
-    private static void convertCompressedToBinary(String inputFile, String outputFile, Map<Character, String> asciiKey)
-            throws IOException {
-        try (BufferedReader reader = new BufferedReader(new FileReader(inputFile));
-                BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-            int ch;
-            while ((ch = reader.read()) != -1) {
-                char asciiChar = (char) ch;
-                String binaryCode = asciiKey.getOrDefault(asciiChar, "");
-                writer.write(binaryCode);
-            }
-        }
-    }
-
-    // Reconstruye el árbol de Huffman utilizando la tabla de frecuencias
-    private static Huffman.Node rebuildHuffmanTree(Map<Character, Integer> frequencies) {
-        return Huffman.buildTree(frequencies);
-    }
-
-    // Lee y descomprime el archivo binario
-    private static void decompressBinaryFile(String binaryFile, Huffman.Node root, String outputFile)
-            throws IOException {
-        StringBuilder binaryText = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new FileReader(binaryFile))) {
-            int ch;
-            while ((ch = reader.read()) != -1) {
-                binaryText.append((char) ch);
-            }
-        }
-        String originalText = Huffman.decode(root, binaryText.toString());
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
-            writer.write(originalText);
-        }
-    }
-
-    // Implementa readFrequencies, que lee la tabla de frecuencias desde un archivo
-    private static Map<Character, Integer> readFrequencies(String filename) throws IOException {
-        Map<Character, Integer> frequencies = new HashMap<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            reader.readLine(); // Omitir la cabecera si existe
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(", ");
-                if (parts.length == 2) {
-                    char character = getCharFromRepresentation(parts[0]);
-                    int frequency = Integer.parseInt(parts[1]);
-                    frequencies.put(character, frequency);
-                }
-            }
-        }
-        return frequencies;
-    }
-
-    private static char getCharFromRepresentation(String representation) {
-        switch (representation) {
-            case "\\n":
-                return '\n';
-            case "\\r":
-                return '\r';
-            case "\\t":
-                return '\t';
-            case "[espacio]":
-                return ' ';
-            // Agrega más casos si es necesario
-            default:
-                return representation.charAt(0); // Asumiendo que es un carácter común
-        }
+    // Lee el archivo comprimido (cabecera y bits empaquetados) y guarda los datos originales
+    private static void decompressFile(String compressedFile, byte type, String outputFile) throws IOException {
+        // Se decodifica en flujo: la memoria usada no depende del tamaño del archivo
+        HuffmanFormat.decompressFile(compressedFile, outputFile, type);
     }
 
     private static void decompressDNA(Scanner scanner) {
         // Definir los archivos de entrada y salida
-        String compressedFile = "ADN/ascii_key.txt"; // Archivo comprimido en Base64 o ASCII
-        String huffmanFile = "ADN/huffman_dna.txt"; // Archivo con frecuencias de Huffman
-        String asciiFile = "ADN/ascii_key.txt"; // Archivo con clave ASCII
-        String binaryOutputFile = "ADN/binary_dna_output.txt"; // Salida de archivo binario
+        String compressedFile = "ADN/compressed_adn.huf"; // Archivo comprimido
         String outputFile = "ADN/decompressed_dna.txt"; // Archivo de salida descomprimido
 
         try {
-            // Leer la clave ASCII y las frecuencias
-            Map<Character, String> asciiKey = readAsciiKey(asciiFile);
-            Map<Character, Integer> frequencies = readFrequencies(huffmanFile);
-
-            // Reconstruir el árbol de Huffman
-            Huffman.Node root = rebuildHuffmanTree(frequencies);
-
-            // Convertir el archivo comprimido a texto binario
-            convertCompressedToBinary(compressedFile, binaryOutputFile, asciiKey);
-
-            // Descomprimir el archivo binario
-            decompressBinaryFile(binaryOutputFile, root, outputFile);
+            DnaCompressor.decompressFile(compressedFile, outputFile);
             System.out.println("ADN descomprimido guardado en: " + outputFile);
 
         } catch (IOException e) {
@@ -187,25 +80,11 @@ public class DescompressMain {
 
     private static void decompressImageBMP(Scanner scanner) {
         // Definir los archivos de entrada y salida
-        String compressedFile = "Bmp/ascii_key.txt"; // Archivo comprimido en Base64 o ASCII
-        String huffmanFile = "Bmp/huffman_image.txt"; // Archivo con frecuencias de Huffman
-        String asciiFile = "Bmp/ascii_key.txt"; // Archivo con clave ASCII
-        String binaryOutputFile = "Bmp/binary_image_output.txt"; // Salida de archivo binario
+        String compressedFile = "Bmp/compressed_bmp.huf"; // Archivo comprimido
         String outputFile = "Bmp/decompressed_image.bmp"; // Archivo de imagen descomprimido en formato BMP
 
         try {
-            // Leer la clave ASCII y las frecuencias
-            Map<Character, String> asciiKey = readAsciiKey(asciiFile);
-            Map<Character, Integer> frequencies = readFrequencies(huffmanFile);
-
-            // Reconstruir el árbol de Huffman
-            Huffman.Node root = rebuildHuffmanTree(frequencies);
-
-            // Convertir el archivo comprimido a texto binario
-            convertCompressedToBinary(compressedFile, binaryOutputFile, asciiKey);
-
-            // Descomprimir el archivo binario
-            decompressBinaryFile(binaryOutputFile, root, outputFile);
+            ImageCompressor.decompressFile(compressedFile, outputFile);
             System.out.println("Imagen BMP descomprimida guardada en: " + outputFile);
 
         } catch (IOException e) {
@@ -214,4 +93,23 @@ public class DescompressMain {
         }
     }
 
-}
\ No newline at end of file
+    // Muestra una región sin descomprimir el archivo entero; el archivo debe
+    // tener índice de bloques (java HuffmanCli compress --seekable ...)
+    private static void decompressRegion(Scanner scanner) {
+        System.out.println("Ingresa el nombre del archivo comprimido con índice:");
+        String compressedFile = scanner.nextLine();
+        System.out.println("Ingresa la posición inicial y la cantidad de símbolos:");
+        long start = scanner.nextLong();
+        int length = scanner.nextInt();
+        scanner.nextLine(); // Consume la nueva línea
+
+        try {
+            byte[] region = RandomAccessHuffman.decompressRange(compressedFile, start, length);
+            System.out.println(new String(region, StandardCharsets.ISO_8859_1));
+
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+}
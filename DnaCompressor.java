@@ -0,0 +1,523 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Compresor sin pérdida para secuencias de ADN.
+ * La entrada se separa en tres partes:
+ * - las bases A, C, G y T (en mayúscula o minúscula), a 2 bits por base o
+ * codificadas con Huffman según el contexto de las k bases anteriores;
+ * - las excepciones: todo byte que no es una base (N, saltos de línea,
+ * cabeceras FASTA...), guardado como secuencias repetidas (distancia,
+ * longitud, byte);
+ * - la máscara de minúsculas, como longitudes alternadas de secuencias de
+ * bases en mayúscula y en minúscula.
+ * Las dos listas se guardan como enteros variables, comprimidos con Huffman
+ * cuando eso las achica.
+ *
+ * Formato:
+ * magia "HDNA" (4 bytes) | versión (1 byte) | modo (1 byte) | orden del contexto k (1 byte)
+ * longitud original (8 bytes) | cantidad de bases (8 bytes)
+ * excepciones y máscara: cada una con longitud (4 bytes), forma (1 byte: tal cual o
+ * archivo .huf) y contenido
+ * bases: MODE_PACKED: 4 bases por byte; MODE_CONTEXT: 4^k bytes con las
+ * longitudes de los códigos de cada contexto (2 bits por base) y luego los bits
+ *
+ * Los archivos de más de CHUNK_SIZE bytes se comprimen en flujo, de a trozos
+ * independientes (el contexto vuelve a empezar en cada uno):
+ * magia "HDNC" (4 bytes) | versión (1 byte) | tamaño de los trozos (4 bytes)
+ * y por cada trozo: longitud (4 bytes) | trozo en el formato "HDNA"
+ */
+public class DnaCompressor {
+    public static final int MAGIC = 0x48444E41; // "HDNA"
+    public static final int VERSION = 1;
+
+    public static final int CHUNKED_MAGIC = 0x48444E43; // "HDNC"
+    // Bytes de entrada por trozo al comprimir en flujo: acota la memoria a
+    // unas pocas veces este tamaño
+    public static final int CHUNK_SIZE = 64 * 1024 * 1024;
+
+    public static final int DEFAULT_CONTEXT_ORDER = 4;
+    public static final int MAX_CONTEXT_ORDER = 8;
+
+    // Modos de codificación de las bases
+    private static final byte MODE_PACKED = 0;
+    private static final byte MODE_CONTEXT = 1;
+
+    // Forma de guardar las listas auxiliares
+    private static final byte CHANNEL_RAW = 0;
+    private static final byte CHANNEL_HUFFMAN = 1;
+
+    private static final byte[] BASES = { 'A', 'C', 'G', 'T' };
+    // Código de 2 bits de cada byte, o -1 si no es una base
+    private static final byte[] BASE_CODE = new byte[256];
+
+    static {
+        Arrays.fill(BASE_CODE, (byte) -1);
+        for (int code = 0; code < BASES.length; code++) {
+            BASE_CODE[BASES[code]] = (byte) code;
+            BASE_CODE[Character.toLowerCase(BASES[code])] = (byte) code;
+        }
+    }
+
+    // Comprime una secuencia de ADN. Con contextOrder 0 las bases se guardan a 2 bits.
+    public static byte[] compress(byte[] data, int contextOrder) throws IOException {
+        if (contextOrder < 0 || contextOrder > MAX_CONTEXT_ORDER) {
+            throw new IllegalArgumentException("Orden de contexto inválido: " + contextOrder);
+        }
+        // Separa bases, excepciones y máscara de minúsculas en una sola pasada
+        byte[] bases = new byte[data.length];
+        int baseCount = 0;
+        ByteArrayOutputStream exceptions = new ByteArrayOutputStream();
+        ByteArrayOutputStream caseRuns = new ByteArrayOutputStream();
+        int exceptionEnd = 0; // Fin de la última secuencia de excepciones
+        boolean lowerCase = false; // Estado de la secuencia de mayúsculas/minúsculas actual
+        long caseRunLength = 0;
+        int i = 0;
+        while (i < data.length) {
+            int value = data[i] & 0xFF;
+            int code = BASE_CODE[value];
+            if (code >= 0) {
+                boolean isLower = value >= 'a';
+                if (isLower != lowerCase) {
+                    writeVarLong(caseRuns, caseRunLength);
+                    lowerCase = isLower;
+                    caseRunLength = 0;
+                }
+                caseRunLength++;
+                bases[baseCount++] = (byte) code;
+                i++;
+                continue;
+            }
+            int runEnd = i + 1;
+            while (runEnd < data.length && data[runEnd] == data[i]) {
+                runEnd++;
+            }
+            writeVarLong(exceptions, i - exceptionEnd);
+            writeVarLong(exceptions, runEnd - i);
+            exceptions.write(value);
+            exceptionEnd = runEnd;
+            i = runEnd;
+        }
+        writeVarLong(caseRuns, caseRunLength);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(baseCount / 4 + 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        byte[] contextLengths = contextOrder > 0 ? contextCodeLengths(bases, baseCount, contextOrder) : null;
+        boolean useContext = contextLengths != null
+                && contextCodedBits(bases, baseCount, contextOrder, contextLengths) + contextLengths.length * 2L
+                        < 2L * baseCount;
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(useContext ? MODE_CONTEXT : MODE_PACKED);
+        out.writeByte(useContext ? contextOrder : 0);
+        out.writeLong(data.length);
+        out.writeLong(baseCount);
+        writeSideChannel(out, exceptions.toByteArray());
+        writeSideChannel(out, caseRuns.toByteArray());
+        if (useContext) {
+            out.write(packLengths(contextLengths));
+            out.write(encodeWithContext(bases, baseCount, contextOrder, contextLengths));
+        } else {
+            out.write(packBases(bases, baseCount));
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] compressed) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed));
+        int magic = in.readInt();
+        if (magic == CHUNKED_MAGIC) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            decompress(new ByteArrayInputStream(compressed), out);
+            return out.toByteArray();
+        }
+        if (magic != MAGIC) {
+            throw new IOException("El archivo no es un archivo de ADN comprimido");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        byte mode = in.readByte();
+        int contextOrder = in.readUnsignedByte();
+        long originalLength = in.readLong();
+        long baseCount = in.readLong();
+        if (originalLength < 0 || originalLength > Integer.MAX_VALUE - 8 || baseCount < 0
+                || baseCount > originalLength || contextOrder > MAX_CONTEXT_ORDER
+                || (mode != MODE_PACKED && mode != MODE_CONTEXT)) {
+            throw new IOException("Cabecera de ADN inválida");
+        }
+        byte[] exceptions = readSideChannel(in);
+        byte[] caseRuns = readSideChannel(in);
+        // Las bases y las secuencias de excepciones tienen que sumar la
+        // longitud original antes de reservar la salida
+        if (baseCount + exceptionBytes(exceptions, baseCount, originalLength) != originalLength) {
+            throw new IOException("Lista de excepciones de ADN corrupta");
+        }
+
+        // Bases sin máscara de minúsculas (códigos de 0 a 3); cada una ocupa
+        // al menos un bit de lo que queda de la entrada
+        int headerSize = compressed.length - in.available();
+        if (baseCount > 8L * in.available()) {
+            throw new IOException("Datos de ADN comprimidos incompletos");
+        }
+        byte[] bases = new byte[(int) baseCount];
+        if (mode == MODE_CONTEXT) {
+            int contextCount = 1 << (2 * contextOrder);
+            byte[] packedLengths = new byte[contextCount];
+            in.readFully(packedLengths);
+            byte[] contextLengths = unpackLengths(packedLengths);
+            for (int c = 0; c < contextCount; c++) {
+                HuffmanFormat.checkCodeLengths(Arrays.copyOfRange(contextLengths, c * 4, c * 4 + 4));
+            }
+            int payloadStart = headerSize + contextCount;
+            decodeWithContext(compressed, payloadStart, contextOrder, contextLengths, bases);
+        } else {
+            unpackBases(compressed, headerSize, bases);
+        }
+        return rebuild((int) originalLength, bases, exceptions, caseRuns);
+    }
+
+    // Recorre la lista de excepciones y devuelve cuántos bytes ocupan sus
+    // secuencias; comprueba que los saltos no pasen de 'baseCount' bases y
+    // que las secuencias no pasen de 'originalLength'
+    private static long exceptionBytes(byte[] exceptions, long baseCount, long originalLength) throws IOException {
+        ByteArrayInputStream in = new ByteArrayInputStream(exceptions);
+        long gaps = 0;
+        long runs = 0;
+        while (in.available() > 0) {
+            long gap = readVarLong(in);
+            long runLength = readVarLong(in);
+            if (gap < 0 || runLength < 0 || gap > baseCount - gaps || runLength > originalLength - runs
+                    || in.read() < 0) {
+                throw new IOException("Lista de excepciones de ADN corrupta");
+            }
+            gaps += gap;
+            runs += runLength;
+        }
+        return runs;
+    }
+
+    // Vuelve a intercalar bases, excepciones y minúsculas
+    private static byte[] rebuild(int originalLength, byte[] bases, byte[] exceptions, byte[] caseRuns)
+            throws IOException {
+        byte[] output = new byte[originalLength];
+        ByteArrayInputStream exceptionIn = new ByteArrayInputStream(exceptions);
+        ByteArrayInputStream caseIn = new ByteArrayInputStream(caseRuns);
+        long caseRemaining = caseIn.available() > 0 ? readVarLong(caseIn) : Long.MAX_VALUE;
+        boolean lowerCase = false;
+        int position = 0;
+        int baseIndex = 0;
+        while (position < originalLength) {
+            // Bases hasta la próxima excepción (o hasta el final)
+            int nextException = originalLength;
+            int runLength = 0;
+            int value = 0;
+            if (exceptionIn.available() > 0) {
+                nextException = position + (int) readVarLong(exceptionIn);
+                runLength = (int) readVarLong(exceptionIn);
+                value = exceptionIn.read();
+            }
+            if (nextException + runLength > originalLength || nextException - position > bases.length - baseIndex) {
+                throw new IOException("Lista de excepciones de ADN corrupta");
+            }
+            while (position < nextException) {
+                while (caseRemaining == 0) {
+                    lowerCase = !lowerCase;
+                    caseRemaining = caseIn.available() > 0 ? readVarLong(caseIn) : Long.MAX_VALUE;
+                }
+                byte base = BASES[bases[baseIndex++]];
+                output[position++] = lowerCase ? (byte) Character.toLowerCase(base) : base;
+                caseRemaining--;
+            }
+            Arrays.fill(output, position, position + runLength, (byte) value);
+            position += runLength;
+        }
+        return output;
+    }
+
+    // Cuenta las bases que siguen a cada contexto y calcula las longitudes de
+    // código de cada contexto (4 por contexto)
+    private static byte[] contextCodeLengths(byte[] bases, int baseCount, int contextOrder) {
+        int contextMask = (1 << (2 * contextOrder)) - 1;
+        long[] counts = new long[(contextMask + 1) * 4];
+        int context = 0;
+        for (int i = 0; i < baseCount; i++) {
+            counts[context * 4 + bases[i]]++;
+            context = ((context << 2) | bases[i]) & contextMask;
+        }
+        byte[] lengths = new byte[counts.length];
+        CodeLengthBuilder builder = new CodeLengthBuilder();
+        long[] histogram = new long[4];
+        byte[] contextLengths = new byte[4];
+        for (int c = 0; c <= contextMask; c++) {
+            System.arraycopy(counts, c * 4, histogram, 0, 4);
+            builder.codeLengths(histogram, contextLengths);
+            System.arraycopy(contextLengths, 0, lengths, c * 4, 4);
+        }
+        return lengths;
+    }
+
+    // Cantidad de bits que ocuparían las bases con los códigos por contexto
+    private static long contextCodedBits(byte[] bases, int baseCount, int contextOrder, byte[] lengths) {
+        int contextMask = (1 << (2 * contextOrder)) - 1;
+        long bits = 0;
+        int context = 0;
+        for (int i = 0; i < baseCount; i++) {
+            bits += lengths[context * 4 + bases[i]];
+            context = ((context << 2) | bases[i]) & contextMask;
+        }
+        return bits;
+    }
+
+    private static byte[] encodeWithContext(byte[] bases, int baseCount, int contextOrder, byte[] lengths) {
+        int contextMask = (1 << (2 * contextOrder)) - 1;
+        long[] codes = new long[lengths.length];
+        for (int c = 0; c <= contextMask; c++) {
+            long[] contextCodes = Huffman.canonicalCodes(Arrays.copyOfRange(lengths, c * 4, c * 4 + 4));
+            System.arraycopy(contextCodes, 0, codes, c * 4, 4);
+        }
+        BitWriter writer = new BitWriter(baseCount / 4 + 16);
+        int context = 0;
+        for (int i = 0; i < baseCount; i++) {
+            int index = context * 4 + bases[i];
+            writer.write(codes[index], lengths[index]);
+            context = ((context << 2) | bases[i]) & contextMask;
+        }
+        return writer.toByteArray();
+    }
+
+    // Decodifica con una tabla de 8 entradas por contexto: con 4 símbolos
+    // ningún código supera los 3 bits
+    private static void decodeWithContext(byte[] compressed, int offset, int contextOrder, byte[] lengths,
+            byte[] bases) throws IOException {
+        int contextMask = (1 << (2 * contextOrder)) - 1;
+        byte[] table = new byte[(contextMask + 1) * 8]; // (longitud << 2) | base
+        for (int c = 0; c <= contextMask; c++) {
+            byte[] contextLengths = Arrays.copyOfRange(lengths, c * 4, c * 4 + 4);
+            long[] codes = Huffman.canonicalCodes(contextLengths);
+            for (int base = 0; base < 4; base++) {
+                int length = contextLengths[base];
+                if (length > 0) {
+                    int first = (int) (codes[base] << (3 - length));
+                    Arrays.fill(table, c * 8 + first, c * 8 + first + (1 << (3 - length)),
+                            (byte) ((length << 2) | base));
+                }
+            }
+        }
+        BitReader reader = new BitReader(compressed, offset, compressed.length - offset);
+        int context = 0;
+        for (int i = 0; i < bases.length; i++) {
+            reader.refill();
+            int entry = table[context * 8 + reader.peek(3)];
+            if (entry == 0) {
+                throw new IOException("Datos de ADN comprimidos corruptos");
+            }
+            reader.skip(entry >>> 2);
+            int base = entry & 3;
+            bases[i] = (byte) base;
+            context = ((context << 2) | base) & contextMask;
+        }
+        if (reader.pastEnd()) {
+            throw new EOFException("Datos de ADN comprimidos incompletos");
+        }
+    }
+
+    // Empaqueta 4 bases por byte (la primera en los bits más significativos)
+    private static byte[] packBases(byte[] bases, int baseCount) {
+        byte[] packed = new byte[(baseCount + 3) / 4];
+        for (int i = 0; i < baseCount; i++) {
+            packed[i >> 2] |= (byte) (bases[i] << (6 - 2 * (i & 3)));
+        }
+        return packed;
+    }
+
+    private static void unpackBases(byte[] packed, int offset, byte[] bases) throws IOException {
+        if (offset + (bases.length + 3) / 4 > packed.length) {
+            throw new IOException("Datos de ADN comprimidos incompletos");
+        }
+        for (int i = 0; i < bases.length; i++) {
+            bases[i] = (byte) ((packed[offset + (i >> 2)] >>> (6 - 2 * (i & 3))) & 3);
+        }
+    }
+
+    // Las longitudes por contexto van de 0 a 3: caben 4 en un byte
+    private static byte[] packLengths(byte[] lengths) {
+        byte[] packed = new byte[lengths.length / 4];
+        for (int i = 0; i < lengths.length; i++) {
+            packed[i >> 2] |= (byte) (lengths[i] << (6 - 2 * (i & 3)));
+        }
+        return packed;
+    }
+
+    private static byte[] unpackLengths(byte[] packed) {
+        byte[] lengths = new byte[packed.length * 4];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = (byte) ((packed[i >> 2] >>> (6 - 2 * (i & 3))) & 3);
+        }
+        return lengths;
+    }
+
+    // Guarda una lista auxiliar precedida por su longitud y su forma: tal cual o,
+    // si ocupa menos, comprimida con Huffman
+    private static void writeSideChannel(DataOutputStream out, byte[] channel) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        if (channel.length > 0) {
+            Huffman.CompressionResult result = ParallelHuffman.compress(channel);
+            DataOutputStream encodedOut = new DataOutputStream(encoded);
+            HuffmanFormat.writeHeader(encodedOut,
+                    new HuffmanFormat.Header(HuffmanFormat.TYPE_DNA, result.originalLength, result.codeLengths));
+            encodedOut.write(result.packedData);
+            encodedOut.flush();
+        }
+        if (channel.length == 0 || encoded.size() >= channel.length) {
+            out.writeInt(channel.length);
+            out.writeByte(CHANNEL_RAW);
+            out.write(channel);
+        } else {
+            out.writeInt(encoded.size());
+            out.writeByte(CHANNEL_HUFFMAN);
+            encoded.writeTo(out);
+        }
+    }
+
+    private static byte[] readSideChannel(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        byte kind = in.readByte();
+        if (length < 0 || (kind != CHANNEL_RAW && kind != CHANNEL_HUFFMAN)) {
+            throw new IOException("Lista auxiliar de ADN inválida");
+        }
+        if (length > in.available()) {
+            throw new EOFException("Lista auxiliar de ADN incompleta");
+        }
+        byte[] channel = new byte[length];
+        in.readFully(channel);
+        if (kind == CHANNEL_RAW) {
+            return channel;
+        }
+        DataInputStream channelData = new DataInputStream(new ByteArrayInputStream(channel));
+        HuffmanFormat.Header header = HuffmanFormat.readHeader(channelData);
+        HuffmanFormat.checkPayload(header, channelData.available());
+        try (HuffmanInputStream channelIn = new HuffmanInputStream(channelData, header)) {
+            return channelIn.readAllBytes();
+        }
+    }
+
+    // Enteros de longitud variable: 7 bits por byte, el bit alto indica que sigue otro byte
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteArrayInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Entero variable incompleto");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Entero variable demasiado largo");
+    }
+
+    // Comprime en flujo, de a trozos de hasta 'chunkSize' bytes; no cierra los flujos
+    public static void compress(InputStream input, OutputStream output, int contextOrder, int chunkSize)
+            throws IOException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Tamaño de trozo inválido: " + chunkSize);
+        }
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(CHUNKED_MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(chunkSize);
+        byte[] chunk;
+        while ((chunk = input.readNBytes(chunkSize)).length > 0) {
+            byte[] compressed = compress(chunk, contextOrder);
+            out.writeInt(compressed.length);
+            out.write(compressed);
+        }
+        out.flush();
+    }
+
+    // Descomprime un flujo "HDNC" trozo por trozo; no cierra los flujos
+    public static void decompress(InputStream input, OutputStream output) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != CHUNKED_MAGIC) {
+            throw new IOException("El archivo no es un archivo de ADN comprimido en flujo");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        int chunkSize = in.readInt();
+        if (chunkSize <= 0) {
+            throw new IOException("Tamaño de trozo inválido: " + chunkSize);
+        }
+        int first;
+        // La longitud se lee byte a byte para distinguir el final del flujo
+        // de un trozo cortado
+        while ((first = in.read()) >= 0) {
+            int length = (first << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedShort());
+            if (length < 0) {
+                throw new IOException("Trozo de ADN inválido");
+            }
+            // readNBytes crece a medida que lee: una longitud falsa no reserva de más
+            byte[] compressed = in.readNBytes(length);
+            if (compressed.length != length) {
+                throw new EOFException("Trozo de ADN incompleto");
+            }
+            // Longitud original del trozo, después de magia, versión, modo y orden
+            if (length < 15 || ByteBuffer.wrap(compressed, 7, 8).getLong() > chunkSize) {
+                throw new IOException("Trozo de ADN inválido");
+            }
+            output.write(decompress(compressed));
+        }
+    }
+
+    // Comprime un archivo de ADN; los de más de CHUNK_SIZE bytes, en flujo
+    public static void compressFile(String inputFile, String outputFile, int contextOrder) throws IOException {
+        if (Files.size(Paths.get(inputFile)) > CHUNK_SIZE) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(inputFile));
+                    OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                compress(in, out, contextOrder, CHUNK_SIZE);
+            }
+            return;
+        }
+        byte[] data = Files.readAllBytes(Paths.get(inputFile));
+        Files.write(Paths.get(outputFile), compress(data, contextOrder));
+    }
+
+    // Descomprime un archivo de ADN; los archivos .huf generados en flujo y los
+    // incrementales se descomprimen con HuffmanFormat
+    public static void decompressFile(String inputFile, String outputFile) throws IOException {
+        int magic;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(inputFile))) {
+            magic = in.readInt();
+        }
+        if (magic == HuffmanFormat.MAGIC || magic == AppendableHuffman.MAGIC) {
+            HuffmanFormat.decompressFile(inputFile, outputFile, HuffmanFormat.TYPE_DNA);
+            return;
+        }
+        if (magic == CHUNKED_MAGIC) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(inputFile));
+                    OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                decompress(in, out);
+            }
+            return;
+        }
+        byte[] compressed = Files.readAllBytes(Paths.get(inputFile));
+        Files.write(Paths.get(outputFile), decompress(compressed));
+    }
+}
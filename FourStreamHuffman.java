@@ -0,0 +1,92 @@
+/**
+ * Codificación de un bloque en cuatro flujos de bits intercalables (como
+ * Huff0): los símbolos del bloque se reparten en cuatro tramos consecutivos
+ * y cada tramo se codifica en su propio flujo, alineado a byte.
+ * Al decodificar, un solo hilo avanza los cuatro flujos en la misma vuelta
+ * (HuffmanDecoder.decode4): en un flujo cada código depende de dónde terminó
+ * el anterior, pero los cuatro flujos son independientes entre sí, así que el
+ * procesador puede solapar sus búsquedas en la tabla.
+ *
+ * Formato de un bloque:
+ * tamaño en bytes de los flujos 1, 2 y 3 (3 x 4 bytes) | flujo 1 | flujo 2 | flujo 3 | flujo 4
+ * El tramo i tiene count / 4 símbolos, más uno si i < count % 4.
+ */
+public class FourStreamHuffman {
+    public static final int STREAMS = 4;
+    public static final int JUMP_TABLE_BYTES = 3 * 4;
+
+    // Símbolos del tramo 'stream' en un bloque de 'count' símbolos
+    static int segmentLength(int count, int stream) {
+        return count / STREAMS + (stream < count % STREAMS ? 1 : 0);
+    }
+
+    // Codifica data[start, start + count) con las tablas indexadas por símbolo
+    public static byte[] encode(byte[] data, int start, int count, long[] codes, byte[] lengths) {
+        byte[][] streams = new byte[STREAMS][];
+        int total = JUMP_TABLE_BYTES;
+        int from = start;
+        for (int stream = 0; stream < STREAMS; stream++) {
+            int length = segmentLength(count, stream);
+            BitWriter writer = new BitWriter(length / 2 + 16);
+            writer.writeSymbols(data, from, length, codes, lengths);
+            streams[stream] = writer.toByteArray();
+            total += streams[stream].length;
+            from += length;
+        }
+        byte[] block = new byte[total];
+        int position = JUMP_TABLE_BYTES;
+        for (int stream = 0; stream < STREAMS; stream++) {
+            if (stream < STREAMS - 1) {
+                putInt(block, 4 * stream, streams[stream].length);
+            }
+            System.arraycopy(streams[stream], 0, block, position, streams[stream].length);
+            position += streams[stream].length;
+        }
+        return block;
+    }
+
+    // Decodifica un bloque de 'size' bytes que empieza en packed[offset] y
+    // deja sus 'count' símbolos en output[outputOffset, outputOffset + count)
+    public static void decode(byte[] packed, int offset, int size, HuffmanDecoder decoder, byte[] output,
+            int outputOffset, int count) {
+        if (size < JUMP_TABLE_BYTES) {
+            throw new IllegalStateException("Bloque de cuatro flujos incompleto");
+        }
+        BitReader[] readers = new BitReader[STREAMS];
+        int[] starts = new int[STREAMS];
+        int position = offset + JUMP_TABLE_BYTES;
+        int end = offset + size;
+        int symbol = outputOffset;
+        for (int stream = 0; stream < STREAMS; stream++) {
+            int length = stream < STREAMS - 1 ? getInt(packed, offset + 4 * stream) : end - position;
+            if (length < 0 || length > end - position) {
+                throw new IllegalStateException("Tabla de saltos inválida");
+            }
+            readers[stream] = new BitReader(packed, position, length);
+            starts[stream] = symbol;
+            position += length;
+            symbol += segmentLength(count, stream);
+        }
+
+        // Los cuatro tramos tienen al menos count / 4 símbolos: se decodifican
+        // juntos, y los que tienen uno más lo terminan por separado
+        int common = count / STREAMS;
+        decoder.decode4(readers[0], readers[1], readers[2], readers[3], output, starts[0], starts[1], starts[2],
+                starts[3], common);
+        for (int stream = 0; stream < count % STREAMS; stream++) {
+            output[starts[stream] + common] = (byte) decoder.decodeSymbol(readers[stream]);
+        }
+    }
+
+    private static void putInt(byte[] buffer, int position, int value) {
+        buffer[position] = (byte) (value >>> 24);
+        buffer[position + 1] = (byte) (value >>> 16);
+        buffer[position + 2] = (byte) (value >>> 8);
+        buffer[position + 3] = (byte) value;
+    }
+
+    private static int getInt(byte[] buffer, int position) {
+        return (buffer[position] & 0xFF) << 24 | (buffer[position + 1] & 0xFF) << 16
+                | (buffer[position + 2] & 0xFF) << 8 | (buffer[position + 3] & 0xFF);
+    }
+}
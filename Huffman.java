@@ -1,21 +1,37 @@
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class Huffman {
+    // Valor de maxCodeLength que indica códigos sin longitud máxima
+    public static final int NO_LENGTH_LIMIT = 0;
+
+    // Constructor de longitudes reutilizable por hilo, para no generar basura
+    // al comprimir muchos registros pequeños
+    private static final ThreadLocal<CodeLengthBuilder> CODE_LENGTH_BUILDER = ThreadLocal
+            .withInitial(CodeLengthBuilder::new);
+
+    // A partir de este tamaño las entradas se comprimen en paralelo por bloques
+    static final int PARALLEL_THRESHOLD = 4 * ParallelHuffman.DEFAULT_BLOCK_SIZE;
+
+    // Tamaño de los tramos en que se recorren los buffers que no tienen arreglo
+    private static final int BUFFER_CHUNK_SIZE = 64 * 1024;
 
     // Clase interna que representa un nodo en el árbol de Huffman.
     // Implementa Comparable para la cola de prioridad y Serializable para la
-    // serialización de objetos.
+    // serialización de objetos. La compresión calcula las longitudes de los
+    // códigos sin nodos; el árbol se conserva para depuración (printTree).
     static class Node implements Comparable<Node>, Serializable {
         char character; // Carácter almacenado en el nodo (para nodos hoja)
-        int frequency; // Frecuencia del carácter
+        long frequency; // Frecuencia del carácter
         Node left = null, right = null; // Nodos hijos izquierdo y derecho
 
         // Constructor para nodos hoja
-        Node(char character, int frequency) {
+        Node(char character, long frequency) {
             this.character = character;
             this.frequency = frequency;
         }
@@ -30,7 +46,7 @@ public class Huffman {
         // Comparación de nodos por frecuencia
         @Override
         public int compareTo(Node that) {
-            return this.frequency - that.frequency;
+            return Long.compare(this.frequency, that.frequency);
         }
     }
 
@@ -50,10 +66,31 @@ public class Huffman {
         return priorityQueue.poll();
     }
 
+    // Construye el árbol a partir de un histograma indexado por símbolo
+    public static Node buildTree(long[] histogram) {
+        PriorityQueue<Node> priorityQueue = new PriorityQueue<>();
+        for (int symbol = 0; symbol < histogram.length; symbol++) {
+            if (histogram[symbol] > 0) {
+                priorityQueue.add(new Node((char) symbol, histogram[symbol]));
+            }
+        }
+        while (priorityQueue.size() > 1) {
+            Node left = priorityQueue.poll();
+            Node right = priorityQueue.poll();
+            priorityQueue.add(new Node(left, right));
+        }
+        return priorityQueue.poll();
+    }
+
     // Genera los códigos de Huffman a partir del árbol de Huffman
     protected static Map<Character, String> generateCodes(Node root) {
         // Mapa para almacenar los códigos de Huffman
         Map<Character, String> huffmanCode = new HashMap<>();
+        if (root != null && root.left == null && root.right == null) {
+            // Un solo símbolo distinto: se le asigna un código de un bit
+            huffmanCode.put(root.character, "0");
+            return huffmanCode;
+        }
         // Recorre el árbol de Huffman para generar los códigos
         encode(root, "", huffmanCode);
         return huffmanCode;
@@ -82,146 +119,485 @@ public class Huffman {
         return builder.toString();
     }
 
-    // Decodifica el texto a partir del árbol de Huffman
-    private static Map<Character, Integer> calculateFrequencies(String data) {
-        // Calcula las frecuencias de los caracteres
-        Map<Character, Integer> frequency = new HashMap<>();
-        // Recorre el texto y cuenta las frecuencias de los caracteres
-        for (char character : data.toCharArray()) {
-            frequency.put(character, frequency.getOrDefault(character, 0) + 1);
+    // Convierte el mapa de códigos en tablas indexadas por símbolo (código y
+    // longitud), para codificar sin recorrer cadenas de '0' y '1'
+    static long[] buildCodeTable(Map<Character, String> huffmanCodes, byte[] lengths) {
+        long[] codes = new long[lengths.length];
+        for (Map.Entry<Character, String> entry : huffmanCodes.entrySet()) {
+            String code = entry.getValue();
+            codes[entry.getKey()] = Long.parseLong(code, 2);
+            lengths[entry.getKey()] = (byte) code.length();
+        }
+        return codes;
+    }
+
+    // Codifica el texto directamente en bits empaquetados, en una sola pasada
+    public static BitWriter encodePacked(String data, Map<Character, String> huffmanCodes) {
+        int alphabetSize = 0;
+        for (char character : huffmanCodes.keySet()) {
+            alphabetSize = Math.max(alphabetSize, character + 1);
+        }
+        byte[] lengths = new byte[alphabetSize];
+        long[] codes = buildCodeTable(huffmanCodes, lengths);
+        return encodePacked(data, codes, lengths);
+    }
+
+    // Codifica el texto en bits empaquetados con tablas ya construidas
+    public static BitWriter encodePacked(String data, long[] codes, byte[] lengths) {
+        // Reserva aproximadamente el tamaño de salida para evitar copias
+        BitWriter writer = new BitWriter(data.length() / 2 + 16);
+        writer.writeSymbols(data, codes, lengths);
+        return writer;
+    }
+
+    // Calcula la longitud del código de cada símbolo (su profundidad en el árbol)
+    public static byte[] codeLengths(Node root) {
+        byte[] lengths = new byte[maxCharacter(root) + 1];
+        if (root != null && root.left == null && root.right == null) {
+            lengths[root.character] = 1; // Un solo símbolo: código de un bit
+        } else {
+            collectLengths(root, 0, lengths);
+        }
+        return lengths;
+    }
+
+    // Mayor carácter presente en las hojas del árbol (-1 si está vacío)
+    private static int maxCharacter(Node node) {
+        if (node == null) {
+            return -1;
+        }
+        if (node.left == null && node.right == null) {
+            return node.character;
+        }
+        return Math.max(maxCharacter(node.left), maxCharacter(node.right));
+    }
+
+    // Calcula las longitudes de código a partir del histograma, sin construir
+    // nodos (ver CodeLengthBuilder). Si el código de Huffman produce códigos
+    // más largos que maxCodeLength, se recalculan con package-merge respetando
+    // ese máximo.
+    public static byte[] codeLengths(long[] histogram, int maxCodeLength) {
+        byte[] lengths = CODE_LENGTH_BUILDER.get().codeLengths(histogram);
+        if (maxCodeLength == NO_LENGTH_LIMIT) {
+            return lengths;
+        }
+        for (byte length : lengths) {
+            if (length > maxCodeLength) {
+                return LengthLimitedHuffman.codeLengths(histogram, maxCodeLength);
+            }
+        }
+        return lengths;
+    }
+
+    // Recorre el árbol anotando la profundidad de cada hoja
+    private static void collectLengths(Node node, int depth, byte[] lengths) {
+        if (node != null) {
+            if (node.left == null && node.right == null) {
+                lengths[node.character] = (byte) depth;
+            }
+            collectLengths(node.left, depth + 1, lengths);
+            collectLengths(node.right, depth + 1, lengths);
         }
-        return frequency;
+    }
+
+    // Asigna códigos canónicos: los símbolos se ordenan por longitud y luego por
+    // valor, y cada código es el anterior más uno. Así basta con guardar las
+    // longitudes para reconstruir exactamente los mismos códigos.
+    public static long[] canonicalCodes(byte[] lengths) {
+        int maxLength = 0;
+        for (byte length : lengths) {
+            maxLength = Math.max(maxLength, length);
+        }
+        // Cuenta cuántos códigos hay de cada longitud
+        int[] lengthCount = new int[maxLength + 1];
+        for (byte length : lengths) {
+            lengthCount[length]++;
+        }
+        lengthCount[0] = 0;
+        // Primer código de cada longitud
+        long[] nextCode = new long[maxLength + 1];
+        long code = 0;
+        for (int length = 1; length <= maxLength; length++) {
+            code = (code + lengthCount[length - 1]) << 1;
+            nextCode[length] = code;
+        }
+        long[] codes = new long[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                codes[symbol] = nextCode[lengths[symbol]]++;
+            }
+        }
+        return codes;
+    }
+
+    // Convierte las tablas de códigos en un mapa legible de cadenas de '0' y '1'
+    public static Map<Character, String> toCodeMap(long[] codes, byte[] lengths) {
+        Map<Character, String> huffmanCodes = new HashMap<>();
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                String binary = Long.toBinaryString(codes[symbol]);
+                huffmanCodes.put((char) symbol, "0".repeat(lengths[symbol] - binary.length()) + binary);
+            }
+        }
+        return huffmanCodes;
+    }
+
+    // Calcula el histograma de los caracteres en un arreglo indexado por símbolo.
+    // Mientras los caracteres quepan en un byte se cuentan de a cuatro en
+    // cuatro tablas intercaladas, para que incrementos consecutivos del mismo
+    // símbolo no esperen uno por el otro; las tablas se suman al final.
+    static long[] calculateFrequencies(String data) {
+        int[] counts = new int[4 * 256];
+        int length = data.length();
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            char c0 = data.charAt(i), c1 = data.charAt(i + 1), c2 = data.charAt(i + 2), c3 = data.charAt(i + 3);
+            if ((c0 | c1 | c2 | c3) > 0xFF) {
+                break; // Alfabeto mayor a un byte: se continúa con el caso general
+            }
+            counts[c0]++;
+            counts[256 + c1]++;
+            counts[512 + c2]++;
+            counts[768 + c3]++;
+        }
+        long[] histogram = mergeCounts(counts, 256);
+        for (; i < length; i++) {
+            char character = data.charAt(i);
+            if (character >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, Character.MAX_VALUE + 1);
+            }
+            histogram[character]++;
+        }
+        return trimHistogram(histogram);
+    }
+
+    // Calcula el histograma de los bytes [from, to) con cuatro tablas intercaladas
+    static long[] countBytes(byte[] data, int from, int to) {
+        int[] counts = new int[4 * 256];
+        int i = from;
+        for (; i + 3 < to; i += 4) {
+            counts[data[i] & 0xFF]++;
+            counts[256 + (data[i + 1] & 0xFF)]++;
+            counts[512 + (data[i + 2] & 0xFF)]++;
+            counts[768 + (data[i + 3] & 0xFF)]++;
+        }
+        for (; i < to; i++) {
+            counts[data[i] & 0xFF]++;
+        }
+        return mergeCounts(counts, 256);
+    }
+
+    // Suma las cuatro tablas intercaladas
+    private static long[] mergeCounts(int[] counts, int alphabetSize) {
+        long[] histogram = new long[alphabetSize];
+        for (int symbol = 0; symbol < alphabetSize; symbol++) {
+            histogram[symbol] = (long) counts[symbol] + counts[alphabetSize + symbol]
+                    + counts[2 * alphabetSize + symbol] + counts[3 * alphabetSize + symbol];
+        }
+        return histogram;
+    }
+
+    // Recorta el histograma hasta el mayor símbolo presente
+    private static long[] trimHistogram(long[] histogram) {
+        int size = histogram.length;
+        while (size > 0 && histogram[size - 1] == 0) {
+            size--;
+        }
+        return size == histogram.length ? histogram : Arrays.copyOf(histogram, size);
+    }
+
+    // Indica si cada carácter cabe en un byte (ISO-8859-1)
+    private static boolean fitsInBytes(String data) {
+        for (int i = 0; i < data.length(); i++) {
+            if (data.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+        return true;
     }
 
     // Decodifica el texto a partir del árbol de Huffman
     public static CompressionResult compressText(String text) {
-        // Calcula las frecuencias de los caracteres
-        Map<Character, Integer> frequencies = calculateFrequencies(text);
-        // Construye el árbol de Huffman
-        Node root = buildTree(frequencies);
-        // Genera los códigos de Huffman
-        Map<Character, String> huffmanCodes = generateCodes(root);
-        // Codifica el texto a partir de los códigos de Huffman
-        String encodedText = encode(text, huffmanCodes);
-        // Subdivide y simboliza el texto binario
-        String symbolizedText = subdivideAndSymbolize(encodedText);
+        return compressText(text, NO_LENGTH_LIMIT);
+    }
 
-        // Retorna el resultado de la compresión con el texto simbolizado
-        return new CompressionResult(symbolizedText, huffmanCodes, calculateCompressionPercentage(text, symbolizedText),
-                frequencies);
+    // Igual que el anterior, con los códigos limitados a maxCodeLength bits
+    // (NO_LENGTH_LIMIT para no limitarlos)
+    public static CompressionResult compressText(String text, int maxCodeLength) {
+        // Un byte por carácter: se comprime como bytes
+        if (fitsInBytes(text)) {
+            return compress(text.getBytes(StandardCharsets.ISO_8859_1), maxCodeLength);
+        }
+
+        return compressSymbols(text, maxCodeLength);
     }
 
-    public static String subdivideAndSymbolize(String binaryText) {
-        StringBuilder symbolizedText = new StringBuilder(); // Texto simbolizado
-        for (int i = 0; i < binaryText.length(); i += 8) { // Recorre el texto binario de 8 en 8 bits
-            String byteSegment = binaryText.substring(i, Math.min(i + 8, binaryText.length())); // Subcadena de 8 bits
-            byteSegment = String.format("%-8s", byteSegment).replace(' ', '0'); // Añade ceros a la izquierda si es
-                                                                                // necesario
-            int byteValue = Integer.parseInt(byteSegment, 2); // Convierte el byte a entero
-            char asciiChar = (char) byteValue; // Convierte el entero a carácter
-            symbolizedText.append(asciiChar); // Concatena el carácter al texto simbolizado
-        }
-        return symbolizedText.toString(); // Retorna el texto simbolizado
-    }
-
-    public static void generateAndSaveAsciiKey(String filename) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (int i = 0; i < 256; i++) {
-                char asciiChar = (char) i; // Convierte el entero a carácter
-                String charRepresentation = getCharRepresentation(asciiChar); // Obtiene la representación del carácter
-                String binaryString = String.format("%8s", Integer.toBinaryString(i)).replace(' ', '0'); // Convierte el
-                                                                                                         // entero a
-                                                                                                         // binario
-                writer.write(charRepresentation + " = " + binaryString + "\n"); // Escribe la representación del
-                                                                                // carácter y su valor binario
-            }
+    // Comprime bytes arbitrarios (sin conversión a caracteres); las entradas
+    // grandes se comprimen en paralelo
+    public static CompressionResult compress(byte[] data) {
+        return compress(data, NO_LENGTH_LIMIT);
+    }
+
+    // Igual que el anterior, con los códigos limitados a maxCodeLength bits
+    public static CompressionResult compress(byte[] data, int maxCodeLength) {
+        if (data.length >= PARALLEL_THRESHOLD) {
+            return ParallelHuffman.compress(data, maxCodeLength);
         }
+        CompressionMetrics metrics = new CompressionMetrics();
+        BitWriter writer = new BitWriter(data.length / 2 + 16);
+        long[] frequencies = metrics.time(CompressionMetrics.Stage.HISTOGRAM,
+                () -> trimHistogram(countBytes(data, 0, data.length)));
+        byte[] codeLengths = metrics.time(CompressionMetrics.Stage.TREE, () -> codeLengths(frequencies, maxCodeLength));
+        long[] codes = metrics.time(CompressionMetrics.Stage.TREE, () -> canonicalCodes(codeLengths));
+        metrics.time(CompressionMetrics.Stage.ENCODE,
+                () -> writer.writeSymbols(data, 0, data.length, codes, codeLengths));
+        return packResult(metrics, writer, data.length, codeLengths, codes, frequencies);
+    }
+
+    // Comprime los bytes restantes de 'in' y escribe en 'out' un archivo .huf
+    // completo (cabecera y bits). Avanza la posición de ambos buffers y
+    // devuelve los bytes escritos. Los buffers directos se recorren por
+    // tramos, sin copiarlos enteros. Si 'out' no tiene lugar se lanza
+    // BufferOverflowException sin modificar ninguno de los dos.
+    public static int compress(ByteBuffer in, ByteBuffer out) {
+        return compress(in, out, NO_LENGTH_LIMIT);
     }
 
-    private static String getCharRepresentation(char asciiChar) {
-        switch (asciiChar) {
-            case '\n':
-                return "'\\n'";
-            case '\r':
-                return "'\\r'";
-            case '\t':
-                return "'\\t'";
-            // Agrega más casos según sea necesario
-            default:
-                return "'" + asciiChar + "'";
+    public static int compress(ByteBuffer in, ByteBuffer out, int maxCodeLength) {
+        ByteBuffer source = in.slice();
+        int length = source.remaining();
+        long[] histogram = new long[256];
+        byte[] chunk = source.hasArray() ? null : new byte[Math.min(length, BUFFER_CHUNK_SIZE)];
+        for (int done = 0; done < length; done += BUFFER_CHUNK_SIZE) {
+            int size = Math.min(BUFFER_CHUNK_SIZE, length - done);
+            long[] counts = source.hasArray() ? countBytes(source.array(), source.arrayOffset() + done,
+                    source.arrayOffset() + done + size) : countBytes(chunkAt(source, done, chunk, size), 0, size);
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                histogram[symbol] += counts[symbol];
+            }
         }
+        byte[] codeLengths = codeLengths(trimHistogram(histogram), maxCodeLength);
+        byte[] lengths = Arrays.copyOf(codeLengths, 256);
+        long[] codes = canonicalCodes(lengths);
+
+        // El tamaño exacto se conoce antes de codificar: se comprueba que
+        // entre en 'out' antes de escribir nada
+        long bitLength = 0;
+        for (int symbol = 0; symbol < histogram.length; symbol++) {
+            bitLength += histogram[symbol] * lengths[symbol];
+        }
+        byte[] header = HuffmanFormat.headerBytes(
+                new HuffmanFormat.Header(HuffmanFormat.TYPE_BINARY, length, codeLengths));
+        long total = header.length + ((bitLength + 7) >>> 3);
+        if (total > out.remaining()) {
+            throw new BufferOverflowException();
+        }
+        out.put(header);
+        BitWriter writer = new BitWriter(BUFFER_CHUNK_SIZE + 16);
+        for (int done = 0; done < length; done += BUFFER_CHUNK_SIZE) {
+            int size = Math.min(BUFFER_CHUNK_SIZE, length - done);
+            if (source.hasArray()) {
+                writer.writeSymbols(source.array(), source.arrayOffset() + done, size, codes, lengths);
+            } else {
+                writer.writeSymbols(chunkAt(source, done, chunk, size), 0, size, codes, lengths);
+            }
+            writer.drainTo(out);
+        }
+        writer.flush();
+        writer.drainTo(out);
+        in.position(in.limit());
+        return (int) total;
     }
 
-    // Comprime datos de ADN (representados como una cadena de bases nitrogenadas)
-    public static CompressionResult compressDNA(String dna) {
-        // Filtra las bases nitrogenadas inválidas
-        String filteredDNA = dna.replaceAll("[^ACGT]", "");
+    // Copia 'size' bytes de 'source' desde 'offset' al arreglo 'chunk'
+    private static byte[] chunkAt(ByteBuffer source, int offset, byte[] chunk, int size) {
+        source.get(offset, chunk, 0, size);
+        return chunk;
+    }
 
-        // Calcula las frecuencias de las bases nitrogenadas
-        Map<Character, Integer> frequencies = calculateFrequencies(filteredDNA);
+    // Descomprime un archivo .huf completo
+    public static byte[] decompress(byte[] compressed) throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(compressed);
+        HuffmanFormat.Header header = HuffmanFormat.readHeader(source.duplicate());
+        if (header.originalLength > Integer.MAX_VALUE - 8) {
+            throw new IOException("El archivo es demasiado grande para descomprimirse en memoria");
+        }
+        HuffmanFormat.checkPayload(header, compressed.length);
+        byte[] output = new byte[(int) header.originalLength];
+        decompress(source, ByteBuffer.wrap(output));
+        return output;
+    }
 
-        // Construye el árbol de Huffman
-        Node root = buildTree(frequencies);
+    // Descomprime el archivo .huf que ocupa el resto de 'in' y escribe los
+    // bytes originales en 'out'. Avanza la posición de ambos buffers y
+    // devuelve los bytes escritos.
+    public static int decompress(ByteBuffer in, ByteBuffer out) throws IOException {
+        ByteBuffer source = in.slice();
+        HuffmanFormat.Header header = HuffmanFormat.readHeader(source);
+        if (header.codeLengths.length > 256) {
+            throw new IOException("El archivo contiene símbolos de más de un byte");
+        }
+        HuffmanFormat.checkPayload(header, source.remaining());
+        if (header.originalLength > out.remaining()) {
+            throw new BufferOverflowException();
+        }
+        int count = (int) header.originalLength;
+        HuffmanDecoder decoder = HuffmanFormat.decoder(header.codeLengths);
+        try {
+            if (header.interleaved || (source.hasArray() && header.hasBlockIndex() && count >= PARALLEL_THRESHOLD)) {
+                // Bloques indexados: se decodifican en paralelo
+                byte[] packedData = new byte[source.remaining()];
+                source.get(packedData);
+                out.put(ParallelHuffman.decompress(header, packedData, decoder));
+            } else {
+                BitReader reader = source.hasArray()
+                        ? new BitReader(source.array(), source.arrayOffset() + source.position(),
+                                source.remaining())
+                        : new BitReader(new HuffmanFormat.ByteBufferInputStream(source), BUFFER_CHUNK_SIZE);
+                if (out.hasArray()) {
+                    decoder.decode(reader, out.array(), out.arrayOffset() + out.position(), count);
+                    out.position(out.position() + count);
+                } else {
+                    byte[] chunk = new byte[Math.min(count, BUFFER_CHUNK_SIZE)];
+                    for (int done = 0; done < count; done += chunk.length) {
+                        int length = Math.min(chunk.length, count - done);
+                        decoder.decode(reader, chunk, 0, length);
+                        out.put(chunk, 0, length);
+                    }
+                }
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+        in.position(in.limit());
+        return count;
+    }
 
-        // Genera los códigos de Huffman
-        Map<Character, String> huffmanCodes = generateCodes(root);
+    public static String subdivideAndSymbolize(String binaryText) {
+        // Agrupa el texto binario de 8 en 8 bits sin crear subcadenas
+        char[] symbolizedText = new char[(binaryText.length() + 7) / 8]; // Texto simbolizado
+        for (int i = 0; i < binaryText.length(); i++) {
+            if (binaryText.charAt(i) == '1') {
+                symbolizedText[i >> 3] |= (char) (0x80 >>> (i & 7)); // Los bits faltantes quedan en cero
+            }
+        }
+        return new String(symbolizedText); // Retorna el texto simbolizado
+    }
 
-        // Codifica el texto a partir de los códigos de Huffman
-        String encodedDNA = encode(filteredDNA, huffmanCodes);
+    // Comprime datos de ADN (representados como una cadena de bases nitrogenadas).
+    // Con pérdida: descarta todo lo que no sea A, C, G o T (N, minúsculas,
+    // saltos de línea, cabeceras FASTA). Se conserva para comparar en los
+    // benchmarks; para guardar ADN hay que usar DnaCompressor, que es sin pérdida.
+    @Deprecated
+    public static CompressionResult compressDNA(String dna) {
+        return compressDNA(dna, NO_LENGTH_LIMIT);
+    }
 
-        // Subdivide y simboliza el texto binario
-        String symbolizedDNA = subdivideAndSymbolize(encodedDNA);
+    // Igual que el anterior, con los códigos limitados a maxCodeLength bits
+    // (NO_LENGTH_LIMIT para no limitarlos); también con pérdida
+    @Deprecated
+    public static CompressionResult compressDNA(String dna, int maxCodeLength) {
+        // Filtra las bases nitrogenadas inválidas
+        String filteredDNA = dna.replaceAll("[^ACGT]", "");
 
-        // Retorna el resultado de la compresión con el texto simbolizado
-        return new CompressionResult(symbolizedDNA, huffmanCodes,
-                calculateCompressionPercentage(filteredDNA, symbolizedDNA), frequencies);
+        // Solo quedan las cuatro bases: se comprimen como bytes
+        CompressionResult result = compress(filteredDNA.getBytes(StandardCharsets.ISO_8859_1), maxCodeLength);
+        result.metrics.setInputBytes(dna.length());
+        return result;
     }
 
     // Comprime imágenes BMP en escala de grises
     public static CompressionResult compressGrayscaleImage(String imageData) {
-        // Calcula las frecuencias de los niveles de gris
-        Map<Character, Integer> frequencies = calculateFrequencies(imageData);
-
-        // Construye el árbol de Huffman
-        Node root = buildTree(frequencies);
+        return compressGrayscaleImage(imageData, NO_LENGTH_LIMIT);
+    }
 
-        // Genera los códigos de Huffman
-        Map<Character, String> huffmanCodes = generateCodes(root);
+    // Igual que el anterior, con los códigos limitados a maxCodeLength bits
+    // (NO_LENGTH_LIMIT para no limitarlos)
+    public static CompressionResult compressGrayscaleImage(String imageData, int maxCodeLength) {
+        // Un byte por nivel de gris: se comprime como bytes
+        if (fitsInBytes(imageData)) {
+            return compress(imageData.getBytes(StandardCharsets.ISO_8859_1), maxCodeLength);
+        }
 
-        // Codifica el texto a partir de los códigos de Huffman
-        String encodedImage = encode(imageData, huffmanCodes);
+        return compressSymbols(imageData, maxCodeLength);
+    }
 
-        // Subdivide y simboliza el texto binario
-        String symbolizedImage = subdivideAndSymbolize(encodedImage);
+    // Comprime una secuencia de caracteres que no caben en un byte, midiendo cada etapa
+    private static CompressionResult compressSymbols(String data, int maxCodeLength) {
+        CompressionMetrics metrics = new CompressionMetrics();
+        // Calcula las frecuencias de los símbolos
+        long[] frequencies = metrics.time(CompressionMetrics.Stage.HISTOGRAM, () -> calculateFrequencies(data));
+        // Calcula las longitudes de los códigos (acotadas si se pidió un máximo)
+        byte[] codeLengths = metrics.time(CompressionMetrics.Stage.TREE, () -> codeLengths(frequencies, maxCodeLength));
+        long[] codes = metrics.time(CompressionMetrics.Stage.TREE, () -> canonicalCodes(codeLengths));
+        // Codifica el texto directamente en bits empaquetados
+        BitWriter writer = metrics.time(CompressionMetrics.Stage.ENCODE, () -> encodePacked(data, codes, codeLengths));
+        return packResult(metrics, writer, data.length(), codeLengths, codes, frequencies);
+    }
 
-        // Retorna el resultado de la compresión con el texto simbolizado
-        return new CompressionResult(symbolizedImage, huffmanCodes,
-                calculateCompressionPercentage(imageData, symbolizedImage), frequencies);
+    // Arma el resultado a partir de los bits empaquetados
+    private static CompressionResult packResult(CompressionMetrics metrics, BitWriter writer, int originalLength,
+            byte[] codeLengths, long[] codes, long[] frequencies) {
+        long bitLength = writer.bitLength();
+        byte[] packedData = metrics.time(CompressionMetrics.Stage.PACK, writer::toByteArray);
+        CompressionResult result = new CompressionResult(packedData, bitLength, originalLength, codeLengths,
+                toCodeMap(codes, codeLengths), calculateCompressionPercentage(originalLength, packedData.length),
+                frequencies);
+        metrics.complete(frequencies, bitLength, packedData.length);
+        result.metrics = metrics;
+        return result;
     }
 
-    // Calcula el porcentaje de compresión
-    private static double calculateCompressionPercentage(String original, String compressed) {
-        return ((original.length() - compressed.length()) / original.length()) * 100;
+    // Calcula el porcentaje de reducción del tamaño (0 para una entrada vacía)
+    static double calculateCompressionPercentage(long originalLength, long compressedLength) {
+        if (originalLength == 0) {
+            return 0;
+        }
+        return (originalLength - compressedLength) * 100.0 / originalLength;
     }
 
     // Clase interna para almacenar el resultado de la compresión
     static class CompressionResult implements Serializable {
-        String compressedData;
+        // Bits de Huffman empaquetados (el último byte se completa con ceros)
+        byte[] packedData;
+        // Cantidad de bits válidos en packedData
+        long bitLength;
+        // Cantidad de símbolos codificados
+        int originalLength;
+        // Longitud del código canónico de cada símbolo (0 si no aparece)
+        byte[] codeLengths;
+        // Índice de bloques opcional: símbolos por bloque y posición de bit de cada bloque
+        int blockSymbols;
+        long[] blockBitOffsets;
+        // Bloques de cuatro flujos intercalados (FourStreamHuffman)
+        boolean interleaved;
         // Mapa para almacenar los códigos de Huffman
         Map<Character, String> huffmanCodes;
         // Porcentaje de compresión
         double compressionPercentage;
-        // Mapa para almacenar las frecuencias de los caracteres
-        Map<Character, Integer> frequencies;
+        // Frecuencia de cada carácter, indexada por símbolo
+        long[] frequencies;
+        // Tiempos de cada etapa, tamaños y entropía (no se serializan)
+        transient CompressionMetrics metrics;
 
         // Constructor
-        CompressionResult(String compressedData, Map<Character, String> huffmanCodes, double compressionPercentage,
-                Map<Character, Integer> frequencies) {
-            this.compressedData = compressedData;
+        CompressionResult(byte[] packedData, long bitLength, int originalLength, byte[] codeLengths,
+                Map<Character, String> huffmanCodes, double compressionPercentage,
+                long[] frequencies) {
+            this.packedData = packedData;
+            this.bitLength = bitLength;
+            this.originalLength = originalLength;
+            this.codeLengths = codeLengths;
             this.huffmanCodes = huffmanCodes;
             this.compressionPercentage = compressionPercentage;
             this.frequencies = frequencies;
         }
+
+        // Bytes empaquetados representados como caracteres (un carácter por
+        // byte), para la API de String; se arman solo cuando se piden
+        String compressedData() {
+            return new String(packedData, StandardCharsets.ISO_8859_1);
+        }
     }
 
     public static String decode(Node root, String binaryText) {
@@ -237,6 +613,20 @@ public class Huffman {
         return decodedText.toString();
     }
 
+    // Decodifica un resultado de compresión con las tablas de búsqueda
+    public static String decode(CompressionResult result) {
+        if (result.interleaved) {
+            try {
+                return new String(ParallelHuffman.decompress(HuffmanFormat.header(HuffmanFormat.TYPE_TEXT, result),
+                        result.packedData), StandardCharsets.ISO_8859_1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // El resultado viene del compresor, no de un archivo
+            }
+        }
+        return HuffmanDecoder.fromLengths(result.codeLengths).decodeToString(result.packedData,
+                result.originalLength);
+    }
+
     // Método para imprimir el árbol de Huffman
     public static void printTree(Node root) {
         printTreeHelper(root, "");
@@ -0,0 +1,341 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Archivo con muchas entradas comprimidas y un directorio central (como un
+ * zip), pensado para directorios de muchos archivos chicos y parecidos.
+ * Las entradas comparten una tabla de Huffman calculada con el histograma de
+ * todas juntas, de modo que cada una ocupa solo sus bits; una entrada que
+ * se aleja mucho del resto usa su propia tabla si eso la achica, y la que no
+ * se achica se guarda tal cual.
+ * Al abrirlo se lee solo el directorio: el archivo se mapea en memoria y cada
+ * entrada se extrae sin recorrer las demás, desde varios hilos a la vez.
+ *
+ * Formato:
+ * magia "HARC" (4 bytes) | versión (1 byte) | datos de las entradas, uno tras otro
+ * tablas: cantidad (4 bytes) | por tabla, longitudes de los 256 códigos, 4 bits cada una (128 bytes)
+ * directorio: cantidad de entradas (4 bytes) | por entrada: nombre (UTF) | posición (8 bytes)
+ * tamaño original (4 bytes) | tamaño comprimido (4 bytes) | tabla (4 bytes, -1: guardada tal cual)
+ * cola: posición de las tablas (8 bytes) | magia "HARC" (4 bytes)
+ */
+public class HuffmanArchive implements Closeable {
+    public static final int MAGIC = 0x48415243; // "HARC"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".har";
+
+    // Las longitudes se guardan en 4 bits
+    private static final int MAX_CODE_LENGTH = 15;
+    private static final int TABLE_BYTES = 128;
+    private static final int STORED = -1;
+    private static final int TRAILER_BYTES = 8 + 4;
+
+    // Entrada del directorio central
+    public static final class Entry {
+        public final String name; // Ruta relativa, separada con '/'
+        public final int size;
+        public final int compressedSize;
+        final long offset;
+        final int table;
+
+        Entry(String name, long offset, int size, int compressedSize, int table) {
+            this.name = name;
+            this.offset = offset;
+            this.size = size;
+            this.compressedSize = compressedSize;
+            this.table = table;
+        }
+    }
+
+    private final List<Entry> entries;
+    private final Map<String, Entry> byName;
+    private final HuffmanDecoder[] decoders;
+    private final MappedFile file;
+
+    private HuffmanArchive(List<Entry> entries, HuffmanDecoder[] decoders, MappedFile file) {
+        this.entries = Collections.unmodifiableList(entries);
+        this.byName = new HashMap<>();
+        for (Entry entry : entries) {
+            byName.put(entry.name, entry);
+        }
+        this.decoders = decoders;
+        this.file = file;
+    }
+
+    // Crea un archivo con los archivos regulares de un directorio (y sus subdirectorios)
+    public static void create(Path directory, Path archive) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            // Si el archivo de salida queda dentro del directorio, no se incluye
+            Path self = archive.toAbsolutePath().normalize();
+            files = walk.filter(Files::isRegularFile)
+                    .filter(file -> !file.toAbsolutePath().normalize().equals(self))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        create(directory, files, archive);
+    }
+
+    // Crea un archivo con los archivos dados; los nombres de las entradas son
+    // sus rutas relativas a 'base'. Cada archivo se lee dos veces (histograma
+    // y codificación), así que la memoria usada depende del archivo más grande.
+    public static void create(Path base, List<Path> files, Path archive) throws IOException {
+        List<String> names = new ArrayList<>(files.size());
+        List<long[]> histograms = new ArrayList<>(files.size());
+        long[] combined = new long[256];
+        for (Path file : files) {
+            names.add(entryName(base.relativize(file)));
+            long[] histogram;
+            try (InputStream in = Files.newInputStream(file)) {
+                histogram = HuffmanFormat.histogram(in);
+            }
+            if (Arrays.stream(histogram).sum() > Integer.MAX_VALUE - 8) {
+                throw new IOException("Archivo demasiado grande para una entrada: " + file);
+            }
+            histograms.add(histogram);
+            for (int symbol = 0; symbol < combined.length; symbol++) {
+                combined[symbol] += histogram[symbol];
+            }
+        }
+
+        // Tabla 0: la compartida, con código para todos los bytes (como Codebook.train)
+        List<byte[]> tables = new ArrayList<>();
+        tables.add(Codebook.train(0, combined, MAX_CODE_LENGTH).lengths());
+        List<long[]> codes = new ArrayList<>();
+        codes.add(Huffman.canonicalCodes(tables.get(0)));
+
+        List<Entry> entries = new ArrayList<>(files.size());
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(archive), HuffmanFormat.STREAM_BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            long position = 5;
+            for (int i = 0; i < files.size(); i++) {
+                byte[] data = Files.readAllBytes(files.get(i));
+                long[] histogram = histograms.get(i);
+                if (Arrays.stream(histogram).sum() != data.length) {
+                    throw new IOException("El archivo cambió mientras se comprimía: " + files.get(i));
+                }
+                int table = choose(histogram, data.length, tables, codes);
+                byte[] payload;
+                if (table == STORED) {
+                    payload = data;
+                } else {
+                    BitWriter writer = new BitWriter(data.length / 2 + 16);
+                    writer.writeSymbols(data, 0, data.length, codes.get(table), tables.get(table));
+                    payload = writer.toByteArray();
+                }
+                out.write(payload);
+                entries.add(new Entry(names.get(i), position, data.length, payload.length, table));
+                position += payload.length;
+            }
+
+            long tablesPosition = position;
+            out.writeInt(tables.size());
+            for (byte[] lengths : tables) {
+                out.write(CodeLengths.pack(lengths));
+            }
+            out.writeInt(entries.size());
+            for (Entry entry : entries) {
+                out.writeUTF(entry.name);
+                out.writeLong(entry.offset);
+                out.writeInt(entry.size);
+                out.writeInt(entry.compressedSize);
+                out.writeInt(entry.table);
+            }
+            out.writeLong(tablesPosition);
+            out.writeInt(MAGIC);
+        }
+    }
+
+    // Elige la tabla más chica para una entrada: la compartida, una propia
+    // (que se agrega a la lista) o ninguna, si no se achica
+    private static int choose(long[] histogram, int length, List<byte[]> tables, List<long[]> codes) {
+        long sharedBytes = CodeLengths.codedBytes(histogram, tables.get(0));
+        long ownBytes = Long.MAX_VALUE;
+        byte[] own = null;
+        // Una tabla propia cuesta 128 bytes: solo se calcula si la entrada
+        // ocupa más que eso con la compartida
+        if (sharedBytes > TABLE_BYTES && length > 0) {
+            own = Arrays.copyOf(Huffman.codeLengths(histogram, MAX_CODE_LENGTH), 256);
+            ownBytes = TABLE_BYTES + CodeLengths.codedBytes(histogram, own);
+        }
+        if (length <= Math.min(sharedBytes, ownBytes)) {
+            return STORED;
+        }
+        if (sharedBytes <= ownBytes) {
+            return 0;
+        }
+        tables.add(own);
+        codes.add(Huffman.canonicalCodes(own));
+        return tables.size() - 1;
+    }
+
+    private static String entryName(Path relative) {
+        StringJoiner name = new StringJoiner("/");
+        for (Path part : relative) {
+            name.add(part.toString());
+        }
+        return name.toString();
+    }
+
+    // Abre un archivo y carga su directorio
+    public static HuffmanArchive open(Path archive) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            MappedFile file = new MappedFile(channel);
+            long fileSize = file.size();
+            if (fileSize < 5 + TRAILER_BYTES) {
+                throw new IOException("El archivo no es un archivo de Huffman con entradas");
+            }
+            DataInputStream head = new DataInputStream(new ByteArrayInputStream(file.read(0, 5)));
+            DataInputStream trailer = new DataInputStream(
+                    new ByteArrayInputStream(file.read(fileSize - TRAILER_BYTES, TRAILER_BYTES)));
+            long tablesPosition = trailer.readLong();
+            if (head.readInt() != MAGIC || trailer.readInt() != MAGIC) {
+                throw new IOException("El archivo no es un archivo de Huffman con entradas");
+            }
+            int version = head.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Versión de formato no soportada: " + version);
+            }
+            long directoryEnd = fileSize - TRAILER_BYTES;
+            if (tablesPosition < 5 || tablesPosition > directoryEnd
+                    || directoryEnd - tablesPosition > Integer.MAX_VALUE - 8) {
+                throw new IOException("Directorio inválido");
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    file.read(tablesPosition, (int) (directoryEnd - tablesPosition))));
+            try {
+                int tableCount = in.readInt();
+                if (tableCount < 0 || (long) tableCount * TABLE_BYTES > directoryEnd - tablesPosition) {
+                    throw new IOException("Cantidad de tablas inválida: " + tableCount);
+                }
+                HuffmanDecoder[] decoders = new HuffmanDecoder[tableCount];
+                byte[] packed = new byte[TABLE_BYTES];
+                for (int i = 0; i < tableCount; i++) {
+                    in.readFully(packed);
+                    try {
+                        byte[] lengths = CodeLengths.unpack(packed);
+                        HuffmanFormat.checkCodeLengths(lengths);
+                        decoders[i] = HuffmanDecoder.fromLengths(lengths);
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("Tabla de Huffman inválida", e);
+                    }
+                }
+                int entryCount = in.readInt();
+                if (entryCount < 0) {
+                    throw new IOException("Cantidad de entradas inválida: " + entryCount);
+                }
+                List<Entry> entries = new ArrayList<>();
+                for (int i = 0; i < entryCount; i++) {
+                    Entry entry = new Entry(in.readUTF(), in.readLong(), in.readInt(), in.readInt(), in.readInt());
+                    if (entry.offset < 5 || entry.compressedSize < 0 || entry.size < 0
+                            || entry.compressedSize > tablesPosition - entry.offset
+                            || entry.table < STORED || entry.table >= tableCount
+                            || (entry.table == STORED && entry.size != entry.compressedSize)) {
+                        throw new IOException("Entrada inválida: " + entry.name);
+                    }
+                    entries.add(entry);
+                }
+                return new HuffmanArchive(entries, decoders, file);
+            } catch (EOFException e) {
+                throw new IOException("Directorio incompleto", e);
+            }
+        }
+    }
+
+    public List<Entry> entries() {
+        return entries;
+    }
+
+    // Entrada con ese nombre, o null si no existe
+    public Entry entry(String name) {
+        return byName.get(name);
+    }
+
+    // Descomprime una entrada por su nombre
+    public byte[] extract(String name) throws IOException {
+        Entry entry = entry(name);
+        if (entry == null) {
+            throw new FileNotFoundException("El archivo no contiene la entrada: " + name);
+        }
+        return extract(entry);
+    }
+
+    // Descomprime una entrada; se puede llamar desde varios hilos a la vez.
+    // Después de close falla con IOException
+    public byte[] extract(Entry entry) throws IOException {
+        byte[] payload = file.read(entry.offset, entry.compressedSize);
+        if (entry.table == STORED) {
+            return payload;
+        }
+        // Cada símbolo ocupa al menos un bit
+        if (entry.size > 8L * entry.compressedSize) {
+            throw new IOException("Entrada inválida: " + entry.name);
+        }
+        byte[] output = new byte[entry.size];
+        try {
+            decoders[entry.table].decode(new BitReader(payload), output, 0, output.length);
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos en " + entry.name, e);
+        }
+        return output;
+    }
+
+    // Extrae todas las entradas en el directorio, repartiéndolas entre
+    // 'threads' hilos, y devuelve la cantidad de bytes escritos
+    public long extractAll(Path directory, int threads) throws IOException {
+        Path root = directory.toAbsolutePath().normalize();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Integer>> tasks = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            tasks.add(executor.submit(() -> {
+                Path target = root.resolve(entry.name).normalize();
+                // Los nombres no pueden salir del directorio de destino ("../", rutas absolutas)
+                if (!target.startsWith(root) || target.equals(root)) {
+                    throw new IOException("Nombre de entrada inválido: " + entry.name);
+                }
+                byte[] data = extract(entry);
+                if (target.getParent() != null) {
+                    Files.createDirectories(target.getParent());
+                }
+                Files.write(target, data);
+                return data.length;
+            }));
+        }
+        executor.shutdown();
+
+        long written = 0;
+        try {
+            for (Future<Integer> task : tasks) {
+                written += task.get();
+            }
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+            throw new InterruptedIOException("Extracción interrumpida");
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+        file.close();
+    }
+}
@@ -0,0 +1,440 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Línea de comandos no interactiva, para scripts y procesos por lotes:
+ *
+ * java HuffmanCli compress [opciones] entrada [salida]
+ * java HuffmanCli decompress [opciones] entrada [salida]
+ * java HuffmanCli archive directorio [salida.har]
+ * java HuffmanCli extract [opciones] archivo.har [directorio]
+ * java HuffmanCli estimate archivo
+ *
+ * La entrada puede ser un archivo o un directorio. Con un directorio se
+ * procesan todos sus archivos (y los de sus subdirectorios con -r) en varios
+ * hilos a la vez, y cada resultado se guarda con la misma ruta relativa bajo
+ * el directorio de salida: "archivo.txt" se comprime en "archivo.txt.huf" y
+ * "archivo.txt.huf" se descomprime en "archivo.txt".
+ * Al descomprimir, el formato se reconoce por la cabecera del archivo; las
+ * imágenes se descomprimen siempre como BMP.
+ * archive guarda todo un directorio en un solo archivo con una tabla
+ * compartida (HuffmanArchive), y extract lo extrae en varios hilos o saca
+ * una sola entrada con -e. estimate predice el tamaño comprimido sin
+ * comprimir (HuffmanEstimator), leyendo solo una muestra de los archivos grandes.
+ */
+public class HuffmanCli {
+    public static final String EXTENSION = ".huf";
+
+    // A partir de este tamaño los archivos se comprimen en flujo, sin cargarlos en memoria
+    private static final long STREAMING_THRESHOLD = 64L * 1024 * 1024;
+    private static final int MAX_CODE_LENGTH = 15;
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Uso: java HuffmanCli compress|decompress [opciones] entrada [salida]",
+            "     java HuffmanCli archive directorio [salida.har]",
+            "     java HuffmanCli extract [opciones] archivo.har [directorio]",
+            "     java HuffmanCli estimate archivo",
+            "  -t, --type text|dna|image|block|lz|auto",
+            "                                  tipo de contenido al comprimir (auto: según la extensión;",
+            "                                  block: tablas por bloque, para archivos heterogéneos;",
+            "                                  lz: LZ77 y Huffman, para datos repetitivos)",
+            "  -l, --level N                   esfuerzo de lz, de 1 (rápido) a 9 (más chico); por defecto 6",
+            "  -s, --seekable                  texto y ADN con índice de bloques, para leer rangos sin",
+            "                                  descomprimir todo (RandomAccessHuffman)",
+            "  -a, --append                    texto y ADN incrementales: si la salida ya existe, comprime",
+            "                                  solo lo que se agregó al original (AppendableHuffman)",
+            "  -i, --interleaved               texto en bloques de cuatro flujos, más rápidos de descomprimir",
+            "  -r, --recursive                 incluye los subdirectorios de la entrada",
+            "  -e, --entry NOMBRE              extrae solo esa entrada del archivo",
+            "  -j, --threads N                 archivos procesados a la vez (por defecto, uno por núcleo)",
+            "  -f, --force                     sobrescribe los archivos de salida existentes");
+
+    // Opciones de una ejecución
+    static class Options {
+        String command;
+        boolean compress;
+        String type = "auto";
+        boolean recursive;
+        boolean seekable;
+        boolean interleaved;
+        boolean append;
+        String entry; // Entrada a extraer (null: todas)
+        int level = LzCompressor.DEFAULT_LEVEL;
+        boolean force;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path input;
+        Path output; // null: junto a la entrada
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        try {
+            System.exit(run(options) == 0 ? 0 : 1);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    static Options parse(String[] args) {
+        if (args.length == 0) {
+            throw new IllegalArgumentException("Falta el comando");
+        }
+        Options options = new Options();
+        options.command = args[0];
+        switch (args[0]) {
+            case "compress":
+            case "archive":
+            case "estimate":
+                options.compress = true;
+                break;
+            case "decompress":
+            case "extract":
+                options.compress = false;
+                break;
+            default:
+                throw new IllegalArgumentException("Comando desconocido: " + args[0]);
+        }
+        List<String> paths = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "-t":
+                case "--type":
+                    options.type = value(args, ++i).toLowerCase(Locale.ROOT);
+                    if (!List.of("text", "dna", "image", "block", "lz", "auto").contains(options.type)) {
+                        throw new IllegalArgumentException("Tipo desconocido: " + options.type);
+                    }
+                    break;
+                case "-l":
+                case "--level":
+                    try {
+                        options.level = Integer.parseInt(value(args, ++i));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Nivel inválido: " + args[i]);
+                    }
+                    if (options.level < LzCompressor.MIN_LEVEL || options.level > LzCompressor.MAX_LEVEL) {
+                        throw new IllegalArgumentException("Nivel inválido: " + options.level);
+                    }
+                    break;
+                case "-s":
+                case "--seekable":
+                    options.seekable = true;
+                    break;
+                case "-a":
+                case "--append":
+                    options.append = true;
+                    break;
+                case "-i":
+                case "--interleaved":
+                    options.interleaved = true;
+                    break;
+                case "-e":
+                case "--entry":
+                    options.entry = value(args, ++i);
+                    break;
+                case "-r":
+                case "--recursive":
+                    options.recursive = true;
+                    break;
+                case "-f":
+                case "--force":
+                    options.force = true;
+                    break;
+                case "-j":
+                case "--threads":
+                    try {
+                        options.threads = Integer.parseInt(value(args, ++i));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Cantidad de hilos inválida: " + args[i]);
+                    }
+                    if (options.threads < 1) {
+                        throw new IllegalArgumentException("Cantidad de hilos inválida: " + options.threads);
+                    }
+                    break;
+                default:
+                    if (args[i].startsWith("-")) {
+                        throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+                    }
+                    paths.add(args[i]);
+            }
+        }
+        if (paths.isEmpty() || paths.size() > 2) {
+            throw new IllegalArgumentException("Se espera una entrada y, opcionalmente, una salida");
+        }
+        options.input = Paths.get(paths.get(0));
+        options.output = paths.size() == 2 ? Paths.get(paths.get(1)) : null;
+        return options;
+    }
+
+    private static String value(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + args[index - 1]);
+        }
+        return args[index];
+    }
+
+    // Procesa la entrada y devuelve la cantidad de archivos con error
+    static int run(Options options) throws IOException {
+        if (options.command.equals("archive")) {
+            return archive(options);
+        }
+        if (options.command.equals("extract")) {
+            return extract(options);
+        }
+        if (options.command.equals("estimate")) {
+            System.out.println(options.input + ": " + HuffmanEstimator.sample(options.input, MAX_CODE_LENGTH));
+            return 0;
+        }
+        if (!Files.isDirectory(options.input)) {
+            Path output = options.output != null ? options.output : outputName(options.input, options.compress);
+            process(options, options.input, output);
+            System.out.println(options.input + " -> " + output);
+            return 0;
+        }
+
+        Path outputDirectory = options.output != null ? options.output : options.input;
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(options.input, options.recursive ? Integer.MAX_VALUE : 1)) {
+            files = walk.filter(Files::isRegularFile)
+                    .filter(file -> options.compress != file.toString().endsWith(EXTENSION))
+                    .collect(Collectors.toList());
+        }
+
+        // Un archivo por tarea en un grupo de hilos acotado: la memoria usada
+        // depende de la cantidad de hilos, no de la cantidad de archivos
+        ExecutorService executor = Executors.newFixedThreadPool(options.threads);
+        AtomicLong inputBytes = new AtomicLong();
+        AtomicLong outputBytes = new AtomicLong();
+        long start = System.nanoTime();
+        List<Future<?>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            Path output = outputDirectory.resolve(outputName(options.input.relativize(file), options.compress));
+            tasks.add(executor.submit(() -> {
+                process(options, file, output);
+                inputBytes.addAndGet(Files.size(file));
+                outputBytes.addAndGet(Files.size(output));
+                return null;
+            }));
+        }
+        executor.shutdown();
+
+        int failures = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                tasks.get(i).get();
+            } catch (ExecutionException e) {
+                failures++;
+                System.err.println(files.get(i) + ": " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                throw new InterruptedIOException("Proceso interrumpido");
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        System.out.println((files.size() - failures) + " archivos procesados, " + failures + " con error, "
+                + inputBytes.get() + " -> " + outputBytes.get() + " bytes en " + elapsed + " ms");
+        return failures;
+    }
+
+    // Guarda el directorio de entrada en un archivo con entradas
+    private static int archive(Options options) throws IOException {
+        if (!Files.isDirectory(options.input)) {
+            throw new IOException("No es un directorio: " + options.input);
+        }
+        Path output = options.output != null ? options.output
+                : options.input.resolveSibling(options.input.getFileName() + HuffmanArchive.EXTENSION);
+        if (!options.force && Files.exists(output)) {
+            throw new IOException("El archivo de salida ya existe: " + output);
+        }
+        long start = System.nanoTime();
+        HuffmanArchive.create(options.input, output);
+        try (HuffmanArchive archive = HuffmanArchive.open(output)) {
+            long inputBytes = 0;
+            for (HuffmanArchive.Entry entry : archive.entries()) {
+                inputBytes += entry.size;
+            }
+            System.out.println(archive.entries().size() + " archivos, " + inputBytes + " -> " + Files.size(output)
+                    + " bytes en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return 0;
+    }
+
+    // Extrae todas las entradas de un archivo, o solo la indicada con -e
+    private static int extract(Options options) throws IOException {
+        try (HuffmanArchive archive = HuffmanArchive.open(options.input)) {
+            if (options.entry != null) {
+                String name = options.entry.substring(options.entry.lastIndexOf('/') + 1);
+                Path output = options.output != null ? options.output : Paths.get(name);
+                if (!options.force && Files.exists(output)) {
+                    throw new IOException("El archivo de salida ya existe: " + output);
+                }
+                Files.write(output, archive.extract(options.entry));
+                System.out.println(options.entry + " -> " + output);
+                return 0;
+            }
+            Path directory = options.output != null ? options.output : Paths.get(".");
+            long start = System.nanoTime();
+            long written = archive.extractAll(directory, options.threads);
+            System.out.println(archive.entries().size() + " archivos extraídos, " + written + " bytes en "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+        return 0;
+    }
+
+    // Nombre de salida de un archivo: agrega o quita la extensión .huf
+    static Path outputName(Path input, boolean compress) {
+        String name = input.getFileName().toString();
+        if (compress) {
+            name += EXTENSION;
+        } else if (name.endsWith(EXTENSION) && name.length() > EXTENSION.length()) {
+            name = name.substring(0, name.length() - EXTENSION.length());
+        } else {
+            name += ".out";
+        }
+        return input.resolveSibling(name);
+    }
+
+    private static void process(Options options, Path input, Path output) throws IOException {
+        // En modo incremental la salida existente es la que se actualiza
+        if (!options.force && !(options.compress && options.append) && Files.exists(output)) {
+            throw new IOException("El archivo de salida ya existe: " + output);
+        }
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        if (options.compress) {
+            compress(input, output, options.type.equals("auto") ? detectType(input) : options.type,
+                    options.seekable, options.interleaved, options.append, options.level);
+        } else {
+            decompress(input, output);
+        }
+    }
+
+    // Tipo de contenido según la extensión del archivo
+    static String detectType(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.matches(".*\\.(bmp|png|gif|jpe?g|wbmp)")) {
+            return "image";
+        }
+        if (name.matches(".*\\.(fa|fasta|fna|ffn|seq|dna)")) {
+            return "dna";
+        }
+        return "text";
+    }
+
+    // Comprime igual que CompressMain: los archivos grandes en flujo, el ADN
+    // y las imágenes con sus compresores específicos. Con 'seekable' el texto
+    // y el ADN se guardan con índice de bloques; con 'interleaved' el texto que
+    // entra en memoria se codifica en bloques de cuatro flujos; con 'append' el
+    // texto y el ADN se agregan a la salida incremental; 'level' es el nivel de lz.
+    static void compress(Path input, Path output, String type, boolean seekable, boolean interleaved, boolean append,
+            int level) throws IOException {
+        String inputFile = input.toString();
+        String outputFile = output.toString();
+        boolean large = Files.size(input) > STREAMING_THRESHOLD;
+        if (append && (type.equals("text") || type.equals("dna"))) {
+            AppendableHuffman.update(inputFile, outputFile,
+                    type.equals("dna") ? HuffmanFormat.TYPE_DNA : HuffmanFormat.TYPE_TEXT);
+            return;
+        }
+        if (seekable && (type.equals("text") || type.equals("dna"))) {
+            RandomAccessHuffman.compressFile(inputFile, outputFile,
+                    type.equals("dna") ? HuffmanFormat.TYPE_DNA : HuffmanFormat.TYPE_TEXT, MAX_CODE_LENGTH,
+                    RandomAccessHuffman.DEFAULT_BLOCK_SYMBOLS);
+            return;
+        }
+        switch (type) {
+            case "image":
+                ImageCompressor.compressFile(inputFile, outputFile);
+                break;
+            case "block":
+                BlockCompressor.compressFile(inputFile, outputFile);
+                break;
+            case "lz":
+                LzCompressor.compressFile(inputFile, outputFile, level);
+                break;
+            case "dna":
+                // Los archivos grandes los comprime en flujo, de a trozos
+                DnaCompressor.compressFile(inputFile, outputFile, DnaCompressor.DEFAULT_CONTEXT_ORDER);
+                break;
+            default:
+                if (large) {
+                    HuffmanFormat.compressFile(inputFile, outputFile, HuffmanFormat.TYPE_TEXT, MAX_CODE_LENGTH);
+                } else {
+                    byte[] data = Files.readAllBytes(input);
+                    Huffman.CompressionResult result = interleaved
+                            ? ParallelHuffman.compressInterleaved(data, MAX_CODE_LENGTH)
+                            : Huffman.compress(data, MAX_CODE_LENGTH);
+                    HuffmanFormat.write(outputFile, HuffmanFormat.TYPE_TEXT, result);
+                    result.metrics.setOutputBytes(Files.size(Paths.get(outputFile)));
+                    result.metrics.commit();
+                }
+        }
+    }
+
+    // Descomprime según la magia de la cabecera
+    static void decompress(Path input, Path output) throws IOException {
+        String inputFile = input.toString();
+        String outputFile = output.toString();
+        int magic;
+        byte type;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(input)))) {
+            magic = in.readInt();
+            in.readUnsignedByte(); // Versión
+            type = in.readByte();
+        } catch (EOFException e) {
+            throw new IOException("El archivo no es un archivo comprimido");
+        }
+        switch (magic) {
+            case HuffmanFormat.MAGIC:
+                HuffmanFormat.decompressFile(inputFile, outputFile, type);
+                break;
+            case DnaCompressor.MAGIC:
+            case DnaCompressor.CHUNKED_MAGIC:
+                DnaCompressor.decompressFile(inputFile, outputFile);
+                break;
+            case ImageCompressor.MAGIC:
+                ImageCompressor.decompressFile(inputFile, outputFile);
+                break;
+            case BlockCompressor.MAGIC:
+                BlockCompressor.decompressFile(inputFile, outputFile);
+                break;
+            case LzCompressor.MAGIC:
+                LzCompressor.decompressFile(inputFile, outputFile);
+                break;
+            case AppendableHuffman.MAGIC:
+                AppendableHuffman.decompressFile(inputFile, outputFile, type);
+                break;
+            case AdaptiveHuffmanModel.MAGIC:
+                try (InputStream in = new AdaptiveHuffmanInputStream(
+                        new BufferedInputStream(Files.newInputStream(input)));
+                        OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+                    in.transferTo(out);
+                }
+                break;
+            default:
+                throw new IOException("El archivo no es un archivo comprimido");
+        }
+    }
+}
@@ -0,0 +1,233 @@
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Decodificador de Huffman basado en tablas de búsqueda.
+ * La tabla raíz resuelve de una sola vez cualquier código de hasta ROOT_BITS
+ * bits; los códigos más largos siguen un enlace a una subtabla (de hasta
+ * SUB_BITS bits por nivel), en lugar de recorrer el árbol nodo por nodo.
+ *
+ * Cada entrada de la tabla es un entero:
+ * - hoja: (símbolo << 8) | longitud total del código
+ * - enlace: bit de signo | (inicio de la subtabla << 5) | bits de la subtabla
+ * - 0: combinación de bits que no corresponde a ningún código
+ */
+public class HuffmanDecoder {
+    public static final int ROOT_BITS = 11;
+    public static final int SUB_BITS = 8;
+
+    private final int[] table; // Tabla raíz seguida de las subtablas
+    private final int rootBits; // Bits que indexan la tabla raíz
+    private final int symbolsPerRefill; // Códigos que caben siempre en una recarga del lector
+    private int[] work; // Tablas durante la construcción
+    private int size; // Entradas ocupadas durante la construcción
+
+    // Construye las tablas a partir de los códigos y longitudes indexados por símbolo
+    public HuffmanDecoder(long[] codes, byte[] lengths) {
+        int maxLength = 0;
+        int symbolCount = 0;
+        for (byte length : lengths) {
+            if (length < 0) {
+                throw new IllegalArgumentException("Longitud de código inválida: " + length);
+            }
+            maxLength = Math.max(maxLength, length);
+            if (length > 0) {
+                symbolCount++;
+            }
+        }
+        if (maxLength > BitReader.MAX_PEEK_BITS) {
+            throw new IllegalArgumentException("Código de Huffman demasiado largo: " + maxLength + " bits");
+        }
+        this.rootBits = Math.max(1, Math.min(ROOT_BITS, maxLength));
+
+        // Desigualdad de Kraft (en unidades de 2^-MAX_PEEK_BITS): con más
+        // códigos de los que caben, algunos serían prefijo de otros. También
+        // se cuenta el tamaño que pueden ocupar las subtablas: cada código
+        // largo atraviesa a lo sumo una subtabla por nivel.
+        long kraft = 0;
+        long subtableEntries = 0;
+        for (byte length : lengths) {
+            if (length == 0) {
+                continue;
+            }
+            kraft += 1L << (BitReader.MAX_PEEK_BITS - length);
+            if (kraft > 1L << BitReader.MAX_PEEK_BITS) {
+                throw new IllegalArgumentException("Las longitudes de código no forman un código prefijo");
+            }
+            for (int remaining = length - rootBits; remaining > 0; remaining -= SUB_BITS) {
+                subtableEntries += 1 << Math.min(SUB_BITS, remaining);
+            }
+        }
+
+        // Ordena los símbolos por su código alineado a la izquierda: los que
+        // comparten prefijo quedan contiguos. Las claves se ordenan como
+        // primitivos (con el bit de signo invertido el orden con signo es el
+        // orden sin signo) y cada símbolo va a la posición de su clave.
+        long[] keys = new long[symbolCount];
+        int index = 0;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                keys[index++] = (codes[symbol] << (64 - lengths[symbol])) ^ Long.MIN_VALUE;
+            }
+        }
+        long[] sorted = keys.clone();
+        Arrays.sort(sorted);
+        for (int i = 1; i < symbolCount; i++) {
+            if (sorted[i] == sorted[i - 1]) {
+                throw new IllegalArgumentException("Dos símbolos con el mismo código de Huffman");
+            }
+        }
+        int[] symbols = new int[symbolCount];
+        index = 0;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            if (lengths[symbol] > 0) {
+                symbols[Arrays.binarySearch(sorted, keys[index++])] = symbol;
+            }
+        }
+
+        this.symbolsPerRefill = Math.max(1, BitReader.MAX_PEEK_BITS / Math.max(1, maxLength));
+        // El enlace guarda el inicio de la subtabla en 26 bits
+        this.work = new int[(int) Math.min(1 << 26, (1L << rootBits) + subtableEntries)];
+        this.size = 1 << rootBits;
+        fill(0, rootBits, 0, symbols, 0, symbolCount, codes, lengths);
+        this.table = Arrays.copyOf(work, size);
+        this.work = null;
+    }
+
+    // Construye el decodificador a partir del mapa de códigos de Huffman
+    public static HuffmanDecoder fromCodes(Map<Character, String> huffmanCodes) {
+        int alphabetSize = 0;
+        for (char character : huffmanCodes.keySet()) {
+            alphabetSize = Math.max(alphabetSize, character + 1);
+        }
+        byte[] lengths = new byte[alphabetSize];
+        long[] codes = Huffman.buildCodeTable(huffmanCodes, lengths);
+        return new HuffmanDecoder(codes, lengths);
+    }
+
+    // Construye el decodificador a partir de las longitudes de códigos canónicos
+    public static HuffmanDecoder fromLengths(byte[] codeLengths) {
+        return new HuffmanDecoder(Huffman.canonicalCodes(codeLengths), codeLengths);
+    }
+
+    // Llena una (sub)tabla de 'bits' bits con los símbolos [from, to), que
+    // comparten los primeros 'consumed' bits de su código
+    private void fill(int offset, int bits, int consumed, int[] symbols, int from, int to, long[] codes,
+            byte[] lengths) {
+        int i = from;
+        while (i < to) {
+            int symbol = symbols[i];
+            int remaining = lengths[symbol] - consumed;
+            long tail = codes[symbol] & ((1L << remaining) - 1); // Bits del código aún no consumidos
+            if (remaining <= bits) {
+                // El código termina en esta tabla: replica la hoja en todas las
+                // entradas que empiezan con esos bits
+                int first = (int) (tail << (bits - remaining));
+                Arrays.fill(work, offset + first, offset + first + (1 << (bits - remaining)),
+                        (symbol << 8) | lengths[symbol]);
+                i++;
+                continue;
+            }
+            // El código continúa: agrupa todos los símbolos con el mismo prefijo
+            int prefix = (int) (tail >>> (remaining - bits));
+            int end = i;
+            int longest = 0;
+            while (end < to) {
+                int other = symbols[end];
+                int otherRemaining = lengths[other] - consumed;
+                if (otherRemaining <= bits
+                        || ((codes[other] & ((1L << otherRemaining) - 1)) >>> (otherRemaining - bits)) != prefix) {
+                    break;
+                }
+                longest = Math.max(longest, otherRemaining - bits);
+                end++;
+            }
+            int subBits = Math.min(SUB_BITS, longest);
+            int subOffset = size;
+            size += 1 << subBits;
+            if (size > work.length) {
+                throw new IllegalArgumentException("Tabla de decodificación demasiado grande");
+            }
+            work[offset + prefix] = Integer.MIN_VALUE | (subOffset << 5) | subBits;
+            fill(subOffset, subBits, consumed + bits, symbols, i, end, codes, lengths);
+            i = end;
+        }
+    }
+
+    // Decodifica un símbolo y consume sus bits
+    public int decodeSymbol(BitReader reader) {
+        reader.refill();
+        return decodeLoaded(reader);
+    }
+
+    // Igual que decodeSymbol, sin recargar el lector: el código tiene que
+    // estar ya en el registro
+    private int decodeLoaded(BitReader reader) {
+        int entry = table[reader.peek(rootBits)];
+        if (entry < 0) {
+            entry = followLinks(reader, entry);
+        }
+        int length = entry & 0xFF;
+        if (length == 0) {
+            throw new IllegalStateException("Secuencia de bits que no corresponde a ningún código de Huffman");
+        }
+        reader.skip(length);
+        return entry >>> 8;
+    }
+
+    // Recorre las subtablas para los códigos más largos que la tabla raíz
+    private int followLinks(BitReader reader, int entry) {
+        int consumed = rootBits;
+        while (entry < 0) {
+            int subBits = entry & 0x1F;
+            int subOffset = (entry & Integer.MAX_VALUE) >>> 5;
+            entry = table[subOffset + reader.peek(consumed, subBits)];
+            consumed += subBits;
+        }
+        return entry;
+    }
+
+    // Decodifica 'count' símbolos directamente en un arreglo de bytes
+    public void decode(BitReader reader, byte[] output, int offset, int count) {
+        for (int i = offset, end = offset + count; i < end; i++) {
+            output[i] = (byte) decodeSymbol(reader);
+        }
+    }
+
+    // Decodifica 'count' símbolos de cada uno de cuatro flujos independientes
+    // (ver FourStreamHuffman), dejándolos a partir de output[offsetN]. En cada
+    // vuelta se recargan los cuatro lectores una vez y se decodifican varios
+    // símbolos de cada uno, alternando entre flujos: las cuatro cadenas de
+    // dependencias se solapan en el procesador.
+    public void decode4(BitReader reader0, BitReader reader1, BitReader reader2, BitReader reader3, byte[] output,
+            int offset0, int offset1, int offset2, int offset3, int count) {
+        int i = 0;
+        while (i < count) {
+            reader0.refill();
+            reader1.refill();
+            reader2.refill();
+            reader3.refill();
+            int end = Math.min(count, i + symbolsPerRefill);
+            for (; i < end; i++) {
+                output[offset0 + i] = (byte) decodeLoaded(reader0);
+                output[offset1 + i] = (byte) decodeLoaded(reader1);
+                output[offset2 + i] = (byte) decodeLoaded(reader2);
+                output[offset3 + i] = (byte) decodeLoaded(reader3);
+            }
+        }
+    }
+
+    // Decodifica 'count' símbolos directamente en un arreglo de caracteres
+    public void decode(BitReader reader, char[] output, int offset, int count) {
+        for (int i = offset, end = offset + count; i < end; i++) {
+            output[i] = (char) decodeSymbol(reader);
+        }
+    }
+
+    // Decodifica 'count' símbolos de los bytes empaquetados como texto
+    public String decodeToString(byte[] packedData, int count) {
+        char[] output = new char[count];
+        decode(new BitReader(packedData), output, 0, count);
+        return new String(output);
+    }
+}
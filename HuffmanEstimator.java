@@ -0,0 +1,185 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Estimación del tamaño comprimido sin codificar nada, para decidir si vale
+ * la pena comprimir un archivo o conviene guardarlo tal cual.
+ * - exact: a partir del histograma y las longitudes de los códigos calcula
+ *   el tamaño exacto del .huf (cabecera incluida) que escribirían
+ *   HuffmanFormat.compressFile o Huffman.compress por debajo de
+ *   PARALLEL_THRESHOLD, sin armar los códigos ni escribir bits.
+ * - sample: lee solo unos trozos repartidos a lo largo del archivo (lecturas
+ *   posicionales de FileChannel) y predice la razón de compresión con un
+ *   margen de error del 95 %, calculado con la variación entre los trozos.
+ *   En archivos grandes cuesta lo mismo que leer esos trozos, sin importar
+ *   el tamaño del archivo.
+ */
+public class HuffmanEstimator {
+    public static final int DEFAULT_SAMPLE_CHUNKS = 16;
+    public static final int DEFAULT_CHUNK_SIZE = 4 * 1024;
+
+    // Valor de la normal para un intervalo del 95 %
+    private static final double Z_95 = 1.96;
+
+    // Resultado de una estimación
+    public static final class Estimate {
+        public final long originalBytes;
+        public final long compressedBytes; // .huf completo, cabecera incluida
+        public final double bitsPerSymbol;
+        public final double entropy; // Bits por símbolo según la entropía de Shannon
+        public final double error; // Margen de la razón de compresión (0 si es exacta)
+        public final boolean sampled;
+
+        Estimate(long originalBytes, long compressedBytes, double bitsPerSymbol, double entropy, double error,
+                boolean sampled) {
+            this.originalBytes = originalBytes;
+            this.compressedBytes = compressedBytes;
+            this.bitsPerSymbol = bitsPerSymbol;
+            this.entropy = entropy;
+            this.error = error;
+            this.sampled = sampled;
+        }
+
+        // Tamaño comprimido sobre tamaño original
+        public double ratio() {
+            return originalBytes == 0 ? 1 : (double) compressedBytes / originalBytes;
+        }
+
+        // Indica si la razón queda por debajo de 'maxRatio' aun en el peor
+        // caso del margen de error (por ejemplo, 0.9 para exigir un 10 % menos)
+        public boolean worthCompressing(double maxRatio) {
+            return ratio() + error < maxRatio;
+        }
+
+        @Override
+        public String toString() {
+            String ratio = sampled ? String.format("%.3f ± %.3f", ratio(), error) : String.format("%.3f", ratio());
+            return String.format("%d -> %d bytes%s, razón %s, %.3f bits por símbolo (entropía: %.3f)",
+                    originalBytes, compressedBytes, sampled ? " (estimado por muestreo)" : "", ratio,
+                    bitsPerSymbol, entropy);
+        }
+    }
+
+    // Tamaño exacto a partir del histograma de los bytes
+    public static Estimate exact(long[] histogram, int maxCodeLength) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        byte[] codeLengths = Huffman.codeLengths(histogram, maxCodeLength);
+        long bits = codedBits(histogram, codeLengths);
+        long compressed = headerBytes(total, codeLengths) + (bits + 7) / 8;
+        return new Estimate(total, compressed, total == 0 ? 0 : (double) bits / total,
+                CodeLengths.entropy(histogram), 0, false);
+    }
+
+    // Cota inferior de los bytes de datos con cualquier tabla (la entropía de
+    // Shannon), sin calcular las longitudes: alcanza para descartar una tabla
+    // nueva cuando otra ya cuesta menos que eso
+    public static long minimumBytes(long[] histogram) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        return (long) (CodeLengths.entropy(histogram) * total / 8);
+    }
+
+    public static Estimate exact(byte[] data, int maxCodeLength) {
+        return exact(Huffman.countBytes(data, 0, data.length), maxCodeLength);
+    }
+
+    // Tamaño exacto de un archivo: lo lee entero una vez, sin codificarlo
+    public static Estimate exact(Path file, int maxCodeLength) throws IOException {
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            return exact(HuffmanFormat.histogram(in), maxCodeLength);
+        }
+    }
+
+    public static Estimate sample(Path file, int maxCodeLength) throws IOException {
+        return sample(file, maxCodeLength, DEFAULT_SAMPLE_CHUNKS, DEFAULT_CHUNK_SIZE);
+    }
+
+    // Predice el tamaño leyendo 'chunks' trozos de 'chunkSize' bytes espaciados
+    // uniformemente; si el archivo no es mucho más grande que la muestra, lo
+    // lee entero y el resultado es exacto
+    public static Estimate sample(Path file, int maxCodeLength, int chunks, int chunkSize) throws IOException {
+        if (chunks < 2 || chunkSize < 1) {
+            throw new IllegalArgumentException("Muestra inválida: " + chunks + " trozos de " + chunkSize + " bytes");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= 2L * chunks * chunkSize) {
+                return exact(file, maxCodeLength);
+            }
+
+            // Histograma de cada trozo y de toda la muestra
+            long[][] histograms = new long[chunks][];
+            long[] combined = new long[256];
+            ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                long position = (size - chunkSize) * chunk / (chunks - 1);
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("El archivo cambió mientras se leía: " + file);
+                    }
+                }
+                histograms[chunk] = Huffman.countBytes(buffer.array(), 0, chunkSize);
+                for (int symbol = 0; symbol < combined.length; symbol++) {
+                    combined[symbol] += histograms[chunk][symbol];
+                }
+            }
+
+            // Los códigos se calculan con la muestra, como los calcularía el
+            // compresor con el archivo entero; cada trozo da una razón y la
+            // dispersión entre trozos da el margen de error
+            byte[] codeLengths = Huffman.codeLengths(combined, maxCodeLength);
+            double[] ratios = new double[chunks];
+            double mean = 0;
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                ratios[chunk] = codedBits(histograms[chunk], codeLengths) / 8.0 / chunkSize;
+                mean += ratios[chunk];
+            }
+            mean /= chunks;
+            double variance = 0;
+            for (double ratio : ratios) {
+                variance += (ratio - mean) * (ratio - mean);
+            }
+            variance /= chunks - 1;
+            // Corrección por población finita: la muestra es parte del archivo
+            double sampled = (double) chunks * chunkSize / size;
+            double error = Z_95 * Math.sqrt(variance / chunks * (1 - sampled));
+
+            // La cabecera lleva las longitudes de todos los bytes que aparecen;
+            // en el peor caso, los 256
+            long compressed = headerBytes(size, new byte[256]) + Math.round(mean * size);
+            return new Estimate(size, compressed, mean * 8, CodeLengths.entropy(combined), error, true);
+        }
+    }
+
+    // Bits de los datos codificados con las longitudes dadas; los símbolos
+    // sin código se cuentan con la longitud máxima
+    private static long codedBits(long[] histogram, byte[] codeLengths) {
+        int longest = 1;
+        for (byte length : codeLengths) {
+            longest = Math.max(longest, length);
+        }
+        long bits = 0;
+        for (int symbol = 0; symbol < histogram.length; symbol++) {
+            if (histogram[symbol] > 0) {
+                int length = symbol < codeLengths.length ? codeLengths[symbol] : 0;
+                bits += histogram[symbol] * (length > 0 ? length : longest);
+            }
+        }
+        return bits;
+    }
+
+    private static long headerBytes(long originalLength, byte[] codeLengths) {
+        return HuffmanFormat.headerBytes(
+                new HuffmanFormat.Header(HuffmanFormat.TYPE_BINARY, originalLength, codeLengths)).length;
+    }
+}
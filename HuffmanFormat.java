@@ -0,0 +1,372 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Formato binario autocontenido de un archivo comprimido (.huf):
+ *
+ * magia "HUFF" (4 bytes) | versión (1 byte) | tipo de contenido (1 byte) | opciones (1 byte)
+ * cantidad de símbolos originales (8 bytes)
+ * tamaño del alfabeto N (4 bytes) | longitud del código canónico de cada símbolo (N bytes)
+ * [índice de bloques, si FLAG_BLOCK_INDEX: símbolos por bloque (4 bytes),
+ * cantidad de bloques B (4 bytes), posición de bit de cada bloque (B x 8 bytes)]
+ * bits de Huffman empaquetados hasta el final del archivo
+ * Con FLAG_INTERLEAVED (siempre junto con el índice) cada bloque empieza en
+ * un byte y está dividido en cuatro flujos con su tabla de saltos (ver
+ * FourStreamHuffman), que se decodifican intercalados.
+ *
+ * Como los códigos son canónicos, las longitudes bastan para reconstruirlos,
+ * sin tabla de frecuencias ni clave ASCII aparte. El índice de bloques permite
+ * empezar a decodificar en medio de los bits, y por lo tanto en paralelo.
+ * Los archivos de la versión 1 no tienen el byte de opciones.
+ */
+public class HuffmanFormat {
+    public static final int MAGIC = 0x48554646; // "HUFF"
+    public static final int VERSION = 2;
+
+    // Opciones de la cabecera
+    public static final int FLAG_BLOCK_INDEX = 1;
+    public static final int FLAG_INTERLEAVED = 2;
+
+    // Tipos de contenido
+    public static final byte TYPE_TEXT = 0;
+    public static final byte TYPE_DNA = 1;
+    public static final byte TYPE_IMAGE = 2;
+    public static final byte TYPE_BINARY = 3; // Bytes arbitrarios (Huffman.compress(ByteBuffer, ByteBuffer))
+
+    // Tamaño de los buffers usados al comprimir y descomprimir en flujo
+    static final int STREAM_BUFFER_SIZE = 64 * 1024;
+
+    // Posiciones del índice de bloques que se reservan de una vez al leerlo
+    private static final int INDEX_CHUNK = 4096;
+
+    // Cabecera de un archivo comprimido
+    static class Header {
+        byte type; // Tipo de contenido
+        long originalLength; // Cantidad de símbolos originales
+        byte[] codeLengths; // Longitudes de los códigos canónicos
+        int blockSymbols; // Símbolos por bloque del índice
+        long[] blockBitOffsets; // Posición de bit de cada bloque (null si no hay índice)
+        boolean interleaved; // Bloques de cuatro flujos (FourStreamHuffman)
+
+        Header(byte type, long originalLength, byte[] codeLengths) {
+            this.type = type;
+            this.originalLength = originalLength;
+            this.codeLengths = codeLengths;
+        }
+
+        Header(byte type, long originalLength, byte[] codeLengths, int blockSymbols, long[] blockBitOffsets) {
+            this(type, originalLength, codeLengths);
+            this.blockSymbols = blockSymbols;
+            this.blockBitOffsets = blockBitOffsets;
+        }
+
+        boolean hasBlockIndex() {
+            return blockBitOffsets != null;
+        }
+    }
+
+    // Escribe la cabecera
+    public static void writeHeader(DataOutputStream out, Header header) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(header.type);
+        out.writeByte((header.hasBlockIndex() ? FLAG_BLOCK_INDEX : 0) | (header.interleaved ? FLAG_INTERLEAVED : 0));
+        out.writeLong(header.originalLength);
+        out.writeInt(header.codeLengths.length);
+        out.write(header.codeLengths);
+        if (header.hasBlockIndex()) {
+            out.writeInt(header.blockSymbols);
+            out.writeInt(header.blockBitOffsets.length);
+            for (long bitOffset : header.blockBitOffsets) {
+                out.writeLong(bitOffset);
+            }
+        }
+    }
+
+    // Lee y valida la cabecera
+    public static Header readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no es un archivo comprimido con Huffman");
+        }
+        int version = in.readUnsignedByte();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        byte type = in.readByte();
+        int flags = version == 1 ? 0 : in.readUnsignedByte();
+        long originalLength = in.readLong();
+        if (originalLength < 0) {
+            throw new IOException("Cantidad de símbolos inválida: " + originalLength);
+        }
+        int alphabetSize = in.readInt();
+        if (alphabetSize < 0 || alphabetSize > Character.MAX_VALUE + 1) {
+            throw new IOException("Tamaño de alfabeto inválido: " + alphabetSize);
+        }
+        byte[] codeLengths = new byte[alphabetSize];
+        in.readFully(codeLengths);
+        checkCodeLengths(codeLengths);
+        if ((flags & FLAG_BLOCK_INDEX) == 0) {
+            if ((flags & FLAG_INTERLEAVED) != 0) {
+                throw new IOException("Flujos intercalados sin índice de bloques");
+            }
+            return new Header(type, originalLength, codeLengths);
+        }
+        int blockSymbols = in.readInt();
+        int blockCount = in.readInt();
+        // Los compresores escriben exactamente un bloque por cada blockSymbols símbolos
+        if (blockSymbols <= 0 || blockCount != (originalLength + blockSymbols - 1) / blockSymbols) {
+            throw new IOException("Índice de bloques inválido");
+        }
+        // El arreglo crece a medida que se leen las posiciones: un índice que
+        // declara más bloques de los que contiene el archivo termina en
+        // EOFException en lugar de reservar la memoria de golpe
+        long[] blockBitOffsets = new long[Math.min(blockCount, INDEX_CHUNK)];
+        long previous = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (i == blockBitOffsets.length) {
+                blockBitOffsets = Arrays.copyOf(blockBitOffsets, (int) Math.min(blockCount, 2L * i));
+            }
+            long bitOffset = in.readLong();
+            if (i == 0 ? bitOffset != 0 : bitOffset < previous) {
+                throw new IOException("Las posiciones del índice de bloques no son crecientes");
+            }
+            blockBitOffsets[i] = previous = bitOffset;
+        }
+        Header header = new Header(type, originalLength, codeLengths, blockSymbols, blockBitOffsets);
+        header.interleaved = (flags & FLAG_INTERLEAVED) != 0;
+        return header;
+    }
+
+    // Comprueba que las longitudes leídas de un archivo formen un código
+    // prefijo que el decodificador pueda armar: cada una entre 0 y
+    // MAX_PEEK_BITS y sin superar la desigualdad de Kraft (suma de 2^-longitud <= 1)
+    static void checkCodeLengths(byte[] codeLengths) throws IOException {
+        long kraft = 0; // Suma en unidades de 2^-MAX_PEEK_BITS
+        for (byte length : codeLengths) {
+            if (length < 0 || length > BitReader.MAX_PEEK_BITS) {
+                throw new IOException("Longitud de código inválida: " + length);
+            }
+            if (length > 0) {
+                kraft += 1L << (BitReader.MAX_PEEK_BITS - length);
+                if (kraft > 1L << BitReader.MAX_PEEK_BITS) {
+                    throw new IOException("Las longitudes de código no forman un código prefijo");
+                }
+            }
+        }
+    }
+
+    // Decodificador para las longitudes de una cabecera ya validada; si las
+    // tablas no se pueden armar el archivo se considera dañado
+    static HuffmanDecoder decoder(byte[] codeLengths) throws IOException {
+        try {
+            return HuffmanDecoder.fromLengths(codeLengths);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Tabla de Huffman inválida", e);
+        }
+    }
+
+    // Cada símbolo ocupa al menos un bit: una cabecera que declara más símbolos
+    // que bits en los datos está dañada (y reservaría memoria de más). Los
+    // bloques del índice tienen que empezar dentro de los datos, y los de
+    // cuatro flujos, en un byte.
+    static void checkPayload(Header header, long payloadBytes) throws IOException {
+        if (header.originalLength > 8 * payloadBytes) {
+            throw new IOException("La cantidad de símbolos no corresponde al tamaño de los datos");
+        }
+        if (header.hasBlockIndex()) {
+            for (long bitOffset : header.blockBitOffsets) {
+                if (bitOffset > 8 * payloadBytes || (header.interleaved && (bitOffset & 7) != 0)) {
+                    throw new IOException("El índice de bloques apunta fuera de los datos");
+                }
+            }
+        }
+    }
+
+    // Cabecera de un resultado de compresión
+    static Header header(byte type, Huffman.CompressionResult result) {
+        Header header = new Header(type, result.originalLength, result.codeLengths, result.blockSymbols,
+                result.blockBitOffsets);
+        header.interleaved = result.interleaved;
+        return header;
+    }
+
+    // Lee la cabecera desde la posición actual del buffer y la deja justo
+    // después de la cabecera
+    public static Header readHeader(ByteBuffer in) throws IOException {
+        return readHeader(new DataInputStream(new ByteBufferInputStream(in)));
+    }
+
+    // Cabecera serializada, para escribirla en un buffer
+    static byte[] headerBytes(Header header) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + header.codeLengths.length);
+        try {
+            writeHeader(new DataOutputStream(bytes), header);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // No ocurre al escribir en memoria
+        }
+        return bytes.toByteArray();
+    }
+
+    // Guarda un resultado de compresión completo en un solo archivo
+    public static void write(String filename, byte type, Huffman.CompressionResult result) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(filename)))) {
+            writeHeader(out, header(type, result));
+            out.write(result.packedData);
+        }
+    }
+
+    // Cuenta la frecuencia de cada byte leyendo el flujo por bloques de tamaño fijo
+    public static long[] histogram(InputStream in) throws IOException {
+        long[] histogram = new long[256];
+        byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            long[] counts = Huffman.countBytes(buffer, 0, read);
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                histogram[symbol] += counts[symbol];
+            }
+        }
+        return histogram;
+    }
+
+    // Comprime un archivo en dos pasadas (histograma y codificación) sin
+    // cargarlo completo en memoria
+    public static void compressFile(String inputFile, String outputFile, byte type) throws IOException {
+        compressFile(inputFile, outputFile, type, Huffman.NO_LENGTH_LIMIT);
+    }
+
+    // Igual que el anterior, con los códigos limitados a maxCodeLength bits
+    public static void compressFile(String inputFile, String outputFile, byte type, int maxCodeLength)
+            throws IOException {
+        long[] histogram;
+        try (InputStream in = new FileInputStream(inputFile)) {
+            histogram = histogram(in);
+        }
+        long originalLength = 0;
+        for (long count : histogram) {
+            originalLength += count;
+        }
+        byte[] codeLengths = Huffman.codeLengths(histogram, maxCodeLength);
+
+        try (InputStream in = new FileInputStream(inputFile);
+                HuffmanOutputStream out = new HuffmanOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(outputFile), STREAM_BUFFER_SIZE), type,
+                        originalLength, codeLengths)) {
+            in.transferTo(out);
+        }
+    }
+
+    // Descomprime un archivo. Si tiene índice de bloques y cabe en memoria se
+    // decodifica en paralelo; si no, se escribe la salida a medida que se decodifica.
+    // Los archivos incrementales (AppendableHuffman) se reconocen por la magia.
+    public static void decompressFile(String inputFile, String outputFile, byte expectedType) throws IOException {
+        if (AppendableHuffman.isAppendable(inputFile)) {
+            AppendableHuffman.decompressFile(inputFile, outputFile, expectedType);
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new FileInputStream(inputFile));
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile), STREAM_BUFFER_SIZE)) {
+            Header header = readHeader(in);
+            if (header.type != expectedType) {
+                throw new IOException("El archivo contiene otro tipo de datos (tipo " + header.type + ")");
+            }
+            long inputSize = new File(inputFile).length();
+            checkPayload(header, inputSize);
+            if (header.hasBlockIndex() && fitsInMemory(header.originalLength + inputSize)) {
+                out.write(ParallelHuffman.decompress(header, in.readAllBytes()));
+            } else if (header.interleaved) {
+                decompressBlocks(in, header, out);
+            } else {
+                new HuffmanInputStream(in, header).transferTo(out);
+            }
+        }
+    }
+
+    // Decodifica uno por uno los bloques de cuatro flujos, que empiezan en un
+    // byte: el tamaño de cada uno sale del índice
+    private static void decompressBlocks(DataInputStream in, Header header, OutputStream out) throws IOException {
+        HuffmanDecoder decoder = decoder(header.codeLengths);
+        long[] offsets = header.blockBitOffsets;
+        byte[] output = new byte[(int) Math.min(header.blockSymbols, header.originalLength)];
+        for (int block = 0; block < offsets.length; block++) {
+            long size = block + 1 < offsets.length ? (offsets[block + 1] - offsets[block]) >>> 3 : -1;
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IOException("Bloque de cuatro flujos demasiado grande: " + size + " bytes");
+            }
+            byte[] packed = size >= 0 ? in.readNBytes((int) size) : in.readAllBytes();
+            if (packed.length != size && size >= 0) {
+                throw new EOFException("Datos comprimidos truncados");
+            }
+            int count = (int) Math.min(header.blockSymbols, header.originalLength - (long) block * header.blockSymbols);
+            try {
+                FourStreamHuffman.decode(packed, 0, packed.length, decoder, output, 0, count);
+            } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                throw new IOException("Datos comprimidos corruptos", e);
+            }
+            out.write(output, 0, count);
+        }
+    }
+
+    // Indica si se pueden reservar 'bytes' bytes en el heap sin riesgo
+    private static boolean fitsInMemory(long bytes) {
+        return bytes < Integer.MAX_VALUE - 8 && bytes < Runtime.getRuntime().maxMemory() / 2;
+    }
+
+    // Lee un archivo comprimido y devuelve los símbolos originales como texto
+    public static String read(String filename, byte expectedType) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+            Header header = readHeader(in);
+            if (header.type != expectedType) {
+                throw new IOException("El archivo contiene otro tipo de datos (tipo " + header.type + ")");
+            }
+            if (header.originalLength > Integer.MAX_VALUE - 8) {
+                throw new IOException("El archivo es demasiado grande para descomprimirse en memoria");
+            }
+            byte[] packedData = in.readAllBytes();
+            checkPayload(header, packedData.length);
+            if (header.hasBlockIndex() && header.codeLengths.length <= 256) {
+                return new String(ParallelHuffman.decompress(header, packedData), StandardCharsets.ISO_8859_1);
+            }
+            try {
+                return decoder(header.codeLengths).decodeToString(packedData, (int) header.originalLength);
+            } catch (IllegalStateException e) {
+                throw new IOException("Datos comprimidos corruptos", e);
+            }
+        }
+    }
+
+    // Flujo de entrada sobre los bytes restantes de un buffer; avanza su posición
+    static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.io.*;
+
+/**
+ * Flujo que descomprime un archivo .huf a medida que se lee.
+ * Los bits se cargan desde la entrada con un buffer de tamaño fijo y se
+ * decodifican directamente en el arreglo del llamador.
+ */
+public class HuffmanInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+    private final HuffmanFormat.Header header;
+    private final HuffmanDecoder decoder;
+    private final BitReader reader;
+    private long remaining; // Bytes que faltan por decodificar
+
+    public HuffmanInputStream(InputStream in) throws IOException {
+        this(in, HuffmanFormat.readHeader(new DataInputStream(in)));
+    }
+
+    // Continúa leyendo los bits de un flujo cuya cabecera ya fue leída
+    public HuffmanInputStream(InputStream in, HuffmanFormat.Header header) throws IOException {
+        if (header.interleaved) {
+            throw new IOException("Los bloques de cuatro flujos no se pueden leer como un solo flujo de bits");
+        }
+        this.in = in;
+        this.header = header;
+        this.decoder = HuffmanFormat.decoder(header.codeLengths);
+        this.reader = new BitReader(in, BUFFER_SIZE);
+        this.remaining = header.originalLength;
+    }
+
+    // Tipo de contenido declarado en la cabecera
+    public byte type() {
+        return header.type;
+    }
+
+    // Cantidad total de bytes originales
+    public long originalLength() {
+        return header.originalLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (remaining == 0) {
+            return -1;
+        }
+        int count = (int) Math.min(len, remaining);
+        try {
+            decoder.decode(reader, b, off, count);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+        if (reader.pastEnd()) {
+            // Sin esta comprobación, una cantidad de símbolos falsa seguiría
+            // decodificando ceros indefinidamente
+            throw new EOFException("Datos comprimidos truncados");
+        }
+        remaining -= count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
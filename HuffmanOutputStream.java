@@ -0,0 +1,87 @@
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Flujo que comprime bytes en el formato .huf a medida que se escriben.
+ * Las longitudes de los códigos se conocen de antemano (por ejemplo, a partir
+ * de una primera pasada de histograma), de modo que la cabecera se escribe al
+ * abrir el flujo y los bits se vuelcan por bloques de tamaño fijo: la memoria
+ * usada no depende del tamaño de la entrada.
+ */
+public class HuffmanOutputStream extends OutputStream {
+    // Bytes de entrada que se codifican antes de vaciar el buffer de salida
+    private static final int CHUNK_SIZE = 8192;
+
+    private final OutputStream out;
+    private final long[] codes;
+    private final byte[] lengths;
+    private final BitWriter writer;
+    private final long originalLength; // Bytes que se declararon en la cabecera
+    private long written; // Bytes recibidos hasta el momento
+    private boolean closed;
+
+    public HuffmanOutputStream(OutputStream out, byte type, long originalLength, byte[] codeLengths)
+            throws IOException {
+        this(out, new HuffmanFormat.Header(type, originalLength, codeLengths));
+    }
+
+    // Escribe una cabecera ya armada, por ejemplo con el índice de bloques
+    // calculado en una pasada previa
+    public HuffmanOutputStream(OutputStream out, HuffmanFormat.Header header) throws IOException {
+        this.out = out;
+        this.originalLength = header.originalLength;
+        // Las tablas cubren los 256 valores de byte aunque el alfabeto sea menor
+        this.lengths = Arrays.copyOf(header.codeLengths, Math.max(256, header.codeLengths.length));
+        this.codes = Huffman.canonicalCodes(lengths);
+        this.writer = new BitWriter(CHUNK_SIZE * 2);
+        DataOutputStream headerOut = new DataOutputStream(out);
+        HuffmanFormat.writeHeader(headerOut, header);
+        headerOut.flush();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("El flujo está cerrado");
+        }
+        if (written + len > originalLength) {
+            throw new IOException("Se escribieron más bytes de los declarados en la cabecera");
+        }
+        while (len > 0) {
+            int chunk = Math.min(len, CHUNK_SIZE);
+            for (int i = off; i < off + chunk; i++) {
+                if (lengths[b[i] & 0xFF] == 0) {
+                    throw new IOException("El byte " + (b[i] & 0xFF) + " no tiene código de Huffman");
+                }
+            }
+            writer.writeSymbols(b, off, chunk, codes, lengths);
+            writer.drainTo(out);
+            written += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    // Completa el último byte con ceros y cierra la salida
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (written != originalLength) {
+                throw new IOException("Se escribieron " + written + " bytes de " + originalLength + " declarados");
+            }
+            writer.flush();
+            writer.drainTo(out);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,340 @@
+import java.awt.image.*;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import javax.imageio.ImageIO;
+
+/**
+ * Compresor sin pérdida para imágenes.
+ * Los píxeles se toman directamente del buffer del raster (todos los canales,
+ * en orden B, G, R y opcionalmente A, como en un BMP). Cada fila se transforma
+ * con uno de los predictores de PNG (ninguno, izquierda, arriba, promedio o
+ * Paeth), elegido por fila como el que deja los residuos de menor magnitud.
+ * Los residuos se concentran alrededor de cero y se comprimen con Huffman.
+ * Al descomprimir se deshace el filtro y se escribe un BMP válido.
+ *
+ * Formato:
+ * magia "HIMG" (4 bytes) | versión (1 byte) | canales (1 byte)
+ * ancho (4 bytes) | alto (4 bytes)
+ * archivo .huf con las filas filtradas: un byte con el predictor y luego los
+ * residuos de la fila
+ */
+public class ImageCompressor {
+    public static final int MAGIC = 0x48494D47; // "HIMG"
+    public static final int VERSION = 1;
+
+    // Predictores por fila (los mismos que PNG)
+    private static final int FILTER_NONE = 0;
+    private static final int FILTER_SUB = 1;
+    private static final int FILTER_UP = 2;
+    private static final int FILTER_AVERAGE = 3;
+    private static final int FILTER_PAETH = 4;
+    private static final int FILTER_COUNT = 5;
+
+    // Tamaño de las cabeceras de un BMP (archivo e información)
+    private static final int BMP_FILE_HEADER_SIZE = 14;
+    private static final int BMP_INFO_HEADER_SIZE = 40;
+
+    // Píxeles de una imagen, fila por fila y sin relleno
+    static class Pixels {
+        int width;
+        int height;
+        int channels; // 1 (gris), 3 (BGR) o 4 (BGRA)
+        byte[] data;
+
+        Pixels(int width, int height, int channels, byte[] data) {
+            this.width = width;
+            this.height = height;
+            this.channels = channels;
+            this.data = data;
+        }
+    }
+
+    // Lee los píxeles de una imagen desde el buffer de su raster
+    public static Pixels readPixels(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int pixelCount = width * height;
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        boolean packed = isPacked(image);
+        switch (image.getType()) {
+            case BufferedImage.TYPE_3BYTE_BGR:
+                if (packed) {
+                    return new Pixels(width, height, 3, ((DataBufferByte) buffer).getData().clone());
+                }
+                break;
+            case BufferedImage.TYPE_BYTE_GRAY:
+                if (packed) {
+                    return new Pixels(width, height, 1, ((DataBufferByte) buffer).getData().clone());
+                }
+                break;
+            case BufferedImage.TYPE_4BYTE_ABGR:
+                if (packed) {
+                    // A, B, G, R -> B, G, R, A
+                    byte[] source = ((DataBufferByte) buffer).getData();
+                    byte[] data = new byte[pixelCount * 4];
+                    for (int i = 0; i < data.length; i += 4) {
+                        data[i] = source[i + 1];
+                        data[i + 1] = source[i + 2];
+                        data[i + 2] = source[i + 3];
+                        data[i + 3] = source[i];
+                    }
+                    return new Pixels(width, height, 4, data);
+                }
+                break;
+            case BufferedImage.TYPE_INT_RGB:
+            case BufferedImage.TYPE_INT_ARGB:
+            case BufferedImage.TYPE_INT_BGR:
+                if (packed) {
+                    return unpackInts(((DataBufferInt) buffer).getData(), width, height,
+                            image.getType() == BufferedImage.TYPE_INT_ARGB ? 4 : 3,
+                            image.getType() == BufferedImage.TYPE_INT_BGR);
+                }
+                break;
+            default:
+                break;
+        }
+        // Cualquier otro formato (paleta, 16 bits...) se lee de una vez como ARGB
+        int[] argb = image.getRGB(0, 0, width, height, null, 0, width);
+        return unpackInts(argb, width, height, image.getColorModel().hasAlpha() ? 4 : 3, false);
+    }
+
+    // Indica si el raster ocupa todo su buffer, fila tras fila y sin relleno
+    private static boolean isPacked(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        SampleModel model = raster.getSampleModel();
+        if (raster.getParent() != null || raster.getDataBuffer().getNumBanks() != 1
+                || raster.getDataBuffer().getOffset() != 0) {
+            return false;
+        }
+        if (model instanceof PixelInterleavedSampleModel) {
+            PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) model;
+            return interleaved.getScanlineStride() == image.getWidth() * interleaved.getPixelStride();
+        }
+        if (model instanceof SinglePixelPackedSampleModel) {
+            return ((SinglePixelPackedSampleModel) model).getScanlineStride() == image.getWidth();
+        }
+        return false;
+    }
+
+    // Separa los canales de píxeles empaquetados en enteros (ARGB, o xBGR si
+    // bgr es verdadero)
+    private static Pixels unpackInts(int[] source, int width, int height, int channels, boolean bgr) {
+        byte[] data = new byte[width * height * channels];
+        int j = 0;
+        for (int pixel : source) {
+            if (bgr) {
+                data[j] = (byte) (pixel >>> 16);
+                data[j + 1] = (byte) (pixel >>> 8);
+                data[j + 2] = (byte) pixel;
+            } else {
+                data[j] = (byte) pixel;
+                data[j + 1] = (byte) (pixel >>> 8);
+                data[j + 2] = (byte) (pixel >>> 16);
+            }
+            if (channels == 4) {
+                data[j + 3] = (byte) (pixel >>> 24);
+            }
+            j += channels;
+        }
+        return new Pixels(width, height, channels, data);
+    }
+
+    // Comprime los píxeles de una imagen
+    public static byte[] compress(Pixels pixels) throws IOException {
+        byte[] filtered = filter(pixels);
+        Huffman.CompressionResult result = ParallelHuffman.compress(filtered);
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(result.packedData.length + 64);
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(pixels.channels);
+        out.writeInt(pixels.width);
+        out.writeInt(pixels.height);
+        HuffmanFormat.writeHeader(out, new HuffmanFormat.Header(HuffmanFormat.TYPE_IMAGE, result.originalLength,
+                result.codeLengths, result.blockSymbols, result.blockBitOffsets));
+        out.write(result.packedData);
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    public static Pixels decompress(byte[] compressed) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no es una imagen comprimida");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        int channels = in.readUnsignedByte();
+        int width = in.readInt();
+        int height = in.readInt();
+        long rowBytes = (long) width * channels + 1;
+        if ((channels != 1 && channels != 3 && channels != 4) || width < 0 || height < 0
+                || rowBytes * height > Integer.MAX_VALUE - 8) {
+            throw new IOException("Cabecera de imagen inválida");
+        }
+        HuffmanFormat.Header header = HuffmanFormat.readHeader(in);
+        if (header.type != HuffmanFormat.TYPE_IMAGE || header.originalLength != rowBytes * height
+                || !header.hasBlockIndex()) {
+            throw new IOException("Datos de imagen inválidos");
+        }
+        byte[] filtered = ParallelHuffman.decompress(header, in.readAllBytes());
+        Pixels pixels = new Pixels(width, height, channels, new byte[width * height * channels]);
+        unfilter(filtered, pixels);
+        return pixels;
+    }
+
+    // Aplica a cada fila el predictor que deja los residuos más pequeños
+    private static byte[] filter(Pixels pixels) {
+        int stride = pixels.width * pixels.channels;
+        int bpp = pixels.channels;
+        byte[] data = pixels.data;
+        byte[] output = new byte[(stride + 1) * pixels.height];
+        byte[][] candidates = new byte[FILTER_COUNT][stride];
+        for (int y = 0; y < pixels.height; y++) {
+            int row = y * stride;
+            int previousRow = row - stride; // Solo válido si y > 0
+            int best = FILTER_NONE;
+            long bestCost = Long.MAX_VALUE;
+            for (int filter = 0; filter < FILTER_COUNT; filter++) {
+                byte[] residuals = candidates[filter];
+                long cost = 0;
+                for (int i = 0; i < stride; i++) {
+                    int left = i >= bpp ? data[row + i - bpp] & 0xFF : 0;
+                    int up = y > 0 ? data[previousRow + i] & 0xFF : 0;
+                    int upLeft = y > 0 && i >= bpp ? data[previousRow + i - bpp] & 0xFF : 0;
+                    int residual = (data[row + i] - predict(filter, left, up, upLeft)) & 0xFF;
+                    residuals[i] = (byte) residual;
+                    // Los residuos se miden como valores con signo: lo ideal es cerca de cero
+                    cost += residual < 128 ? residual : 256 - residual;
+                }
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    best = filter;
+                }
+            }
+            int out = y * (stride + 1);
+            output[out] = (byte) best;
+            System.arraycopy(candidates[best], 0, output, out + 1, stride);
+        }
+        return output;
+    }
+
+    // Reconstruye los píxeles a partir de las filas filtradas
+    private static void unfilter(byte[] filtered, Pixels pixels) throws IOException {
+        int stride = pixels.width * pixels.channels;
+        int bpp = pixels.channels;
+        byte[] data = pixels.data;
+        for (int y = 0; y < pixels.height; y++) {
+            int in = y * (stride + 1);
+            int filter = filtered[in] & 0xFF;
+            if (filter >= FILTER_COUNT) {
+                throw new IOException("Predictor de fila inválido: " + filter);
+            }
+            int row = y * stride;
+            int previousRow = row - stride;
+            for (int i = 0; i < stride; i++) {
+                int left = i >= bpp ? data[row + i - bpp] & 0xFF : 0;
+                int up = y > 0 ? data[previousRow + i] & 0xFF : 0;
+                int upLeft = y > 0 && i >= bpp ? data[previousRow + i - bpp] & 0xFF : 0;
+                data[row + i] = (byte) (filtered[in + 1 + i] + predict(filter, left, up, upLeft));
+            }
+        }
+    }
+
+    // Valor previsto de un byte según el predictor y sus vecinos
+    private static int predict(int filter, int left, int up, int upLeft) {
+        switch (filter) {
+            case FILTER_SUB:
+                return left;
+            case FILTER_UP:
+                return up;
+            case FILTER_AVERAGE:
+                return (left + up) >>> 1;
+            case FILTER_PAETH:
+                int estimate = left + up - upLeft;
+                int distanceLeft = Math.abs(estimate - left);
+                int distanceUp = Math.abs(estimate - up);
+                int distanceUpLeft = Math.abs(estimate - upLeft);
+                if (distanceLeft <= distanceUp && distanceLeft <= distanceUpLeft) {
+                    return left;
+                }
+                return distanceUp <= distanceUpLeft ? up : upLeft;
+            default:
+                return 0;
+        }
+    }
+
+    // Escribe los píxeles como BMP sin compresión: 8 bits con paleta de grises,
+    // 24 bits (BGR) o 32 bits (BGRA)
+    public static void writeBMP(Pixels pixels, OutputStream output) throws IOException {
+        int stride = pixels.width * pixels.channels;
+        int paddedStride = (stride + 3) & ~3; // Cada fila ocupa un múltiplo de 4 bytes
+        int paletteSize = pixels.channels == 1 ? 256 * 4 : 0;
+        int dataOffset = BMP_FILE_HEADER_SIZE + BMP_INFO_HEADER_SIZE + paletteSize;
+        long fileSize = dataOffset + (long) paddedStride * pixels.height;
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output));
+        // Cabecera de archivo (los enteros del BMP son little-endian)
+        out.writeByte('B');
+        out.writeByte('M');
+        out.writeInt(Integer.reverseBytes((int) fileSize));
+        out.writeInt(0);
+        out.writeInt(Integer.reverseBytes(dataOffset));
+        // Cabecera de información (BITMAPINFOHEADER)
+        out.writeInt(Integer.reverseBytes(BMP_INFO_HEADER_SIZE));
+        out.writeInt(Integer.reverseBytes(pixels.width));
+        out.writeInt(Integer.reverseBytes(pixels.height)); // Alto positivo: filas de abajo hacia arriba
+        out.writeShort(Short.reverseBytes((short) 1));
+        out.writeShort(Short.reverseBytes((short) (pixels.channels * 8)));
+        out.writeInt(0); // Sin compresión
+        out.writeInt(Integer.reverseBytes(paddedStride * pixels.height));
+        out.writeInt(Integer.reverseBytes(2835)); // 72 ppp
+        out.writeInt(Integer.reverseBytes(2835));
+        out.writeInt(Integer.reverseBytes(pixels.channels == 1 ? 256 : 0));
+        out.writeInt(0);
+        if (pixels.channels == 1) {
+            for (int gray = 0; gray < 256; gray++) {
+                out.writeByte(gray);
+                out.writeByte(gray);
+                out.writeByte(gray);
+                out.writeByte(0);
+            }
+        }
+        byte[] padding = new byte[paddedStride - stride];
+        for (int y = pixels.height - 1; y >= 0; y--) {
+            out.write(pixels.data, y * stride, stride);
+            out.write(padding);
+        }
+        out.flush();
+    }
+
+    // Comprime un archivo de imagen (cualquier formato que lea ImageIO)
+    public static void compressFile(String inputFile, String outputFile) throws IOException {
+        BufferedImage image = ImageIO.read(new File(inputFile));
+        if (image == null) {
+            throw new IOException("No se pudo leer el archivo BMP o el formato no es compatible.");
+        }
+        Files.write(Paths.get(outputFile), compress(readPixels(image)));
+    }
+
+    // Descomprime una imagen y la guarda como BMP; los archivos .huf de
+    // versiones anteriores se descomprimen con HuffmanFormat
+    public static void decompressFile(String inputFile, String outputFile) throws IOException {
+        int magic;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(inputFile))) {
+            magic = in.readInt();
+        }
+        if (magic == HuffmanFormat.MAGIC) {
+            HuffmanFormat.decompressFile(inputFile, outputFile, HuffmanFormat.TYPE_IMAGE);
+            return;
+        }
+        Pixels pixels = decompress(Files.readAllBytes(Paths.get(inputFile)));
+        try (OutputStream out = new FileOutputStream(outputFile)) {
+            writeBMP(pixels, out);
+        }
+    }
+}
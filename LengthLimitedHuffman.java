@@ -0,0 +1,99 @@
+import java.util.Arrays;
+
+/**
+ * Construcción de códigos de Huffman con longitud máxima, mediante el
+ * algoritmo package-merge.
+ * Da las longitudes óptimas entre todos los códigos prefijo cuyos códigos no
+ * superan 'maxCodeLength' bits, de modo que las tablas del decodificador y el
+ * acumulador de bits tienen un tamaño acotado aunque la entrada sea muy sesgada.
+ */
+public class LengthLimitedHuffman {
+
+    // Calcula las longitudes de código (indexadas por símbolo) a partir del histograma
+    public static byte[] codeLengths(long[] histogram, int maxCodeLength) {
+        if (maxCodeLength < 1 || maxCodeLength > BitReader.MAX_PEEK_BITS) {
+            throw new IllegalArgumentException("Longitud máxima de código inválida: " + maxCodeLength);
+        }
+        // Símbolos presentes ordenados por frecuencia ascendente
+        int symbolCount = 0;
+        for (long count : histogram) {
+            if (count > 0) {
+                symbolCount++;
+            }
+        }
+        int[] symbols = new int[symbolCount];
+        int index = 0;
+        for (int symbol = 0; symbol < histogram.length; symbol++) {
+            if (histogram[symbol] > 0) {
+                symbols[index++] = symbol;
+            }
+        }
+        symbols = Arrays.stream(symbols).boxed()
+                .sorted((a, b) -> Long.compare(histogram[a], histogram[b]))
+                .mapToInt(Integer::intValue).toArray();
+
+        int size = histogram.length;
+        while (size > 0 && histogram[size - 1] == 0) {
+            size--;
+        }
+        byte[] lengths = new byte[size];
+        if (symbolCount == 1) {
+            lengths[symbols[0]] = 1; // Un solo símbolo: código de un bit
+            return lengths;
+        }
+        if (symbolCount == 0) {
+            return lengths;
+        }
+        if (maxCodeLength < 31 && (1 << maxCodeLength) < symbolCount) {
+            throw new IllegalArgumentException(symbolCount + " símbolos no caben en códigos de " + maxCodeLength
+                    + " bits");
+        }
+
+        // Cada nivel es una lista ordenada de pesos: las hojas mezcladas con los
+        // paquetes formados por pares consecutivos del nivel siguiente.
+        // isLeaf indica si el elemento es una hoja (y entonces leafIndex es su
+        // posición en 'symbols').
+        long[][] weights = new long[maxCodeLength][];
+        boolean[][] isLeaf = new boolean[maxCodeLength][];
+        int[][] leafIndex = new int[maxCodeLength][];
+        for (int level = maxCodeLength - 1; level >= 0; level--) {
+            int packages = level == maxCodeLength - 1 ? 0 : weights[level + 1].length / 2;
+            int total = symbolCount + packages;
+            weights[level] = new long[total];
+            isLeaf[level] = new boolean[total];
+            leafIndex[level] = new int[total];
+            int leaf = 0, pack = 0;
+            for (int i = 0; i < total; i++) {
+                long leafWeight = leaf < symbolCount ? histogram[symbols[leaf]] : Long.MAX_VALUE;
+                long packWeight = pack < packages
+                        ? weights[level + 1][2 * pack] + weights[level + 1][2 * pack + 1]
+                        : Long.MAX_VALUE;
+                if (leafWeight <= packWeight) {
+                    weights[level][i] = leafWeight;
+                    isLeaf[level][i] = true;
+                    leafIndex[level][i] = leaf++;
+                } else {
+                    weights[level][i] = packWeight;
+                    pack++;
+                }
+            }
+        }
+
+        // Se eligen los 2n - 2 elementos más livianos del primer nivel; cada
+        // paquete elegido arrastra el prefijo correspondiente del nivel
+        // siguiente. Cada aparición de una hoja suma un bit a su código.
+        int selected = 2 * symbolCount - 2;
+        for (int level = 0; level < maxCodeLength && selected > 0; level++) {
+            int packages = 0;
+            for (int i = 0; i < selected; i++) {
+                if (isLeaf[level][i]) {
+                    lengths[symbols[leafIndex[level][i]]]++;
+                } else {
+                    packages++;
+                }
+            }
+            selected = 2 * packages;
+        }
+        return lengths;
+    }
+}
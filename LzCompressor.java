@@ -0,0 +1,486 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Compresión LZ77 seguida de Huffman, al estilo de DEFLATE, para entradas
+ * repetitivas (registros, JSON, motivos repetidos de ADN) en las que contar
+ * frecuencias no alcanza.
+ * Un buscador de coincidencias con cadenas de hash (ventana de 32 KB,
+ * coincidencias de 3 a 258 bytes) reemplaza las repeticiones por pares
+ * (longitud, distancia). Los literales y las longitudes comparten un
+ * alfabeto y las distancias usan otro, con los mismos códigos y bits extra
+ * que DEFLATE; cada bloque de tokens se codifica con sus propios códigos
+ * canónicos de Huffman de hasta 15 bits.
+ *
+ * El nivel (1 a 9) regula el esfuerzo de búsqueda, con los mismos parámetros
+ * que zlib: los niveles 1 a 3 toman la primera coincidencia que encuentran
+ * y los 4 a 9 prueban si la siguiente posición tiene una mejor (evaluación
+ * perezosa) y recorren cadenas más largas.
+ *
+ * Formato:
+ * magia "HLZ7" (4 bytes) | versión (1 byte) | nivel (1 byte) | longitud original (8 bytes)
+ * por bloque: forma (1 byte)
+ * BLOCK_STORED: cantidad de bytes (4 bytes) | bytes tal cual (datos que no se achican)
+ * BLOCK_HUFFMAN: longitudes de los 286 códigos de literal/longitud y de los 30 de
+ * distancia, 4 bits cada una (158 bytes) | tamaño de los bits (4 bytes) | bits,
+ * terminados por el símbolo de fin de bloque
+ */
+public class LzCompressor {
+    public static final int MAGIC = 0x484C5A37; // "HLZ7"
+    public static final int VERSION = 1;
+
+    public static final int MIN_LEVEL = 1;
+    public static final int MAX_LEVEL = 9;
+    public static final int DEFAULT_LEVEL = 6;
+
+    private static final int WINDOW_SIZE = 32 * 1024;
+    private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+    private static final int MIN_MATCH = 3;
+    private static final int MAX_MATCH = 258;
+    // Una coincidencia mínima muy lejana ocupa más que tres literales
+    private static final int TOO_FAR = 4096;
+    private static final int HASH_BITS = 15;
+
+    // Tokens que se acumulan antes de calcular los códigos de un bloque
+    private static final int TOKENS_PER_BLOCK = 64 * 1024;
+
+    // Forma de guardar cada bloque
+    private static final byte BLOCK_STORED = 0;
+    private static final byte BLOCK_HUFFMAN = 1;
+
+    // Alfabetos de DEFLATE: 0-255 literales, 256 fin de bloque, 257-285 longitudes
+    private static final int END_OF_BLOCK = 256;
+    private static final int LITERAL_LENGTH_SYMBOLS = 286;
+    private static final int DISTANCE_SYMBOLS = 30;
+    private static final int MAX_CODE_LENGTH = 15;
+    private static final int TABLE_BYTES = (LITERAL_LENGTH_SYMBOLS + DISTANCE_SYMBOLS) / 2;
+
+    private static final int[] LENGTH_BASE = { 3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31, 35, 43, 51,
+            59, 67, 83, 99, 115, 131, 163, 195, 227, 258 };
+    private static final int[] LENGTH_EXTRA = { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4,
+            4, 5, 5, 5, 5, 0 };
+    private static final int[] DISTANCE_BASE = { 1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193, 257, 385,
+            513, 769, 1025, 1537, 2049, 3073, 4097, 6145, 8193, 12289, 16385, 24577 };
+    private static final int[] DISTANCE_EXTRA = { 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9,
+            10, 10, 11, 11, 12, 12, 13, 13 };
+
+    // Código de cada longitud (3 a 258) y de cada distancia (1 a 32768)
+    private static final byte[] LENGTH_CODE = new byte[MAX_MATCH + 1];
+    private static final byte[] DISTANCE_CODE = new byte[WINDOW_SIZE + 1];
+
+    // Parámetros de cada nivel, como en zlib: {good, lazy, nice, chain}
+    // good: con una coincidencia de este largo se recorre un cuarto de la cadena
+    // lazy: niveles 1-3, largo máximo cuyas posiciones se agregan al hash;
+    // niveles 4-9, no se busca una mejor coincidencia si ya se tiene una de este largo
+    // nice: se deja de buscar al encontrar una coincidencia de este largo
+    // chain: posiciones anteriores que se prueban como máximo
+    private static final int[][] LEVELS = {
+            {}, // Sin nivel 0
+            { 4, 4, 8, 4 }, { 4, 5, 16, 8 }, { 4, 6, 32, 32 },
+            { 4, 4, 16, 16 }, { 8, 16, 32, 32 }, { 8, 16, 128, 128 },
+            { 8, 32, 128, 256 }, { 32, 128, 258, 1024 }, { 32, 258, 258, 4096 } };
+
+    static {
+        for (int code = 0; code < LENGTH_BASE.length; code++) {
+            int end = code + 1 < LENGTH_BASE.length ? LENGTH_BASE[code + 1] : MAX_MATCH + 1;
+            for (int length = LENGTH_BASE[code]; length < end; length++) {
+                LENGTH_CODE[length] = (byte) code;
+            }
+        }
+        for (int code = 0; code < DISTANCE_BASE.length; code++) {
+            int end = Math.min(WINDOW_SIZE, DISTANCE_BASE[code] + (1 << DISTANCE_EXTRA[code]) - 1);
+            for (int distance = DISTANCE_BASE[code]; distance <= end; distance++) {
+                DISTANCE_CODE[distance] = (byte) code;
+            }
+        }
+    }
+
+    public static byte[] compress(byte[] data) {
+        return compress(data, DEFAULT_LEVEL);
+    }
+
+    public static byte[] compress(byte[] data, int level) {
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new IllegalArgumentException("Nivel inválido: " + level);
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 3 + 64);
+        try {
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(level);
+            out.writeLong(data.length);
+            Encoder encoder = new Encoder(out, data);
+            MatchFinder finder = new MatchFinder(data, LEVELS[level]);
+            if (level <= 3) {
+                finder.greedy(encoder);
+            } else {
+                finder.lazy(encoder);
+            }
+            encoder.flushBlock();
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // No ocurre al escribir en memoria
+        }
+        return buffer.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] compressed) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(compressed));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no es un archivo comprimido con LZ77");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        in.readUnsignedByte(); // Nivel: solo informativo
+        long originalLength = in.readLong();
+        if (originalLength < 0 || originalLength > Integer.MAX_VALUE - 8) {
+            throw new IOException("El archivo es demasiado grande para descomprimirse en memoria");
+        }
+        // Una coincidencia de hasta MAX_MATCH bytes ocupa al menos 2 bits
+        // (longitud y distancia): una longitud mayor no sale de estos datos
+        if (originalLength > 4L * MAX_MATCH * compressed.length) {
+            throw new IOException("La longitud original no corresponde al tamaño de los datos");
+        }
+        byte[] output = new byte[(int) originalLength];
+        int position = 0;
+        while (position < output.length) {
+            position = decodeBlock(in, output, position);
+        }
+        return output;
+    }
+
+    // Decodifica un bloque a continuación de 'position' y devuelve la nueva posición
+    private static int decodeBlock(DataInputStream in, byte[] output, int position) throws IOException {
+        byte form = in.readByte();
+        if (form == BLOCK_STORED) {
+            int size = in.readInt();
+            if (size < 0 || size > output.length - position) {
+                throw new IOException("Tamaño de bloque inválido: " + size);
+            }
+            in.readFully(output, position, size);
+            return position + size;
+        }
+        if (form != BLOCK_HUFFMAN) {
+            throw new IOException("Forma de bloque desconocida: " + form);
+        }
+        byte[] packed = new byte[TABLE_BYTES];
+        in.readFully(packed);
+        byte[] lengths = CodeLengths.unpack(packed);
+        byte[] literalLengths = Arrays.copyOf(lengths, LITERAL_LENGTH_SYMBOLS);
+        byte[] distanceLengths = Arrays.copyOfRange(lengths, LITERAL_LENGTH_SYMBOLS, lengths.length);
+        HuffmanDecoder literals = decoder(literalLengths);
+        HuffmanDecoder distances = decoder(distanceLengths);
+        int size = in.readInt();
+        if (size < 0 || size > in.available()) {
+            throw new IOException("Tamaño de bloque inválido: " + size);
+        }
+        byte[] bits = new byte[size];
+        in.readFully(bits);
+        if (literals == null) {
+            throw new IOException("Bloque sin códigos de literales");
+        }
+
+        BitReader reader = new BitReader(bits);
+        try {
+            while (true) {
+                int symbol = literals.decodeSymbol(reader);
+                if (symbol < END_OF_BLOCK) {
+                    if (position == output.length) {
+                        throw new IOException("Los datos superan la longitud declarada");
+                    }
+                    output[position++] = (byte) symbol;
+                    continue;
+                }
+                if (symbol == END_OF_BLOCK) {
+                    return position;
+                }
+                int lengthCode = symbol - END_OF_BLOCK - 1;
+                if (lengthCode >= LENGTH_BASE.length || distances == null) {
+                    throw new IOException("Código de longitud inválido: " + symbol);
+                }
+                int length = LENGTH_BASE[lengthCode] + readExtra(reader, LENGTH_EXTRA[lengthCode]);
+                int distanceCode = distances.decodeSymbol(reader);
+                if (distanceCode >= DISTANCE_BASE.length) {
+                    throw new IOException("Código de distancia inválido: " + distanceCode);
+                }
+                int distance = DISTANCE_BASE[distanceCode] + readExtra(reader, DISTANCE_EXTRA[distanceCode]);
+                if (distance > position || length > output.length - position) {
+                    throw new IOException("Coincidencia fuera de los datos");
+                }
+                // Si la coincidencia se superpone con lo que se está copiando se copia byte a byte
+                if (distance >= length) {
+                    System.arraycopy(output, position - distance, output, position, length);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        output[position + i] = output[position - distance + i];
+                    }
+                }
+                position += length;
+            }
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+    }
+
+    private static int readExtra(BitReader reader, int bits) {
+        return bits == 0 ? 0 : reader.read(bits);
+    }
+
+    // Decodificador para un alfabeto, o null si ningún símbolo tiene código
+    private static HuffmanDecoder decoder(byte[] lengths) throws IOException {
+        boolean used = false;
+        for (byte length : lengths) {
+            used |= length > 0;
+        }
+        if (!used) {
+            return null;
+        }
+        HuffmanFormat.checkCodeLengths(lengths);
+        try {
+            return new HuffmanDecoder(Huffman.canonicalCodes(lengths), lengths);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Tabla de Huffman inválida", e);
+        }
+    }
+
+    public static void compressFile(String inputFile, String outputFile, int level) throws IOException {
+        byte[] data = Files.readAllBytes(Paths.get(inputFile));
+        Files.write(Paths.get(outputFile), compress(data, level));
+    }
+
+    public static void decompressFile(String inputFile, String outputFile) throws IOException {
+        byte[] compressed = Files.readAllBytes(Paths.get(inputFile));
+        Files.write(Paths.get(outputFile), decompress(compressed));
+    }
+
+    // Acumula los tokens de un bloque con sus histogramas y lo codifica con
+    // Huffman cuando se llena
+    private static final class Encoder {
+        private final DataOutputStream out;
+        private final byte[] data;
+        private int blockStart; // Primer byte de la entrada que cubre el bloque
+        private int blockBytes; // Bytes de la entrada que cubren los tokens del bloque
+        private final int[] literalOrLength = new int[TOKENS_PER_BLOCK]; // Byte literal o largo de la coincidencia
+        private final int[] distances = new int[TOKENS_PER_BLOCK]; // 0 para los literales
+        private final long[] literalHistogram = new long[LITERAL_LENGTH_SYMBOLS];
+        private final long[] distanceHistogram = new long[DISTANCE_SYMBOLS];
+        private int count;
+
+        Encoder(DataOutputStream out, byte[] data) {
+            this.out = out;
+            this.data = data;
+        }
+
+        void literal(int value) throws IOException {
+            literalOrLength[count] = value;
+            distances[count] = 0;
+            literalHistogram[value]++;
+            blockBytes++;
+            if (++count == TOKENS_PER_BLOCK) {
+                flushBlock();
+            }
+        }
+
+        void match(int length, int distance) throws IOException {
+            literalOrLength[count] = length;
+            distances[count] = distance;
+            literalHistogram[END_OF_BLOCK + 1 + LENGTH_CODE[length]]++;
+            distanceHistogram[DISTANCE_CODE[distance]]++;
+            blockBytes += length;
+            if (++count == TOKENS_PER_BLOCK) {
+                flushBlock();
+            }
+        }
+
+        // Codifica los tokens acumulados como un bloque
+        void flushBlock() throws IOException {
+            literalHistogram[END_OF_BLOCK]++;
+            byte[] literalLengths = Arrays.copyOf(Huffman.codeLengths(literalHistogram, MAX_CODE_LENGTH),
+                    LITERAL_LENGTH_SYMBOLS);
+            byte[] distanceLengths = Arrays.copyOf(Huffman.codeLengths(distanceHistogram, MAX_CODE_LENGTH),
+                    DISTANCE_SYMBOLS);
+            long[] literalCodes = Huffman.canonicalCodes(literalLengths);
+            long[] distanceCodes = Huffman.canonicalCodes(distanceLengths);
+
+            BitWriter writer = new BitWriter(count + 16);
+            for (int i = 0; i < count; i++) {
+                int distance = distances[i];
+                if (distance == 0) {
+                    int literal = literalOrLength[i];
+                    writer.write(literalCodes[literal], literalLengths[literal]);
+                    continue;
+                }
+                // Cada código va seguido de sus bits extra en una sola escritura
+                int length = literalOrLength[i];
+                int lengthCode = LENGTH_CODE[length];
+                int symbol = END_OF_BLOCK + 1 + lengthCode;
+                int extra = LENGTH_EXTRA[lengthCode];
+                writer.write((literalCodes[symbol] << extra) | (length - LENGTH_BASE[lengthCode]),
+                        literalLengths[symbol] + extra);
+                int distanceCode = DISTANCE_CODE[distance];
+                extra = DISTANCE_EXTRA[distanceCode];
+                writer.write((distanceCodes[distanceCode] << extra) | (distance - DISTANCE_BASE[distanceCode]),
+                        distanceLengths[distanceCode] + extra);
+            }
+            writer.write(literalCodes[END_OF_BLOCK], literalLengths[END_OF_BLOCK]);
+            byte[] bits = writer.toByteArray();
+
+            byte[] lengths = Arrays.copyOf(literalLengths, LITERAL_LENGTH_SYMBOLS + DISTANCE_SYMBOLS);
+            System.arraycopy(distanceLengths, 0, lengths, LITERAL_LENGTH_SYMBOLS, DISTANCE_SYMBOLS);
+            // Si los códigos no achican el bloque (datos ya comprimidos) se guarda tal cual
+            if (TABLE_BYTES + bits.length >= blockBytes) {
+                out.writeByte(BLOCK_STORED);
+                out.writeInt(blockBytes);
+                out.write(data, blockStart, blockBytes);
+            } else {
+                out.writeByte(BLOCK_HUFFMAN);
+                out.write(CodeLengths.pack(lengths));
+                out.writeInt(bits.length);
+                out.write(bits);
+            }
+            blockStart += blockBytes;
+            blockBytes = 0;
+
+            count = 0;
+            Arrays.fill(literalHistogram, 0);
+            Arrays.fill(distanceHistogram, 0);
+        }
+    }
+
+    // Buscador de coincidencias con cadenas de hash: 'head' guarda la última
+    // posición de cada hash de 3 bytes y 'previous' la posición anterior con
+    // el mismo hash, para las posiciones de la ventana
+    private static final class MatchFinder {
+        private final byte[] data;
+        private final int good, lazy, nice, chain;
+        private final int[] head = new int[1 << HASH_BITS];
+        private final int[] previous = new int[WINDOW_SIZE];
+        private int matchLength;
+        private int matchDistance;
+
+        MatchFinder(byte[] data, int[] parameters) {
+            this.data = data;
+            this.good = parameters[0];
+            this.lazy = parameters[1];
+            this.nice = parameters[2];
+            this.chain = parameters[3];
+            Arrays.fill(head, -1);
+        }
+
+        // Agrega la posición a su cadena y devuelve la anterior con el mismo hash
+        private int insert(int position) {
+            int hash = (((data[position] & 0xFF) << 16 | (data[position + 1] & 0xFF) << 8
+                    | (data[position + 2] & 0xFF)) * 0x9E3779B1) >>> (32 - HASH_BITS);
+            int candidate = head[hash];
+            previous[position & WINDOW_MASK] = candidate;
+            head[hash] = position;
+            return candidate;
+        }
+
+        // Busca la coincidencia más larga que supere 'bestLength', probando a lo
+        // sumo 'maxChain' posiciones de la cadena. Deja el resultado en
+        // matchLength y matchDistance (matchLength < MIN_MATCH si no hay).
+        private void findMatch(int position, int candidate, int bestLength, int maxChain) {
+            int limit = position - WINDOW_SIZE;
+            int maxLength = Math.min(MAX_MATCH, data.length - position);
+            matchLength = 0;
+            matchDistance = 0;
+            while (candidate > limit && candidate >= 0 && maxChain-- > 0 && bestLength < maxLength) {
+                // Primero el byte que tendría que extender la mejor coincidencia
+                if (data[candidate + bestLength] == data[position + bestLength]
+                        && data[candidate] == data[position]) {
+                    int length = 1;
+                    while (length < maxLength && data[candidate + length] == data[position + length]) {
+                        length++;
+                    }
+                    if (length > bestLength) {
+                        bestLength = length;
+                        matchLength = length;
+                        matchDistance = position - candidate;
+                        if (length >= nice) {
+                            break;
+                        }
+                    }
+                }
+                candidate = previous[candidate & WINDOW_MASK];
+            }
+            if (matchLength == MIN_MATCH && matchDistance > TOO_FAR) {
+                matchLength = 0;
+            }
+        }
+
+        // Niveles rápidos: se toma la primera coincidencia que aparece
+        void greedy(Encoder encoder) throws IOException {
+            int position = 0;
+            int end = data.length;
+            while (position < end) {
+                matchLength = 0;
+                if (position + MIN_MATCH <= end) {
+                    findMatch(position, insert(position), MIN_MATCH - 1, chain);
+                }
+                if (matchLength < MIN_MATCH) {
+                    encoder.literal(data[position] & 0xFF);
+                    position++;
+                    continue;
+                }
+                encoder.match(matchLength, matchDistance);
+                // Las coincidencias largas no se agregan al hash: ahorra tiempo
+                // a cambio de alguna coincidencia futura
+                int matchEnd = position + matchLength;
+                if (matchLength <= lazy) {
+                    for (int p = position + 1; p < matchEnd && p + MIN_MATCH <= end; p++) {
+                        insert(p);
+                    }
+                }
+                position = matchEnd;
+            }
+        }
+
+        // Evaluación perezosa: antes de usar una coincidencia se busca en la
+        // posición siguiente, y si allí hay una más larga se emite un literal
+        void lazy(Encoder encoder) throws IOException {
+            int position = 0;
+            int end = data.length;
+            int previousLength = MIN_MATCH - 1;
+            int previousDistance = 0;
+            boolean pendingLiteral = false; // El byte anterior todavía no se emitió
+            while (position < end) {
+                matchLength = 0;
+                if (position + MIN_MATCH <= end) {
+                    int candidate = insert(position);
+                    if (previousLength < lazy) {
+                        findMatch(position, candidate, previousLength,
+                                previousLength >= good ? chain >> 2 : chain);
+                    }
+                }
+                if (previousLength >= MIN_MATCH && matchLength <= previousLength) {
+                    // La coincidencia del byte anterior es la mejor: se emite
+                    encoder.match(previousLength, previousDistance);
+                    int matchEnd = position - 1 + previousLength;
+                    for (int p = position + 1; p < matchEnd && p + MIN_MATCH <= end; p++) {
+                        insert(p);
+                    }
+                    position = matchEnd;
+                    pendingLiteral = false;
+                    previousLength = MIN_MATCH - 1;
+                    continue;
+                }
+                if (pendingLiteral) {
+                    encoder.literal(data[position - 1] & 0xFF);
+                }
+                pendingLiteral = true;
+                previousLength = Math.max(matchLength, MIN_MATCH - 1);
+                previousDistance = matchDistance;
+                position++;
+            }
+            if (pendingLiteral) {
+                encoder.literal(data[position - 1] & 0xFF);
+            }
+        }
+    }
+}
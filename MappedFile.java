@@ -0,0 +1,71 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Archivo de solo lectura mapeado en memoria de a segmentos de hasta 1 GB
+ * (un MappedByteBuffer no puede pasar de 2 GB). Las lecturas son absolutas,
+ * así que se puede leer desde varios hilos a la vez; después de close
+ * cualquier lectura falla con IOException.
+ */
+public class MappedFile implements Closeable {
+    static final long SEGMENT_SIZE = 1L << 30;
+
+    private final long size;
+    private volatile MappedByteBuffer[] segments; // null después de close
+
+    // Mapea todo el archivo; el mapeo sigue válido después de cerrar el canal
+    public MappedFile(FileChannel channel) throws IOException {
+        this.size = channel.size();
+        MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            long position = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+        }
+        this.segments = segments;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Copia bytes del archivo, pasando de un segmento al siguiente si hace falta
+    public void read(long position, byte[] target, int offset, int length) throws IOException {
+        MappedByteBuffer[] segments = segments(position, length);
+        int done = 0;
+        while (done < length) {
+            long at = position + done;
+            MappedByteBuffer segment = segments[(int) (at / SEGMENT_SIZE)];
+            int index = (int) (at % SEGMENT_SIZE);
+            int count = Math.min(length - done, segment.limit() - index);
+            segment.get(index, target, offset + done, count); // Lectura absoluta: no cambia el estado del buffer
+            done += count;
+        }
+    }
+
+    public byte[] read(long position, int length) throws IOException {
+        segments(position, length); // Valida antes de reservar el arreglo
+        byte[] target = new byte[length];
+        read(position, target, 0, length);
+        return target;
+    }
+
+    // Segmentos mapeados, si el archivo sigue abierto y el rango está dentro de él
+    private MappedByteBuffer[] segments(long position, int length) throws IOException {
+        MappedByteBuffer[] segments = this.segments;
+        if (segments == null) {
+            throw new IOException("Archivo cerrado");
+        }
+        if (position < 0 || length < 0 || position > size - length) {
+            throw new IOException("Lectura fuera del archivo: " + position + "+" + length + " de " + size);
+        }
+        return segments;
+    }
+
+    // El mapeo se libera cuando el recolector descarta los buffers
+    @Override
+    public void close() {
+        segments = null;
+    }
+}
@@ -0,0 +1,323 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Compresión y descompresión de Huffman en paralelo con fork/join.
+ * La entrada se divide en bloques: los histogramas de cada bloque se calculan
+ * en paralelo y se suman, y luego cada bloque se codifica en su propio buffer
+ * de bits. Al final los bloques se copian en paralelo a su posición de bit
+ * dentro del resultado, que tiene el mismo formato que la compresión secuencial.
+ * Las posiciones de bit de los bloques se guardan como índice, de modo que la
+ * descompresión también puede repartir los bloques entre los hilos.
+ * Con compressInterleaved cada bloque se codifica además en cuatro flujos
+ * (FourStreamHuffman), que cada hilo decodifica intercalados.
+ */
+public class ParallelHuffman {
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    // Bits codificados de un bloque
+    static class EncodedBlock {
+        byte[] bytes; // Bits empaquetados (el último byte se completa con ceros)
+        long bitLength; // Cantidad de bits válidos
+
+        EncodedBlock(byte[] bytes, long bitLength) {
+            this.bytes = bytes;
+            this.bitLength = bitLength;
+        }
+    }
+
+    public static Huffman.CompressionResult compress(byte[] data) {
+        return compress(data, Huffman.NO_LENGTH_LIMIT);
+    }
+
+    public static Huffman.CompressionResult compress(byte[] data, int maxCodeLength) {
+        return compress(data, DEFAULT_BLOCK_SIZE, maxCodeLength, ForkJoinPool.commonPool());
+    }
+
+    public static Huffman.CompressionResult compress(byte[] data, int blockSize, int maxCodeLength,
+            ForkJoinPool pool) {
+        return compress(data, blockSize, maxCodeLength, pool, false);
+    }
+
+    // Igual que compress, con cada bloque dividido en cuatro flujos intercalados
+    public static Huffman.CompressionResult compressInterleaved(byte[] data, int maxCodeLength) {
+        return compress(data, DEFAULT_BLOCK_SIZE, maxCodeLength, ForkJoinPool.commonPool(), true);
+    }
+
+    public static Huffman.CompressionResult compress(byte[] data, int blockSize, int maxCodeLength,
+            ForkJoinPool pool, boolean interleaved) {
+        CompressionMetrics metrics = new CompressionMetrics();
+        // Histograma por bloques en paralelo
+        long[] histogram = metrics.time(CompressionMetrics.Stage.HISTOGRAM,
+                () -> pool.invoke(new HistogramTask(data, 0, data.length, blockSize)));
+
+        // El árbol y los códigos se construyen una sola vez
+        byte[] codeLengths = metrics.time(CompressionMetrics.Stage.TREE,
+                () -> Huffman.codeLengths(histogram, maxCodeLength));
+        byte[] lengths = Arrays.copyOf(codeLengths, 256);
+        long[] codes = metrics.time(CompressionMetrics.Stage.TREE, () -> Huffman.canonicalCodes(lengths));
+
+        // Cada bloque se codifica de forma independiente
+        int blockCount = (data.length + blockSize - 1) / blockSize;
+        EncodedBlock[] blocks = new EncodedBlock[blockCount];
+        if (blockCount > 0) {
+            metrics.time(CompressionMetrics.Stage.ENCODE, () -> pool.invoke(
+                    new EncodeTask(data, blockSize, codes, lengths, interleaved, blocks, 0, blockCount)));
+        }
+
+        // Posición de bit de cada bloque dentro del resultado
+        long[] bitOffsets = new long[blockCount + 1];
+        for (int i = 0; i < blockCount; i++) {
+            bitOffsets[i + 1] = bitOffsets[i] + blocks[i].bitLength;
+        }
+        long bitLength = bitOffsets[blockCount];
+        byte[] packedData = new byte[(int) ((bitLength + 7) >>> 3)];
+        metrics.time(CompressionMetrics.Stage.PACK, () -> {
+            if (blockCount > 0) {
+                pool.invoke(new StitchTask(blocks, bitOffsets, packedData, 0, blockCount));
+            }
+
+            // El primer byte de un bloque no alineado es compartido con el final
+            // del bloque anterior: se combina después de que terminan las tareas
+            for (int i = 1; i < blockCount; i++) {
+                int shift = (int) (bitOffsets[i] & 7);
+                if (shift != 0 && blocks[i].bytes.length > 0) {
+                    packedData[(int) (bitOffsets[i] >>> 3)] |= (byte) ((blocks[i].bytes[0] & 0xFF) >>> shift);
+                }
+            }
+        });
+
+        Huffman.CompressionResult result = new Huffman.CompressionResult(packedData, bitLength, data.length,
+                codeLengths, Huffman.toCodeMap(codes, codeLengths),
+                Huffman.calculateCompressionPercentage(data.length, packedData.length), histogram);
+        result.blockSymbols = blockSize;
+        result.blockBitOffsets = Arrays.copyOf(bitOffsets, blockCount);
+        result.interleaved = interleaved;
+        metrics.complete(histogram, bitLength, packedData.length);
+        result.metrics = metrics;
+        return result;
+    }
+
+    public static byte[] decompress(HuffmanFormat.Header header, byte[] packedData) throws IOException {
+        return decompress(header, packedData, ForkJoinPool.commonPool());
+    }
+
+    // Decodifica cada bloque del índice en un hilo, directamente en su
+    // posición del arreglo de salida
+    public static byte[] decompress(HuffmanFormat.Header header, byte[] packedData, ForkJoinPool pool)
+            throws IOException {
+        return decompress(header, packedData, HuffmanFormat.decoder(header.codeLengths), pool);
+    }
+
+    // Igual que el anterior, con un decodificador ya construido para las
+    // longitudes de la cabecera (por ejemplo, tomado de una caché)
+    public static byte[] decompress(HuffmanFormat.Header header, byte[] packedData, HuffmanDecoder decoder)
+            throws IOException {
+        return decompress(header, packedData, decoder, ForkJoinPool.commonPool());
+    }
+
+    public static byte[] decompress(HuffmanFormat.Header header, byte[] packedData, HuffmanDecoder decoder,
+            ForkJoinPool pool) throws IOException {
+        if (header.originalLength > Integer.MAX_VALUE - 8) {
+            throw new IOException("El archivo es demasiado grande para descomprimirse en memoria");
+        }
+        byte[] output = new byte[(int) header.originalLength];
+        decompress(header, packedData, 0, packedData.length, decoder, output, pool);
+        return output;
+    }
+
+    // Decodifica los bits que ocupan packedData[offset, offset + length) en
+    // el principio de 'output', sin copiarlos (por ejemplo, desde el buffer
+    // en el que se recibió el archivo entero)
+    public static void decompress(HuffmanFormat.Header header, byte[] packedData, int offset, int length,
+            HuffmanDecoder decoder, byte[] output, ForkJoinPool pool) throws IOException {
+        HuffmanFormat.checkPayload(header, length);
+        if (header.originalLength > output.length) {
+            throw new IOException("El archivo no cabe en el buffer de salida");
+        }
+        if (header.blockBitOffsets.length > 0) {
+            try {
+                pool.invoke(new DecodeTask(decoder, header, packedData, offset, offset + length, output, 0,
+                        header.blockBitOffsets.length));
+            } catch (IllegalStateException | IndexOutOfBoundsException e) {
+                // Fork/join vuelve a lanzar en este hilo la excepción de la tarea
+                throw new IOException("Datos comprimidos corruptos", e);
+            }
+        }
+    }
+
+    // Calcula el histograma dividiendo el rango hasta llegar al tamaño de bloque
+    private static class HistogramTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] data;
+        private final int from, to, blockSize;
+
+        HistogramTask(byte[] data, int from, int to, int blockSize) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+            this.blockSize = blockSize;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= blockSize) {
+                return Huffman.countBytes(data, from, to);
+            }
+            int middle = from + (to - from) / 2;
+            HistogramTask left = new HistogramTask(data, from, middle, blockSize);
+            left.fork();
+            long[] histogram = new HistogramTask(data, middle, to, blockSize).compute();
+            long[] other = left.join();
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                histogram[symbol] += other[symbol];
+            }
+            return histogram;
+        }
+    }
+
+    // Codifica los bloques [from, to) en buffers independientes
+    private static class EncodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] data;
+        private final int blockSize;
+        private final long[] codes;
+        private final byte[] lengths;
+        private final boolean interleaved;
+        private final EncodedBlock[] blocks;
+        private final int from, to;
+
+        EncodeTask(byte[] data, int blockSize, long[] codes, byte[] lengths, boolean interleaved,
+                EncodedBlock[] blocks, int from, int to) {
+            this.data = data;
+            this.blockSize = blockSize;
+            this.codes = codes;
+            this.lengths = lengths;
+            this.interleaved = interleaved;
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new EncodeTask(data, blockSize, codes, lengths, interleaved, blocks, from, middle),
+                        new EncodeTask(data, blockSize, codes, lengths, interleaved, blocks, middle, to));
+                return;
+            }
+            int start = from * blockSize;
+            int length = Math.min(blockSize, data.length - start);
+            if (interleaved) {
+                // Bloque alineado a byte: los bits válidos son todos los de sus bytes
+                byte[] bytes = FourStreamHuffman.encode(data, start, length, codes, lengths);
+                blocks[from] = new EncodedBlock(bytes, 8L * bytes.length);
+                return;
+            }
+            BitWriter writer = new BitWriter(length / 2 + 16);
+            writer.writeSymbols(data, start, length, codes, lengths);
+            long bitLength = writer.bitLength();
+            blocks[from] = new EncodedBlock(writer.toByteArray(), bitLength);
+        }
+    }
+
+    // Decodifica los bloques [from, to) del índice
+    private static class DecodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final HuffmanDecoder decoder; // Solo lectura: se comparte entre hilos
+        private final HuffmanFormat.Header header;
+        private final byte[] packedData;
+        private final int dataStart, dataEnd; // Bits en packedData[dataStart, dataEnd)
+        private final byte[] output;
+        private final int from, to;
+
+        DecodeTask(HuffmanDecoder decoder, HuffmanFormat.Header header, byte[] packedData, int dataStart,
+                int dataEnd, byte[] output, int from, int to) {
+            this.decoder = decoder;
+            this.header = header;
+            this.packedData = packedData;
+            this.dataStart = dataStart;
+            this.dataEnd = dataEnd;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new DecodeTask(decoder, header, packedData, dataStart, dataEnd, output, from, middle),
+                        new DecodeTask(decoder, header, packedData, dataStart, dataEnd, output, middle, to));
+                return;
+            }
+            long bitOffset = header.blockBitOffsets[from];
+            int outputStart = from * header.blockSymbols;
+            int count = (int) Math.min(header.blockSymbols, header.originalLength - outputStart);
+            int start = dataStart + (int) (bitOffset >>> 3);
+            if (header.interleaved) {
+                int end = from + 1 < header.blockBitOffsets.length
+                        ? dataStart + (int) (header.blockBitOffsets[from + 1] >>> 3)
+                        : dataEnd;
+                FourStreamHuffman.decode(packedData, start, end - start, decoder, output, outputStart, count);
+                return;
+            }
+            BitReader reader = new BitReader(packedData, start, dataEnd - start);
+            reader.refill();
+            reader.skip((int) (bitOffset & 7));
+            decoder.decode(reader, output, outputStart, count);
+        }
+    }
+
+    // Copia los bloques [from, to) a su posición de bit en el resultado. Cada
+    // tarea escribe solo bytes propios; el primer byte de un bloque no
+    // alineado lo completa el hilo principal al final.
+    private static class StitchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final EncodedBlock[] blocks;
+        private final long[] bitOffsets;
+        private final byte[] packedData;
+        private final int from, to;
+
+        StitchTask(EncodedBlock[] blocks, long[] bitOffsets, byte[] packedData, int from, int to) {
+            this.blocks = blocks;
+            this.bitOffsets = bitOffsets;
+            this.packedData = packedData;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new StitchTask(blocks, bitOffsets, packedData, from, middle),
+                        new StitchTask(blocks, bitOffsets, packedData, middle, to));
+                return;
+            }
+            byte[] source = blocks[from].bytes;
+            int start = (int) (bitOffsets[from] >>> 3);
+            int end = (int) ((bitOffsets[from + 1] + 7) >>> 3); // Fin exclusivo en el resultado
+            int shift = (int) (bitOffsets[from] & 7);
+            if (shift == 0) {
+                System.arraycopy(source, 0, packedData, start, end - start);
+                return;
+            }
+            // Cada byte de salida combina el final de un byte de origen con el
+            // principio del siguiente
+            for (int k = 1; start + k < end; k++) {
+                int previous = source[k - 1] & 0xFF;
+                int current = k < source.length ? source[k] & 0xFF : 0;
+                packedData[start + k] = (byte) ((previous << (8 - shift)) | (current >>> shift));
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Acceso aleatorio a archivos .huf con índice de bloques: decompressRange
+ * decodifica solo los bloques que cubren el rango pedido, sin leer el resto
+ * del archivo.
+ * El archivo comprimido se mapea en memoria (ver MappedFile), así que cada
+ * consulta copia únicamente los bytes de sus bloques y el sistema operativo
+ * se encarga de cachear las páginas usadas. El índice y la
+ * tabla de decodificación se cargan una sola vez al abrir el archivo; un
+ * mismo objeto se puede consultar desde varios hilos a la vez.
+ *
+ * Los símbolos son los bytes del archivo original tal cual (en el ADN no se
+ * filtra nada), de modo que las posiciones coinciden con las del original.
+ */
+public class RandomAccessHuffman implements Closeable {
+    // Bloques chicos: una consulta decodifica a lo sumo un bloque de más por
+    // extremo, y el índice ocupa 8 bytes cada 4096 símbolos
+    public static final int DEFAULT_BLOCK_SYMBOLS = 4 * 1024;
+
+    private final HuffmanFormat.Header header;
+    private final HuffmanDecoder decoder;
+    private final MappedFile file;
+    private final long dataStart; // Posición de los bits en el archivo
+
+    private RandomAccessHuffman(HuffmanFormat.Header header, HuffmanDecoder decoder, MappedFile file,
+            long dataStart) {
+        this.header = header;
+        this.decoder = decoder;
+        this.file = file;
+        this.dataStart = dataStart;
+    }
+
+    // Abre un archivo comprimido con índice de bloques
+    public static RandomAccessHuffman open(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            HuffmanFormat.Header header = HuffmanFormat.readHeader(
+                    new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel))));
+            if (!header.hasBlockIndex()) {
+                throw new IOException("El archivo no tiene índice de bloques: hay que comprimirlo con "
+                        + "RandomAccessHuffman.compressFile");
+            }
+            if (header.interleaved) {
+                throw new IOException("El acceso aleatorio no admite bloques de cuatro flujos");
+            }
+            if (header.codeLengths.length > 256) {
+                throw new IOException("El archivo contiene símbolos de más de un byte");
+            }
+            long fileSize = channel.size();
+            long dataStart = HuffmanFormat.headerBytes(header).length;
+            HuffmanFormat.checkPayload(header, fileSize - dataStart);
+            HuffmanDecoder decoder = HuffmanFormat.decoder(header.codeLengths);
+            // El archivo se mapea una vez, al abrirlo
+            return new RandomAccessHuffman(header, decoder, new MappedFile(channel), dataStart);
+        }
+    }
+
+    // Decodifica un rango de un archivo; para muchas consultas conviene abrir
+    // el archivo una sola vez con open
+    public static byte[] decompressRange(String filename, long startSymbol, int length) throws IOException {
+        try (RandomAccessHuffman file = open(filename)) {
+            return file.decompressRange(startSymbol, length);
+        }
+    }
+
+    // Cantidad de símbolos del archivo original
+    public long length() {
+        return header.originalLength;
+    }
+
+    // Tipo de contenido (HuffmanFormat.TYPE_*)
+    public byte type() {
+        return header.type;
+    }
+
+    // Decodifica los símbolos [startSymbol, startSymbol + length)
+    public byte[] decompressRange(long startSymbol, int length) throws IOException {
+        if (startSymbol < 0 || length < 0 || startSymbol + length > header.originalLength) {
+            throw new IllegalArgumentException("Rango fuera del archivo: " + startSymbol + "+" + length + " de "
+                    + header.originalLength);
+        }
+        if (length == 0) {
+            return new byte[0];
+        }
+        long blockSymbols = header.blockSymbols;
+        int firstBlock = (int) (startSymbol / blockSymbols);
+        int lastBlock = (int) ((startSymbol + length - 1) / blockSymbols);
+        long firstSymbol = firstBlock * blockSymbols;
+        // Se decodifica desde el inicio del primer bloque: el rango más lo
+        // salteado tiene que caber en un arreglo
+        long decoded = startSymbol - firstSymbol + length;
+        if (decoded > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Rango demasiado grande: " + length + " símbolos");
+        }
+        long bitStart = header.blockBitOffsets[firstBlock];
+        long dataBytes = file.size() - dataStart;
+        long byteEnd = lastBlock + 1 < header.blockBitOffsets.length
+                ? (header.blockBitOffsets[lastBlock + 1] + 7) >>> 3
+                : dataBytes;
+        long byteStart = bitStart >>> 3;
+        if (byteStart > byteEnd || byteEnd > dataBytes || byteEnd - byteStart > Integer.MAX_VALUE - 8) {
+            throw new IOException("Índice de bloques inválido");
+        }
+
+        // Solo se copian los bytes de los bloques del rango
+        byte[] packed = file.read(dataStart + byteStart, (int) (byteEnd - byteStart));
+        BitReader reader = new BitReader(packed);
+        reader.refill();
+        reader.skip((int) (bitStart & 7));
+        int skipped = (int) (startSymbol - firstSymbol);
+        byte[] output = new byte[(int) decoded];
+        try {
+            decoder.decode(reader, output, 0, output.length);
+        } catch (IllegalStateException e) {
+            throw new IOException("Datos comprimidos corruptos", e);
+        }
+        return skipped == 0 ? output : Arrays.copyOfRange(output, skipped, output.length);
+    }
+
+    @Override
+    public void close() {
+        file.close();
+    }
+
+    public static void compressFile(String inputFile, String outputFile, byte type) throws IOException {
+        compressFile(inputFile, outputFile, type, Huffman.NO_LENGTH_LIMIT, DEFAULT_BLOCK_SYMBOLS);
+    }
+
+    // Comprime un archivo en flujo con índice de bloques, en tres pasadas:
+    // histograma, bits de cada bloque (para escribir el índice en la cabecera)
+    // y codificación. La memoria usada depende solo de la cantidad de bloques.
+    public static void compressFile(String inputFile, String outputFile, byte type, int maxCodeLength,
+            int blockSymbols) throws IOException {
+        if (blockSymbols <= 0) {
+            throw new IllegalArgumentException("Tamaño de bloque inválido: " + blockSymbols);
+        }
+        long[] histogram;
+        try (InputStream in = new FileInputStream(inputFile)) {
+            histogram = HuffmanFormat.histogram(in);
+        }
+        long originalLength = 0;
+        for (long count : histogram) {
+            originalLength += count;
+        }
+        byte[] codeLengths = Huffman.codeLengths(histogram, maxCodeLength);
+        byte[] lengths = Arrays.copyOf(codeLengths, 256);
+
+        long blockCount = (originalLength + blockSymbols - 1) / blockSymbols;
+        if (blockCount > Integer.MAX_VALUE - 8) {
+            throw new IOException("Demasiados bloques para el índice");
+        }
+        long[] blockBitOffsets = new long[(int) blockCount];
+        try (InputStream in = new FileInputStream(inputFile)) {
+            byte[] block = new byte[(int) Math.min(blockSymbols, Math.max(1, originalLength))];
+            long bitOffset = 0;
+            for (int i = 0; i < blockCount; i++) {
+                blockBitOffsets[i] = bitOffset;
+                int size = (int) Math.min(blockSymbols, originalLength - (long) i * blockSymbols);
+                int read = in.readNBytes(block, 0, size);
+                for (int k = 0; k < read; k++) {
+                    bitOffset += lengths[block[k] & 0xFF];
+                }
+            }
+        }
+
+        HuffmanFormat.Header header = new HuffmanFormat.Header(type, originalLength, codeLengths, blockSymbols,
+                blockBitOffsets);
+        try (InputStream in = new FileInputStream(inputFile);
+                HuffmanOutputStream out = new HuffmanOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(outputFile), HuffmanFormat.STREAM_BUFFER_SIZE),
+                        header)) {
+            in.transferTo(out);
+        }
+    }
+}
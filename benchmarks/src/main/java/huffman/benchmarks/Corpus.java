@@ -0,0 +1,81 @@
+package huffman.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Corpus sintéticos y reproducibles para los benchmarks. Cada byte es un
+ * carácter ISO-8859-1, igual que cuando CompressMain lee un archivo.
+ */
+final class Corpus {
+    private static final String[] WORDS = { "de", "la", "que", "el", "en", "y", "a", "los", "se", "del", "las",
+            "un", "por", "con", "no", "una", "su", "para", "es", "al", "compresión", "árbol", "código", "Huffman",
+            "frecuencia", "símbolo", "datos", "archivo", "texto", "imagen" };
+
+    private Corpus() {
+    }
+
+    static String generate(String kind, int size) {
+        Random random = new Random(42);
+        byte[] data = new byte[size];
+        switch (kind) {
+            case "text":
+                text(random, data);
+                break;
+            case "dna":
+                dna(random, data);
+                break;
+            case "image":
+                image(random, data);
+                break;
+            default:
+                throw new IllegalArgumentException("Corpus desconocido: " + kind);
+        }
+        return new String(data, StandardCharsets.ISO_8859_1);
+    }
+
+    // Palabras con distribución de Zipf, puntuación y saltos de línea
+    private static void text(Random random, byte[] data) {
+        int i = 0;
+        while (i < data.length) {
+            int rank = (int) Math.exp(random.nextDouble() * Math.log(WORDS.length)) - 1;
+            byte[] word = WORDS[rank].getBytes(StandardCharsets.ISO_8859_1);
+            for (int j = 0; j < word.length && i < data.length; j++) {
+                data[i++] = word[j];
+            }
+            if (i < data.length) {
+                int separator = random.nextInt(20);
+                data[i++] = (byte) (separator == 0 ? '\n' : separator == 1 ? ',' : separator == 2 ? '.' : ' ');
+            }
+        }
+    }
+
+    // Bases con sesgo de GC, líneas de 60 caracteres y secuencias de N
+    private static void dna(Random random, byte[] data) {
+        byte[] bases = { 'A', 'C', 'G', 'T', 'C', 'G' };
+        for (int i = 0; i < data.length; i++) {
+            if (i % 61 == 60) {
+                data[i] = '\n';
+            } else if (random.nextInt(5000) == 0) {
+                int run = Math.min(data.length - i, 20 + random.nextInt(100));
+                for (int j = 0; j < run && i < data.length; j++, i++) {
+                    data[i] = 'N';
+                }
+                i--;
+            } else {
+                data[i] = bases[random.nextInt(bases.length)];
+            }
+        }
+    }
+
+    // Niveles de gris de un degradado suave con ruido, fila por fila
+    private static void image(Random random, byte[] data) {
+        int width = 512;
+        for (int i = 0; i < data.length; i++) {
+            int x = i % width;
+            int y = i / width;
+            double value = 128 + 80 * Math.sin(x / 37.0) * Math.cos(y / 23.0) + random.nextGaussian() * 4;
+            data[i] = (byte) Math.max(0, Math.min(255, (int) value));
+        }
+    }
+}
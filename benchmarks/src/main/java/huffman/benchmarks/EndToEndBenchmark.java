@@ -0,0 +1,67 @@
+package huffman.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la compresión y la descompresión completas de cada tipo de contenido,
+ * con los mismos corpus y tamaños que StageBenchmark.
+ * Los tamaños grandes pasan por la compresión en paralelo de ParallelHuffman.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+    // Longitud máxima de código que usa CompressMain
+    private static final int MAX_CODE_LENGTH = 15;
+
+    @Param({ "text", "dna", "image" })
+    public String corpus;
+
+    @Param({ "1024", "65536", "1048576", "16777216" })
+    public int size;
+
+    private String data;
+    private MethodHandle compress;
+    private Object result;
+
+    @Setup
+    public void setup() throws Throwable {
+        data = Corpus.generate(corpus, size);
+        compress = corpus.equals("text") ? Engine.COMPRESS_TEXT
+                : corpus.equals("dna") ? Engine.COMPRESS_DNA : Engine.COMPRESS_IMAGE;
+        result = (Object) compress.invokeExact(data, MAX_CODE_LENGTH);
+    }
+
+    @Benchmark
+    public Object compress(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (Object) compress.invokeExact(data, MAX_CODE_LENGTH);
+    }
+
+    @Benchmark
+    public String decompress(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (String) Engine.DECODE_RESULT.invokeExact(result);
+    }
+
+    @Benchmark
+    public String roundTrip(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (String) Engine.DECODE_RESULT.invokeExact((Object) compress.invokeExact(data, MAX_CODE_LENGTH));
+    }
+}
@@ -0,0 +1,89 @@
+package huffman.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+/**
+ * Acceso a las clases del compresor, que están en el paquete por defecto y
+ * por lo tanto no se pueden importar desde un paquete con nombre (JMH exige
+ * uno). Cada método se resuelve una sola vez como MethodHandle constante,
+ * que el JIT invoca igual que una llamada directa.
+ */
+final class Engine {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    static final MethodHandle CALCULATE_FREQUENCIES;
+    static final MethodHandle BUILD_TREE;
+    static final MethodHandle GENERATE_CODES;
+    static final MethodHandle CODE_LENGTHS;
+    static final MethodHandle CANONICAL_CODES;
+    static final MethodHandle ENCODE;
+    static final MethodHandle ENCODE_PACKED;
+    static final MethodHandle TO_BYTE_ARRAY;
+    static final MethodHandle SUBDIVIDE_AND_SYMBOLIZE;
+    static final MethodHandle DECODER_FROM_LENGTHS;
+    static final MethodHandle DECODE_TO_STRING;
+    static final MethodHandle DECODE_TREE;
+    static final MethodHandle COMPRESS_TEXT;
+    static final MethodHandle COMPRESS_DNA;
+    static final MethodHandle COMPRESS_IMAGE;
+    static final MethodHandle DECODE_RESULT;
+
+    static {
+        try {
+            Class<?> huffman = Class.forName("Huffman");
+            Class<?> node = Class.forName("Huffman$Node");
+            Class<?> result = Class.forName("Huffman$CompressionResult");
+            Class<?> bitWriter = Class.forName("BitWriter");
+            Class<?> decoder = Class.forName("HuffmanDecoder");
+
+            CALCULATE_FREQUENCIES = find(huffman, "calculateFrequencies",
+                    MethodType.methodType(long[].class, String.class), String.class);
+            BUILD_TREE = find(huffman, "buildTree", MethodType.methodType(Object.class, long[].class), long[].class);
+            GENERATE_CODES = find(huffman, "generateCodes", MethodType.methodType(Map.class, Object.class), node);
+            CODE_LENGTHS = find(huffman, "codeLengths", MethodType.methodType(byte[].class, long[].class, int.class),
+                    long[].class, int.class);
+            CANONICAL_CODES = find(huffman, "canonicalCodes", MethodType.methodType(long[].class, byte[].class),
+                    byte[].class);
+            ENCODE = find(huffman, "encode", MethodType.methodType(String.class, String.class, Map.class),
+                    String.class, Map.class);
+            ENCODE_PACKED = find(huffman, "encodePacked",
+                    MethodType.methodType(Object.class, String.class, long[].class, byte[].class), String.class,
+                    long[].class, byte[].class);
+            TO_BYTE_ARRAY = find(bitWriter, "toByteArray", MethodType.methodType(byte[].class, Object.class));
+            SUBDIVIDE_AND_SYMBOLIZE = find(huffman, "subdivideAndSymbolize",
+                    MethodType.methodType(String.class, String.class), String.class);
+            DECODER_FROM_LENGTHS = find(decoder, "fromLengths", MethodType.methodType(Object.class, byte[].class),
+                    byte[].class);
+            DECODE_TO_STRING = find(decoder, "decodeToString",
+                    MethodType.methodType(String.class, Object.class, byte[].class, int.class), byte[].class,
+                    int.class);
+            DECODE_TREE = find(huffman, "decode", MethodType.methodType(String.class, Object.class, String.class),
+                    node, String.class);
+            COMPRESS_TEXT = find(huffman, "compressText", MethodType.methodType(Object.class, String.class, int.class),
+                    String.class, int.class);
+            COMPRESS_DNA = find(huffman, "compressDNA", MethodType.methodType(Object.class, String.class, int.class),
+                    String.class, int.class);
+            COMPRESS_IMAGE = find(huffman, "compressGrayscaleImage",
+                    MethodType.methodType(Object.class, String.class, int.class), String.class, int.class);
+            DECODE_RESULT = find(huffman, "decode", MethodType.methodType(String.class, Object.class), result);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Engine() {
+    }
+
+    // Busca el método (aunque no sea público) y lo adapta al tipo indicado,
+    // con Object en lugar de las clases que no son accesibles desde aquí
+    private static MethodHandle find(Class<?> owner, String name, MethodType type, Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        Method method = owner.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return LOOKUP.unreflect(method).asType(type);
+    }
+}
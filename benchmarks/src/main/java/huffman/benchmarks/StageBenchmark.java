@@ -0,0 +1,124 @@
+package huffman.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide por separado cada etapa de la compresión y la descompresión, sobre
+ * corpus de texto, ADN e imagen de varios tamaños. Las entradas de cada
+ * etapa se preparan en el setup con las etapas anteriores, de modo que cada
+ * benchmark mide solo su propio trabajo.
+ *
+ * Ejecutar con "-prof gc" para ver la tasa de asignación de memoria.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StageBenchmark {
+    // Sin límite de longitud de código (Huffman.NO_LENGTH_LIMIT)
+    private static final int NO_LENGTH_LIMIT = 0;
+
+    @Param({ "text", "dna", "image" })
+    public String corpus;
+
+    @Param({ "1024", "65536", "1048576" })
+    public int size;
+
+    private String data;
+    private long[] frequencies;
+    private Object tree;
+    private Map<?, ?> huffmanCodes;
+    private byte[] codeLengths;
+    private long[] codes;
+    private String bitString; // Texto codificado como cadena de '0' y '1'
+    private byte[] packedData;
+    private Object decoder;
+
+    @Setup
+    public void setup() throws Throwable {
+        data = Corpus.generate(corpus, size);
+        frequencies = (long[]) Engine.CALCULATE_FREQUENCIES.invokeExact(data);
+        tree = (Object) Engine.BUILD_TREE.invokeExact(frequencies);
+        huffmanCodes = (Map<?, ?>) Engine.GENERATE_CODES.invokeExact(tree);
+        codeLengths = (byte[]) Engine.CODE_LENGTHS.invokeExact(frequencies, NO_LENGTH_LIMIT);
+        codes = (long[]) Engine.CANONICAL_CODES.invokeExact(codeLengths);
+        bitString = (String) Engine.ENCODE.invokeExact(data, huffmanCodes);
+        packedData = (byte[]) Engine.TO_BYTE_ARRAY.invokeExact((Object) Engine.ENCODE_PACKED.invokeExact(data,
+                codes, codeLengths));
+        decoder = (Object) Engine.DECODER_FROM_LENGTHS.invokeExact(codeLengths);
+    }
+
+    @Benchmark
+    public long[] calculateFrequencies(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (long[]) Engine.CALCULATE_FREQUENCIES.invokeExact(data);
+    }
+
+    @Benchmark
+    public Object buildTree(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (Object) Engine.BUILD_TREE.invokeExact(frequencies);
+    }
+
+    // Longitudes de código sin nodos (lo que usa la compresión)
+    @Benchmark
+    public byte[] codeLengths(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (byte[]) Engine.CODE_LENGTHS.invokeExact(frequencies, NO_LENGTH_LIMIT);
+    }
+
+    @Benchmark
+    public Map<?, ?> generateCodes(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (Map<?, ?>) Engine.GENERATE_CODES.invokeExact(tree);
+    }
+
+    // Codificación a bits empaquetados con las tablas canónicas
+    @Benchmark
+    public byte[] encode(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (byte[]) Engine.TO_BYTE_ARRAY.invokeExact((Object) Engine.ENCODE_PACKED.invokeExact(data, codes,
+                codeLengths));
+    }
+
+    // Codificación original, a una cadena de '0' y '1'
+    @Benchmark
+    public String encodeToBitString(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (String) Engine.ENCODE.invokeExact(data, huffmanCodes);
+    }
+
+    @Benchmark
+    public String subdivideAndSymbolize(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (String) Engine.SUBDIVIDE_AND_SYMBOLIZE.invokeExact(bitString);
+    }
+
+    // Decodificación con tablas de búsqueda
+    @Benchmark
+    public String decode(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (String) Engine.DECODE_TO_STRING.invokeExact(decoder, packedData, size);
+    }
+
+    // Decodificación original, recorriendo el árbol bit a bit
+    @Benchmark
+    public String decodeWithTree(ProcessedBytes processed) throws Throwable {
+        processed.bytes += size;
+        return (String) Engine.DECODE_TREE.invokeExact(tree, bitString);
+    }
+}
@@ -0,0 +1,96 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * El flujo adaptativo comprime en una pasada, y después de flush el lector
+ * puede decodificar todo lo escrito sin esperar más datos ni el cierre.
+ */
+class AdaptiveHuffmanStreamTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void roundTrip(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        assertArrayEquals(data, decompress(compress(data, AdaptiveHuffmanModel.DEFAULT_REBUILD_INTERVAL)));
+    }
+
+    @ParameterizedTest(name = "reconstrucción cada {0} símbolos")
+    @ValueSource(ints = { 1, 100, 100_000 })
+    void modelRebuildsMatchOnBothSides(int rebuildInterval) throws IOException {
+        byte[] data = TestData.randomText(rebuildInterval == 1 ? 5_000 : 200_000, 6);
+        assertArrayEquals(data, decompress(compress(data, rebuildInterval)));
+    }
+
+    @Test
+    void flushMakesEverythingWrittenDecodable() throws IOException {
+        byte[] first = TestData.randomText(1_000, 7);
+        byte[] second = TestData.randomText(50, 8);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        AdaptiveHuffmanOutputStream out = new AdaptiveHuffmanOutputStream(buffer, HuffmanFormat.TYPE_TEXT);
+        int headerSize = buffer.size();
+        out.write(first);
+        // Sin flush los símbolos siguen en la trama abierta
+        assertEquals(headerSize, buffer.size());
+        out.flush();
+        assertArrayEquals(first, readPrefix(buffer.toByteArray(), first.length));
+
+        out.write(second);
+        out.flush();
+        byte[] both = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, both, first.length, second.length);
+        assertArrayEquals(both, readPrefix(buffer.toByteArray(), both.length));
+        out.close();
+        assertArrayEquals(both, decompress(buffer.toByteArray()));
+    }
+
+    @Test
+    void writingAfterCloseFails() throws IOException {
+        AdaptiveHuffmanOutputStream out = new AdaptiveHuffmanOutputStream(new ByteArrayOutputStream(),
+                HuffmanFormat.TYPE_TEXT);
+        out.close();
+        assertThrows(IOException.class, () -> out.write(1));
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        TestData.assertDamageReported(compress(TestData.randomText(20_000, 5), 1_000),
+                AdaptiveHuffmanStreamTest::decompress);
+    }
+
+    private static byte[] compress(byte[] data, int rebuildInterval) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (AdaptiveHuffmanOutputStream out = new AdaptiveHuffmanOutputStream(buffer, HuffmanFormat.TYPE_TEXT,
+                rebuildInterval)) {
+            out.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        try (AdaptiveHuffmanInputStream in = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    // Lee los primeros bytes de un flujo todavía abierto (sin marca de fin)
+    private static byte[] readPrefix(byte[] compressed, int length) throws IOException {
+        AdaptiveHuffmanInputStream in = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(compressed));
+        return in.readNBytes(length);
+    }
+}
@@ -0,0 +1,125 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Cada actualización comprime solo lo agregado al original, reutiliza la
+ * tabla mientras la distribución no cambie y deja el archivo legible aunque
+ * una actualización quede a medias.
+ */
+class AppendableHuffmanTest {
+    private static final int BLOCK_SIZE = 8 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private Path original;
+    private Path compressed;
+
+    @BeforeEach
+    void paths() {
+        original = directory.resolve("registro.log");
+        compressed = directory.resolve("registro.log.hapn");
+    }
+
+    @Test
+    void updatesCompressOnlyWhatWasAppended() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int round = 0; round < 3; round++) {
+            byte[] appended = TestData.randomText(30_000 + round, round);
+            Files.write(original, appended, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            expected.write(appended);
+            assertEquals(appended.length, update());
+            assertArrayEquals(expected.toByteArray(), decompressFile());
+            assertArrayEquals(expected.toByteArray(), AppendableHuffman.decompress(Files.readAllBytes(compressed)));
+        }
+        assertEquals(0, update());
+        assertTrue(AppendableHuffman.isAppendable(compressed.toString()));
+        assertFalse(AppendableHuffman.isAppendable(original.toString()));
+    }
+
+    @Test
+    void stableDistributionKeepsOneTable() throws IOException {
+        byte[] data = TestData.randomText(20 * BLOCK_SIZE, 1);
+        Files.write(original, data);
+        update();
+        // Una tabla nueva por bloque costaría 128 bytes en cada uno
+        long oneTable = HuffmanEstimator.exact(data, 15).compressedBytes + 20 * (1 + 4 + 4 + 8 + 4) + 64;
+        assertTrue(Files.size(compressed) < oneTable, Files.size(compressed) + " contra " + oneTable);
+    }
+
+    @Test
+    void driftingDistributionGetsAFreshTable() throws IOException {
+        Files.write(original, TestData.randomText(4 * BLOCK_SIZE, 2));
+        update();
+        long before = Files.size(compressed);
+        // Bases de ADN: con la tabla del texto costarían mucho más que 2 bits
+        byte[] dna = new byte[4 * BLOCK_SIZE];
+        byte[] random = TestData.randomBytes(dna.length, 3);
+        for (int i = 0; i < dna.length; i++) {
+            dna[i] = (byte) "ACGT".charAt(random[i] & 3);
+        }
+        Files.write(original, dna, StandardOpenOption.APPEND);
+        update();
+        long added = Files.size(compressed) - before;
+        assertTrue(added < dna.length / 4 + 128 + 200, added + " bytes");
+        assertArrayEquals(Files.readAllBytes(original), decompressFile());
+    }
+
+    @Test
+    void interruptedUpdatesAreDiscarded() throws IOException {
+        byte[] first = TestData.randomText(20_000, 4);
+        Files.write(original, first);
+        update();
+        // Bytes escritos después de lo confirmado, como los de un proceso cortado
+        Files.write(compressed, TestData.randomBytes(5_000, 5), StandardOpenOption.APPEND);
+        assertArrayEquals(first, decompressFile());
+
+        Files.write(original, TestData.randomText(10_000, 6), StandardOpenOption.APPEND);
+        update();
+        assertArrayEquals(Files.readAllBytes(original), decompressFile());
+    }
+
+    @Test
+    void invalidUpdatesAreRejected() throws IOException {
+        Files.write(original, TestData.randomText(10_000, 7));
+        update();
+        assertThrows(IOException.class, () -> AppendableHuffman.update(original.toString(), compressed.toString(),
+                HuffmanFormat.TYPE_DNA));
+        Files.write(original, TestData.randomText(100, 7));
+        assertThrows(IOException.class, this::update);
+        assertThrows(IOException.class, () -> AppendableHuffman.decompressFile(compressed.toString(),
+                directory.resolve("salida").toString(), HuffmanFormat.TYPE_DNA));
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        Files.write(original, TestData.randomText(20_000, 8));
+        update();
+        Files.write(original, TestData.randomText(5_000, 9), StandardOpenOption.APPEND);
+        update();
+        TestData.assertDamageReported(Files.readAllBytes(compressed), AppendableHuffman::decompress);
+    }
+
+    private long update() throws IOException {
+        return AppendableHuffman.update(original.toString(), compressed.toString(), HuffmanFormat.TYPE_TEXT,
+                BLOCK_SIZE, AppendableHuffman.DEFAULT_DRIFT_THRESHOLD);
+    }
+
+    private byte[] decompressFile() throws IOException {
+        Path output = directory.resolve("salida");
+        AppendableHuffman.decompressFile(compressed.toString(), output.toString(), HuffmanFormat.TYPE_TEXT);
+        return Files.readAllBytes(output);
+    }
+}
@@ -0,0 +1,111 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * El modo por bloques guarda tal cual lo que Huffman no achicaría, reutiliza
+ * la tabla vigente en los bloques parecidos y rechaza las cabeceras que
+ * declaran más datos de los que puede haber en el archivo.
+ */
+class BlockCompressorTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+    private static final int BLOCK_SIZE = 16 * 1024;
+
+    @TempDir
+    Path directory;
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void roundTrip(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        assertArrayEquals(data, BlockCompressor.decompress(BlockCompressor.compress(data)));
+    }
+
+    @Test
+    void randomBlocksAreStoredRaw() throws IOException {
+        byte[] data = TestData.randomBytes(20 * BLOCK_SIZE, 1);
+        byte[] compressed = BlockCompressor.compress(data, BLOCK_SIZE, ForkJoinPool.commonPool());
+        // Cada bloque cuesta su modo y su tamaño además de los bytes
+        assertTrue(compressed.length <= data.length + 20 * 5 + 17, compressed.length + " bytes");
+        assertArrayEquals(data, BlockCompressor.decompress(compressed));
+    }
+
+    @Test
+    void similarBlocksReuseTheTable() throws IOException {
+        byte[] data = TestData.randomText(40 * BLOCK_SIZE, 2);
+        byte[] compressed = BlockCompressor.compress(data, BLOCK_SIZE, ForkJoinPool.commonPool());
+        // Con una tabla nueva por bloque serían 128 bytes de longitudes cada uno
+        long fresh = TestData.huffmanFileSize(data) + 40L * 128;
+        assertTrue(compressed.length < fresh - 30L * 128, compressed.length + " bytes");
+        assertArrayEquals(data, BlockCompressor.decompress(compressed));
+    }
+
+    @Test
+    void mixedContentRoundTrip() throws IOException {
+        ByteArrayOutputStream mixed = new ByteArrayOutputStream();
+        for (int part = 0; part < 6; part++) {
+            mixed.write(part % 2 == 0 ? TestData.randomText(3 * BLOCK_SIZE + 17, part)
+                    : TestData.randomBytes(2 * BLOCK_SIZE - 5, part));
+        }
+        byte[] data = mixed.toByteArray();
+        assertArrayEquals(data,
+                BlockCompressor.decompress(BlockCompressor.compress(data, BLOCK_SIZE, ForkJoinPool.commonPool())));
+    }
+
+    @Test
+    void fileRoundTrip() throws IOException {
+        byte[] data = TestData.randomText(1_000_000, 3);
+        Path input = Files.write(directory.resolve("entrada"), data);
+        Path compressed = directory.resolve("salida.hblk");
+        Path restored = directory.resolve("restaurado");
+        BlockCompressor.compressFile(input.toString(), compressed.toString());
+        BlockCompressor.decompressFile(compressed.toString(), restored.toString());
+        assertArrayEquals(data, Files.readAllBytes(restored));
+    }
+
+    @Test
+    void headerLengthsAreBoundedByTheFile() throws IOException {
+        // Una cabecera de 27 bytes que declara 1 TB de datos
+        assertThrows(IOException.class, () -> BlockCompressor.decompress(header(1 << 20, 1L << 40, 10)));
+        // Bloques más grandes que el máximo
+        assertThrows(IOException.class,
+                () -> BlockCompressor.decompress(header(BlockCompressor.MAX_BLOCK_SIZE + 1, 100, 100)));
+        assertThrows(IllegalArgumentException.class,
+                () -> BlockCompressor.compress(new byte[1], BlockCompressor.MAX_BLOCK_SIZE + 1,
+                        ForkJoinPool.commonPool()));
+    }
+
+    @Test
+    void damageIsReported() {
+        TestData.assertDamageReported(
+                BlockCompressor.compress(TestData.randomText(20_000, 5), 4096, ForkJoinPool.commonPool()),
+                BlockCompressor::decompress);
+    }
+
+    private static byte[] header(int blockSize, long originalLength, int padding) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(BlockCompressor.MAGIC);
+        out.writeByte(BlockCompressor.VERSION);
+        out.writeInt(blockSize);
+        out.writeLong(originalLength);
+        out.write(new byte[padding]);
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,73 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * El constructor sin nodos da las mismas longitudes que el árbol de nodos:
+ * idénticas cuando no hay empates entre pesos, y del mismo costo cuando los
+ * hay (los empates admiten varios árboles óptimos).
+ */
+class CodeLengthBuilderTest {
+
+    @Test
+    void sameLengthsAsTheTreeWithoutTies() {
+        Random random = new Random(9);
+        CodeLengthBuilder builder = new CodeLengthBuilder();
+        for (int attempt = 0; attempt < 200; attempt++) {
+            // Pesos de 40 bits al azar: los empates son prácticamente imposibles
+            long[] histogram = new long[1 + random.nextInt(256)];
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                histogram[symbol] = random.nextInt(4) == 0 ? 0 : 1 + (random.nextLong() >>> 24);
+            }
+            assertArrayEquals(treeLengths(histogram), builder.codeLengths(histogram));
+        }
+    }
+
+    @Test
+    void sameCostAsTheTreeWithTies() {
+        Random random = new Random(10);
+        CodeLengthBuilder builder = new CodeLengthBuilder();
+        for (int attempt = 0; attempt < 200; attempt++) {
+            long[] histogram = new long[1 + random.nextInt(256)];
+            for (int symbol = 0; symbol < histogram.length; symbol++) {
+                histogram[symbol] = random.nextInt(4);
+            }
+            assertEquals(cost(histogram, treeLengths(histogram)), cost(histogram, builder.codeLengths(histogram)));
+        }
+    }
+
+    @Test
+    void frequenciesTooLargeToPackUseTheTree() {
+        long[] histogram = { 1L << 60, 3, 1L << 58, 5 };
+        assertArrayEquals(treeLengths(histogram), new CodeLengthBuilder().codeLengths(histogram));
+    }
+
+    @Test
+    void singleSymbolGetsOneBit() {
+        assertArrayEquals(new byte[] { 0, 0, 1 }, new CodeLengthBuilder().codeLengths(new long[] { 0, 0, 7 }));
+    }
+
+    // Longitudes del árbol de nodos, del mismo tamaño que las del constructor
+    private static byte[] treeLengths(long[] histogram) {
+        int size = histogram.length;
+        while (size > 0 && histogram[size - 1] == 0) {
+            size--;
+        }
+        byte[] lengths = new byte[size];
+        if (size > 0) {
+            byte[] tree = Huffman.codeLengths(Huffman.buildTree(histogram));
+            System.arraycopy(tree, 0, lengths, 0, tree.length);
+        }
+        return lengths;
+    }
+
+    private static long cost(long[] histogram, byte[] lengths) {
+        long cost = 0;
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            cost += histogram[symbol] * lengths[symbol];
+        }
+        return cost;
+    }
+}
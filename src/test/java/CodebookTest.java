@@ -0,0 +1,98 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Los registros comprimidos con un codebook llevan solo el identificador y la
+ * longitud; la caché conserva los codebooks usados más recientemente.
+ */
+class CodebookTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+    private static final Codebook CODEBOOK = Codebook.train(7, List.of(TestData.randomText(64 * 1024, 3)));
+
+    @TempDir
+    Path directory;
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void roundTrip(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        assertArrayEquals(data, CODEBOOK.decompress(CODEBOOK.compress(data)));
+    }
+
+    @Test
+    void smallRecordsHaveNoTable() {
+        byte[] record = CODEBOOK.compress("hola".getBytes(StandardCharsets.US_ASCII));
+        // Identificador, longitud y a lo sumo 15 bits por símbolo
+        assertTrue(record.length <= 2 + 8, record.length + " bytes");
+    }
+
+    @Test
+    void savedCodebookLoadsWithTheSameTable() throws IOException {
+        CODEBOOK.save(directory);
+        Codebook loaded = Codebook.load(directory, 7);
+        assertArrayEquals(CODEBOOK.lengths(), loaded.lengths());
+        assertThrows(IOException.class, () -> Codebook.load(directory, 8));
+    }
+
+    @Test
+    void cacheEvictsTheLeastRecentlyUsed() throws IOException {
+        CodebookCache cache = new CodebookCache(directory, 2);
+        Codebook first = Codebook.train(1, new long[] { 5, 1 }, 15);
+        Codebook second = Codebook.train(2, new long[] { 1, 5 }, 15);
+        Codebook third = Codebook.train(3, new long[] { 5, 5 }, 15);
+        cache.put(first);
+        cache.put(second);
+        assertSame(first, cache.get(1)); // El 2 pasa a ser el menos usado
+        cache.put(third);
+        assertEquals(2, cache.size());
+
+        // Sin los archivos, solo los codebooks en caché siguen disponibles
+        for (int id = 1; id <= 3; id++) {
+            Files.delete(Codebook.path(directory, id));
+        }
+        assertSame(first, cache.get(1));
+        assertSame(third, cache.get(3));
+        assertThrows(IOException.class, () -> cache.get(2));
+    }
+
+    @Test
+    void cacheDecompressesWithTheRecordCodebook() throws IOException {
+        CodebookCache cache = new CodebookCache(directory);
+        cache.put(CODEBOOK);
+        byte[] data = TestData.randomText(1_000, 4);
+        assertArrayEquals(data, new CodebookCache(directory).decompress(cache.compress(7, data)));
+    }
+
+    @Test
+    void overlongVarIntIsRejected() {
+        // La longitud ocupa cinco bytes con más de 32 bits
+        byte[] record = { 0x07, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F, 0x01, 0x02, 0x03 };
+        assertThrows(IOException.class, () -> CODEBOOK.decompress(record));
+        // Longitud -1
+        byte[] negative = { 0x07, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 0x01 };
+        assertThrows(IOException.class, () -> CODEBOOK.decompress(negative));
+    }
+
+    @Test
+    void damageIsReported() {
+        TestData.assertDamageReported(CODEBOOK.compress(TestData.randomText(20_000, 5)), CODEBOOK::decompress);
+    }
+}
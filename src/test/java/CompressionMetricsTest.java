@@ -0,0 +1,71 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Las métricas de una compresión miden cada etapa, comparan los bits por
+ * símbolo con la entropía del histograma y se registran como eventos de JFR.
+ */
+class CompressionMetricsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void stagesAndRatesOfACompression() {
+        String text = new String(TestData.randomText(200_000, 1), StandardCharsets.ISO_8859_1);
+        CompressionMetrics metrics = Huffman.compressText(text, 15).metrics;
+        for (CompressionMetrics.Stage stage : List.of(CompressionMetrics.Stage.HISTOGRAM,
+                CompressionMetrics.Stage.TREE, CompressionMetrics.Stage.ENCODE, CompressionMetrics.Stage.PACK)) {
+            assertTrue(metrics.nanos(stage) > 0, stage.name());
+        }
+        assertEquals(text.length(), metrics.inputBytes());
+        // Huffman queda a menos de un bit por símbolo de la entropía
+        assertTrue(metrics.bitsPerSymbol() >= metrics.entropy());
+        assertTrue(metrics.bitsPerSymbol() < metrics.entropy() + 1);
+        assertTrue(metrics.throughput() > 0);
+    }
+
+    @Test
+    void entropyOfAKnownHistogram() {
+        CompressionMetrics metrics = new CompressionMetrics();
+        // Probabilidades 1/2, 1/4, 1/8, 1/8: 1.75 bits por símbolo
+        metrics.complete(new long[] { 4, 2, 1, 1 }, 14, 2);
+        assertEquals(1.75, metrics.entropy(), 1e-12);
+        assertEquals(1.75, metrics.bitsPerSymbol(), 1e-12);
+        assertEquals(8, metrics.inputBytes());
+        assertEquals(2, metrics.outputBytes());
+    }
+
+    @Test
+    void commitRecordsAJfrEvent() throws IOException {
+        Path file = directory.resolve("metricas.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("huffman.Compression");
+            recording.enable("huffman.Stage");
+            recording.start();
+            CompressionMetrics metrics = Huffman.compressText("abracadabra", 15).metrics;
+            metrics.setOutputBytes(123);
+            metrics.commit();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent compression = events.stream()
+                .filter(event -> event.getEventType().getName().equals("huffman.Compression"))
+                .findFirst().orElseThrow();
+        assertEquals(11, compression.getLong("inputBytes"));
+        assertEquals(123, compression.getLong("outputBytes"));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("huffman.Stage")
+                && event.getString("stage").equals("TREE")));
+    }
+}
@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * El servicio comprime y descomprime por HTTP con cualquier tipo, con o sin
+ * Content-Length, atiende solicitudes simultáneas y responde 400 a los datos
+ * dañados sin dejar de atender a las demás.
+ */
+class CompressionServiceTest {
+    private static CompressionService service;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void start() throws IOException {
+        service = new CompressionService(0);
+        service.start();
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stop() {
+        service.stop();
+    }
+
+    @ParameterizedTest(name = "tipo {0}")
+    @ValueSource(strings = { "text", "dna", "block", "lz" })
+    void roundTrip(String type) throws Exception {
+        byte[] data = TestData.randomText(100_000, 1);
+        HttpResponse<byte[]> compressed = post("/compress?type=" + type, data, false);
+        assertEquals(200, compressed.statusCode());
+        HttpResponse<byte[]> restored = post("/decompress", compressed.body(), false);
+        assertEquals(200, restored.statusCode());
+        assertArrayEquals(data, restored.body());
+    }
+
+    @Test
+    void bodiesWithoutContentLengthAndLargerThanThePool() throws Exception {
+        // Más grande que los buffers que se reciclan: el cuerpo crece de a poco
+        byte[] data = TestData.randomText(6 * 1024 * 1024, 2);
+        byte[] compressed = post("/compress?type=text", data, true).body();
+        assertArrayEquals(data, post("/decompress", compressed, true).body());
+    }
+
+    @Test
+    void concurrentRequests() throws Exception {
+        List<byte[]> inputs = new ArrayList<>();
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            byte[] data = TestData.randomText(20_000 + i, i);
+            inputs.add(data);
+            responses.add(client.sendAsync(request("/compress?type=text", data, false),
+                    HttpResponse.BodyHandlers.ofByteArray()));
+        }
+        for (int i = 0; i < inputs.size(); i++) {
+            assertArrayEquals(inputs.get(i), post("/decompress", responses.get(i).get().body(), false).body());
+        }
+    }
+
+    @Test
+    void errorsAreReportedToTheClient() throws Exception {
+        byte[] compressed = post("/compress?type=text", TestData.randomText(10_000, 3), false).body();
+        compressed[7] ^= 0x40; // Byte alto de la longitud original
+        assertEquals(400, post("/decompress", compressed, false).statusCode());
+        assertEquals(400, post("/compress?type=zip", new byte[] { 1 }, false).statusCode());
+        assertEquals(400, post("/compress", new byte[] { 1 }, false).statusCode());
+        HttpResponse<byte[]> get = client.send(HttpRequest.newBuilder(uri("/compress?type=text")).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(405, get.statusCode());
+        assertEquals(200, client.send(HttpRequest.newBuilder(uri("/health")).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray()).statusCode());
+    }
+
+    private static HttpResponse<byte[]> post(String path, byte[] body, boolean chunked) throws Exception {
+        return client.send(request(path, body, chunked), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    // Con 'chunked' el cuerpo se envía sin Content-Length
+    private static HttpRequest request(String path, byte[] body, boolean chunked) {
+        HttpRequest.BodyPublisher publisher = chunked
+                ? HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(body))
+                : HttpRequest.BodyPublishers.ofByteArray(body);
+        return HttpRequest.newBuilder(uri(path)).POST(publisher).build();
+    }
+
+    private static URI uri(String path) {
+        return URI.create("http://localhost:" + service.port() + path);
+    }
+}
@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * El compresor de ADN no pierde nada de un FASTA (cabeceras, N, saltos de
+ * línea, minúsculas), guarda las bases a no más de 2 bits y comprime en flujo
+ * de a trozos independientes.
+ */
+class DnaCompressorTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void arbitraryBytesRoundTrip(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        assertArrayEquals(data, DnaCompressor.decompress(DnaCompressor.compress(data, 4)));
+    }
+
+    @ParameterizedTest(name = "orden {0}")
+    @ValueSource(ints = { 0, 1, 4, 8 })
+    void fastaRoundTrip(int contextOrder) throws IOException {
+        byte[] fasta = fasta(200_000, 1);
+        assertArrayEquals(fasta, DnaCompressor.decompress(DnaCompressor.compress(fasta, contextOrder)));
+    }
+
+    @Test
+    void basesTakeAtMostTwoBits() throws IOException {
+        byte[] bases = fasta(400_000, 2);
+        byte[] compressed = DnaCompressor.compress(bases, 0);
+        assertTrue(compressed.length < bases.length / 4 + bases.length / 20, compressed.length + " bytes");
+    }
+
+    @Test
+    void chunkedStreamRoundTrip() throws IOException {
+        byte[] fasta = fasta(100_000, 3);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        DnaCompressor.compress(new ByteArrayInputStream(fasta), compressed, 4, 7_000);
+        assertArrayEquals(fasta, DnaCompressor.decompress(compressed.toByteArray()));
+    }
+
+    @Test
+    void chunkLongerThanTheChunkSizeIsRejected() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        DnaCompressor.compress(new ByteArrayInputStream(fasta(10_000, 4)), compressed, 4, 1_000);
+        byte[] damaged = compressed.toByteArray();
+        damaged[8] = (byte) 100; // Tamaño de los trozos: 1000 -> 868
+        assertThrows(IOException.class, () -> DnaCompressor.decompress(damaged));
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        byte[] fasta = fasta(20_000, 5);
+        TestData.assertDamageReported(DnaCompressor.compress(fasta, 4), DnaCompressor::decompress);
+        TestData.assertDamageReported(DnaCompressor.compress(fasta, 0), DnaCompressor::decompress);
+        ByteArrayOutputStream chunked = new ByteArrayOutputStream();
+        DnaCompressor.compress(new ByteArrayInputStream(fasta), chunked, 4, 5_000);
+        TestData.assertDamageReported(chunked.toByteArray(), DnaCompressor::decompress);
+    }
+
+    // FASTA con líneas de 60 bases, tramos de N y de minúsculas
+    private static byte[] fasta(int bases, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(">secuencia de prueba\n");
+        for (int i = 0; i < bases; i++) {
+            char base = "ACGT".charAt(random.nextInt(4));
+            if (i % 5_000 >= 4_900) {
+                base = 'N';
+            } else if (i % 3_000 >= 2_500) {
+                base = Character.toLowerCase(base);
+            }
+            text.append(base);
+            if (i % 60 == 59) {
+                text.append('\n');
+            }
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
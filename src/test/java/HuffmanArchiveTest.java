@@ -0,0 +1,133 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Un archivo de entradas guarda muchos archivos chicos con una tabla
+ * compartida, extrae cada uno sin leer los demás (también desde varios hilos)
+ * y deja de leer una vez cerrado.
+ */
+class HuffmanArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private final Map<String, byte[]> files = new LinkedHashMap<>();
+    private Path input;
+
+    @BeforeEach
+    void createFiles() throws IOException {
+        input = Files.createDirectories(directory.resolve("entrada"));
+        for (int i = 0; i < 50; i++) {
+            files.put("registros/dia-" + i + ".log", TestData.randomText(500 + 37 * i, i));
+        }
+        files.put("vacio.txt", new byte[0]);
+        files.put("binario.bin", TestData.randomBytes(4_000, 99)); // No se achica: se guarda tal cual
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            Path path = input.resolve(file.getKey());
+            Files.createDirectories(path.getParent());
+            Files.write(path, file.getValue());
+        }
+    }
+
+    @Test
+    void everyEntryIsExtracted() throws IOException {
+        Path archive = directory.resolve("todo" + HuffmanArchive.EXTENSION);
+        HuffmanArchive.create(input, archive);
+        try (HuffmanArchive opened = HuffmanArchive.open(archive)) {
+            assertEquals(files.size(), opened.entries().size());
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                assertArrayEquals(file.getValue(), opened.extract(file.getKey()), file.getKey());
+                assertEquals(file.getValue().length, opened.entry(file.getKey()).size);
+            }
+            assertThrows(IOException.class, () -> opened.extract("no-existe"));
+
+            Path output = directory.resolve("salida");
+            long written = opened.extractAll(output, 4);
+            assertEquals(files.values().stream().mapToLong(data -> data.length).sum(), written);
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                assertArrayEquals(file.getValue(), Files.readAllBytes(output.resolve(file.getKey())));
+            }
+        }
+    }
+
+    @Test
+    void smallFilesShareOneTable() throws IOException {
+        Path archive = directory.resolve("todo" + HuffmanArchive.EXTENSION);
+        HuffmanArchive.create(input, archive);
+        // Con una tabla por archivo, los 50 registros pagarían 128 bytes cada uno
+        long separate = 0;
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            byte[] data = file.getValue();
+            separate += data.length == 0 ? 0
+                    : Math.min(data.length, TestData.huffmanFileSize(data) + 128);
+        }
+        assertTrue(Files.size(archive) < separate - 40 * 128, Files.size(archive) + " contra " + separate);
+    }
+
+    @Test
+    void concurrentExtraction() throws Exception {
+        Path archive = directory.resolve("todo" + HuffmanArchive.EXTENSION);
+        HuffmanArchive.create(input, archive);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (HuffmanArchive opened = HuffmanArchive.open(archive)) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int round = 0; round < 20; round++) {
+                for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                    results.add(executor.submit(
+                            () -> Arrays.equals(file.getValue(), opened.extract(file.getKey()))));
+                }
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void extractAfterCloseFails() throws IOException {
+        Path archive = directory.resolve("todo" + HuffmanArchive.EXTENSION);
+        HuffmanArchive.create(input, archive);
+        HuffmanArchive opened = HuffmanArchive.open(archive);
+        opened.close();
+        assertThrows(IOException.class, () -> opened.extract("registros/dia-0.log"));
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        Path archive = directory.resolve("todo" + HuffmanArchive.EXTENSION);
+        HuffmanArchive.create(input, archive);
+        TestData.assertDamageReported(Files.readAllBytes(archive), this::extractAll);
+    }
+
+    // Las entradas del archivo, una tras otra
+    private byte[] extractAll(byte[] compressed) throws IOException {
+        Path archive = Files.write(directory.resolve("danado" + HuffmanArchive.EXTENSION), compressed);
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        try (HuffmanArchive opened = HuffmanArchive.open(archive)) {
+            for (HuffmanArchive.Entry entry : opened.entries()) {
+                contents.write(opened.extract(entry));
+            }
+        }
+        return contents.toByteArray();
+    }
+}
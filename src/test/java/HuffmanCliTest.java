@@ -0,0 +1,86 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * La línea de comandos comprime y descomprime archivos sueltos y directorios
+ * completos en varios hilos, sin preguntar nada, y cuenta los archivos que
+ * fallan sin detener a los demás.
+ */
+class HuffmanCliTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void directoryRoundTrip() throws IOException {
+        Path input = Files.createDirectories(directory.resolve("entrada"));
+        byte[] text = TestData.randomText(50_000, 1);
+        byte[] dna = "ACGTTGCAnnACGT\n".repeat(1_000).getBytes();
+        Files.write(input.resolve("texto.txt"), text);
+        Files.write(Files.createDirectories(input.resolve("sub")).resolve("genoma.fa"), dna);
+        Path compressed = directory.resolve("comprimido");
+        Path restored = directory.resolve("restaurado");
+
+        assertEquals(0, run("compress", "-r", "-j", "2", input.toString(), compressed.toString()));
+        assertTrue(Files.exists(compressed.resolve("texto.txt.huf")));
+        assertTrue(Files.exists(compressed.resolve("sub/genoma.fa.huf")));
+        assertEquals(0, run("decompress", "-r", compressed.toString(), restored.toString()));
+        assertArrayEquals(text, Files.readAllBytes(restored.resolve("texto.txt")));
+        assertArrayEquals(dna, Files.readAllBytes(restored.resolve("sub/genoma.fa")));
+    }
+
+    @Test
+    void singleFileRoundTripWithEveryType() throws IOException {
+        byte[] data = TestData.randomText(30_000, 2);
+        Path input = Files.write(directory.resolve("datos.txt"), data);
+        for (String type : new String[] { "text", "dna" }) {
+            Path compressed = directory.resolve(type + ".huf");
+            Path restored = directory.resolve(type + ".txt");
+            assertEquals(0, run("compress", "-t", type, input.toString(), compressed.toString()));
+            assertEquals(0, run("decompress", compressed.toString(), restored.toString()));
+            assertArrayEquals(data, Files.readAllBytes(restored));
+        }
+    }
+
+    @Test
+    void existingOutputNeedsForce() throws IOException {
+        Path input = Files.write(directory.resolve("datos.txt"), TestData.randomText(1_000, 3));
+        Path output = Files.write(directory.resolve("datos.txt.huf"), new byte[] { 1 });
+        assertThrows(IOException.class, () -> run("compress", input.toString()));
+        assertEquals(0, run("compress", "-f", input.toString()));
+        assertTrue(Files.size(output) > 1);
+    }
+
+    @Test
+    void failuresAreCountedWithoutStoppingTheOthers() throws IOException {
+        Path input = Files.createDirectories(directory.resolve("comprimidos"));
+        Files.write(input.resolve("roto.huf"), new byte[] { 'H', 'U', 'F', 'F', 1, 2, 3 });
+        Path good = Files.write(directory.resolve("bueno.txt"), TestData.randomText(1_000, 4));
+        run("compress", good.toString(), input.resolve("bueno.txt.huf").toString());
+        Path output = directory.resolve("salida");
+        assertEquals(1, run("decompress", input.toString(), output.toString()));
+        assertArrayEquals(Files.readAllBytes(good), Files.readAllBytes(output.resolve("bueno.txt")));
+    }
+
+    @Test
+    void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> HuffmanCli.parse(new String[0]));
+        assertThrows(IllegalArgumentException.class, () -> HuffmanCli.parse(new String[] { "comprimir", "x" }));
+        assertThrows(IllegalArgumentException.class, () -> HuffmanCli.parse(new String[] { "compress", "-z", "x" }));
+        assertThrows(IllegalArgumentException.class,
+                () -> HuffmanCli.parse(new String[] { "compress", "-j", "0", "x" }));
+        assertThrows(IllegalArgumentException.class, () -> HuffmanCli.parse(new String[] { "compress" }));
+    }
+
+    private static int run(String... args) throws IOException {
+        return HuffmanCli.run(HuffmanCli.parse(args));
+    }
+}
@@ -0,0 +1,69 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * El decodificador por tablas devuelve los símbolos codificados con códigos
+ * canónicos, también los que pasan por varias subtablas, y rechaza las
+ * longitudes que no forman un código prefijo.
+ */
+class HuffmanDecoderTest {
+
+    @Test
+    void decodesShortAndLongCodes() {
+        // Longitudes 1, 2, ..., 39, 40, 40: un código completo que llega a tres niveles de subtablas
+        byte[] lengths = new byte[41];
+        for (int symbol = 0; symbol < 40; symbol++) {
+            lengths[symbol] = (byte) (symbol + 1);
+        }
+        lengths[40] = 40;
+        assertRoundTrip(lengths, 5_000, 1);
+    }
+
+    @Test
+    void decodesCodesOfTheRootTableSize() {
+        byte[] lengths = new byte[256];
+        Arrays.fill(lengths, (byte) 8);
+        assertRoundTrip(lengths, 10_000, 2);
+    }
+
+    @Test
+    void rejectsOverSubscribedLengths() {
+        byte[] lengths = { 1, 1, 1 };
+        assertThrows(IllegalArgumentException.class, () -> HuffmanDecoder.fromLengths(lengths));
+    }
+
+    @Test
+    void rejectsRepeatedCodes() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new HuffmanDecoder(new long[] { 0, 0 }, new byte[] { 1, 1 }));
+    }
+
+    @Test
+    void rejectsCodesLongerThanTheReader() {
+        byte[] lengths = { 1, (byte) (BitReader.MAX_PEEK_BITS + 1) };
+        assertThrows(IllegalArgumentException.class, () -> HuffmanDecoder.fromLengths(lengths));
+    }
+
+    // Codifica símbolos al azar (entre los que tienen código) y los decodifica
+    private static void assertRoundTrip(byte[] lengths, int count, long seed) {
+        long[] codes = Huffman.canonicalCodes(lengths);
+        Random random = new Random(seed);
+        byte[] symbols = new byte[count];
+        BitWriter writer = new BitWriter(count);
+        for (int i = 0; i < count; i++) {
+            int symbol;
+            do {
+                symbol = random.nextInt(lengths.length);
+            } while (lengths[symbol] == 0);
+            symbols[i] = (byte) symbol;
+            writer.write(codes[symbol], lengths[symbol]);
+        }
+        byte[] decoded = new byte[count];
+        HuffmanDecoder.fromLengths(lengths).decode(new BitReader(writer.toByteArray()), decoded, 0, count);
+        assertArrayEquals(symbols, decoded);
+    }
+}
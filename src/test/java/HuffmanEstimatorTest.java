@@ -0,0 +1,88 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * La estimación exacta coincide byte a byte con el .huf que se escribe, y la
+ * estimación por muestreo queda dentro de su margen de error.
+ */
+class HuffmanEstimatorTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+
+    @TempDir
+    Path directory;
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void exactMatchesTheWrittenFile(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        Path input = Files.write(directory.resolve("entrada"), data);
+        Path compressed = directory.resolve("entrada.huf");
+        HuffmanFormat.compressFile(input.toString(), compressed.toString(), HuffmanFormat.TYPE_BINARY, 15);
+        HuffmanEstimator.Estimate estimate = HuffmanEstimator.exact(input, 15);
+        assertEquals(Files.size(compressed), estimate.compressedBytes);
+        assertEquals(estimate.compressedBytes, HuffmanEstimator.exact(data, 15).compressedBytes);
+        assertEquals(data.length, estimate.originalBytes);
+        assertFalse(estimate.sampled);
+    }
+
+    @Test
+    void entropyIsALowerBound() {
+        for (byte[] data : INPUTS.values()) {
+            long[] histogram = Huffman.countBytes(data, 0, data.length);
+            HuffmanEstimator.Estimate estimate = HuffmanEstimator.exact(histogram, 15);
+            assertTrue(HuffmanEstimator.minimumBytes(histogram) <= (long) Math.ceil(estimate.bitsPerSymbol
+                    * data.length / 8));
+            assertTrue(estimate.entropy <= estimate.bitsPerSymbol + 1e-9);
+        }
+    }
+
+    @Test
+    void sampleStaysWithinItsErrorMargin() throws IOException {
+        // Tramos de texto con distintas distribuciones y tramos de bytes al azar:
+        // los trozos de la muestra varían y el margen no es nulo
+        Path file = directory.resolve("mezcla");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int part = 0; part < 40; part++) {
+                out.write(part % 5 == 4 ? TestData.randomBytes(100_000, part)
+                        : TestData.randomText(100_000 + 1_000 * part, part));
+            }
+        }
+        HuffmanEstimator.Estimate exact = HuffmanEstimator.exact(file, 15);
+        HuffmanEstimator.Estimate sampled = HuffmanEstimator.sample(file, 15, 64, 4 * 1024);
+        assertTrue(sampled.sampled);
+        assertTrue(sampled.error > 0);
+        assertTrue(Math.abs(sampled.ratio() - exact.ratio()) <= sampled.error,
+                sampled + " contra " + exact);
+    }
+
+    @Test
+    void smallFilesAreEstimatedExactly() throws IOException {
+        Path file = Files.write(directory.resolve("chico"), TestData.randomText(10_000, 1));
+        HuffmanEstimator.Estimate estimate = HuffmanEstimator.sample(file, 15);
+        assertFalse(estimate.sampled);
+        assertEquals(HuffmanEstimator.exact(file, 15).compressedBytes, estimate.compressedBytes);
+        assertThrows(IllegalArgumentException.class, () -> HuffmanEstimator.sample(file, 15, 1, 100));
+    }
+
+    @Test
+    void randomBytesAreNotWorthCompressing() {
+        assertFalse(HuffmanEstimator.exact(TestData.randomBytes(100_000, 1), 15).worthCompressing(0.95));
+        assertTrue(HuffmanEstimator.exact(TestData.randomText(100_000, 1), 15).worthCompressing(0.95));
+    }
+}
@@ -0,0 +1,89 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * El contenedor .huf: la cabecera con las longitudes de los códigos canónicos
+ * alcanza para recuperar exactamente los datos, en memoria y en flujo, y los
+ * archivos dañados se informan con IOException.
+ */
+class HuffmanFormatTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+
+    @TempDir
+    Path directory;
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void textRoundTrip(String inputName) throws IOException {
+        String text = new String(INPUTS.get(inputName), StandardCharsets.ISO_8859_1);
+        Path file = directory.resolve("texto.huf");
+        HuffmanFormat.write(file.toString(), HuffmanFormat.TYPE_TEXT, Huffman.compressText(text));
+        assertEquals(text, HuffmanFormat.read(file.toString(), HuffmanFormat.TYPE_TEXT));
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void streamingRoundTrip(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        assertArrayEquals(data, decompressFile(compressFile(data, 15)));
+    }
+
+    @Test
+    void streamsMatchTheFileFormat() throws IOException {
+        byte[] data = TestData.randomText(100_000, 3);
+        long[] histogram = HuffmanFormat.histogram(new ByteArrayInputStream(data));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (HuffmanOutputStream out = new HuffmanOutputStream(buffer, HuffmanFormat.TYPE_TEXT, data.length,
+                Huffman.codeLengths(histogram, 15))) {
+            out.write(data);
+        }
+        assertArrayEquals(data, decompressFile(buffer.toByteArray()));
+        try (HuffmanInputStream in = new HuffmanInputStream(new ByteArrayInputStream(compressFile(data, 15)))) {
+            assertEquals(data.length, in.originalLength());
+            assertArrayEquals(data, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void rejectsAnotherType() throws IOException {
+        Path input = Files.write(directory.resolve("comprimido.huf"), compressFile(new byte[] { 1, 2, 3 }, 15));
+        assertThrows(IOException.class, () -> HuffmanFormat.decompressFile(input.toString(),
+                directory.resolve("salida").toString(), HuffmanFormat.TYPE_DNA));
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        TestData.assertDamageReported(compressFile(TestData.randomText(20_000, 5), 15), this::decompressFile);
+    }
+
+    private byte[] compressFile(byte[] data, int maxCodeLength) throws IOException {
+        Path input = Files.write(directory.resolve("entrada"), data);
+        Path output = directory.resolve("salida.huf");
+        HuffmanFormat.compressFile(input.toString(), output.toString(), HuffmanFormat.TYPE_TEXT, maxCodeLength);
+        return Files.readAllBytes(output);
+    }
+
+    private byte[] decompressFile(byte[] compressed) throws IOException {
+        Path input = Files.write(directory.resolve("comprimido.huf"), compressed);
+        Path output = directory.resolve("descomprimido");
+        HuffmanFormat.decompressFile(input.toString(), output.toString(), HuffmanFormat.TYPE_TEXT);
+        return Files.readAllBytes(output);
+    }
+}
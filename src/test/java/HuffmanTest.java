@@ -0,0 +1,110 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * La API de bytes y de ByteBuffer devuelve exactamente los bytes originales
+ * (también 0 y los mayores que 127), con buffers en el heap o directos, y
+ * no toca los buffers si la salida no tiene lugar.
+ */
+class HuffmanTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+
+    static {
+        INPUTS.put("todos los bytes", allBytes());
+    }
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void heapBufferRoundTrip(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        ByteBuffer compressed = ByteBuffer.allocate(2 * data.length + 512);
+        int written = Huffman.compress(ByteBuffer.wrap(data), compressed, 15);
+        assertEquals(written, compressed.position());
+        byte[] file = new byte[written];
+        compressed.flip().get(file);
+        assertArrayEquals(data, Huffman.decompress(file));
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void directBufferRoundTrip(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        ByteBuffer in = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        ByteBuffer compressed = ByteBuffer.allocateDirect(2 * data.length + 512);
+        Huffman.compress(in, compressed, 15);
+        assertEquals(0, in.remaining());
+        compressed.flip();
+        ByteBuffer out = ByteBuffer.allocateDirect(data.length);
+        assertEquals(data.length, Huffman.decompress(compressed, out));
+        assertEquals(0, compressed.remaining());
+        byte[] restored = new byte[data.length];
+        out.flip().get(restored);
+        assertArrayEquals(data, restored);
+    }
+
+    @Test
+    void directAndHeapBuffersWriteTheSameFile() {
+        byte[] data = TestData.randomText(300_000, 1);
+        ByteBuffer heap = ByteBuffer.allocate(data.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        Huffman.compress(ByteBuffer.wrap(data), heap);
+        Huffman.compress(ByteBuffer.allocateDirect(data.length).put(data).flip(), direct);
+        assertEquals(heap.flip(), direct.flip());
+    }
+
+    @Test
+    void tooSmallOutputLeavesBothBuffersUntouched() throws IOException {
+        byte[] data = TestData.randomText(10_000, 2);
+        ByteBuffer in = ByteBuffer.wrap(data);
+        ByteBuffer small = ByteBuffer.allocateDirect(100);
+        assertThrows(BufferOverflowException.class, () -> Huffman.compress(in, small));
+        assertEquals(0, in.position());
+        assertEquals(0, small.position());
+
+        ByteBuffer compressed = ByteBuffer.allocate(data.length);
+        Huffman.compress(in, compressed);
+        compressed.flip();
+        ByteBuffer shortOutput = ByteBuffer.allocate(data.length - 1);
+        assertThrows(BufferOverflowException.class, () -> Huffman.decompress(compressed, shortOutput));
+        assertEquals(0, compressed.position());
+        assertEquals(0, shortOutput.position());
+    }
+
+    @Test
+    void compressedDataIsTheStringViewOfThePackedBytes() {
+        Huffman.CompressionResult result = Huffman.compress(allBytes(), 15);
+        assertEquals(new String(result.packedData, StandardCharsets.ISO_8859_1), result.compressedData());
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        byte[] data = TestData.randomText(20_000, 5);
+        ByteBuffer compressed = ByteBuffer.allocate(data.length);
+        Huffman.compress(ByteBuffer.wrap(data), compressed, 15);
+        byte[] file = new byte[compressed.flip().remaining()];
+        compressed.get(file);
+        TestData.assertDamageReported(file, Huffman::decompress);
+    }
+
+    private static byte[] allBytes() {
+        byte[] data = new byte[256 * 40];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7 + i / 256);
+        }
+        return data;
+    }
+}
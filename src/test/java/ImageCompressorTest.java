@@ -0,0 +1,113 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Las imágenes pasan por readPixels, el filtro por fila, Huffman y writeBMP
+ * sin perder ningún píxel, y el BMP escrito lo puede leer ImageIO.
+ */
+class ImageCompressorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void bmpFileRoundTrip() throws IOException {
+        Path output = directory.resolve("imagen.huf");
+        Path restored = directory.resolve("imagen.bmp");
+        ImageCompressor.compressFile("Bmp/Prueba3.bmp", output.toString());
+        ImageCompressor.decompressFile(output.toString(), restored.toString());
+        assertSamePixels(ImageIO.read(new File("Bmp/Prueba3.bmp")), ImageIO.read(restored.toFile()));
+    }
+
+    @ParameterizedTest(name = "tipo {0}")
+    @ValueSource(ints = { BufferedImage.TYPE_3BYTE_BGR, BufferedImage.TYPE_BYTE_GRAY,
+            BufferedImage.TYPE_4BYTE_ABGR, BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_INT_BGR, BufferedImage.TYPE_USHORT_565_RGB })
+    void rasterRoundTrip(int type) throws IOException {
+        // Ancho impar: las filas del BMP llevan relleno
+        BufferedImage image = gradient(type, 37, 23);
+        ImageCompressor.Pixels pixels = ImageCompressor.readPixels(image);
+        ImageCompressor.Pixels decompressed = ImageCompressor.decompress(ImageCompressor.compress(pixels));
+        assertEquals(pixels.width, decompressed.width);
+        assertEquals(pixels.height, decompressed.height);
+        assertEquals(pixels.channels, decompressed.channels);
+        assertArrayEquals(pixels.data, decompressed.data);
+
+        ByteArrayOutputStream bmp = new ByteArrayOutputStream();
+        ImageCompressor.writeBMP(decompressed, bmp);
+        assertBmpHolds(pixels, ImageIO.read(new ByteArrayInputStream(bmp.toByteArray())));
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        byte[] compressed = Files.readAllBytes(compress("Bmp/Prueba3.bmp"));
+        TestData.assertDamageReported(compressed, damaged -> ImageCompressor.decompress(damaged).data);
+    }
+
+    private Path compress(String image) throws IOException {
+        Path output = directory.resolve("comprimido.huf");
+        ImageCompressor.compressFile(image, output.toString());
+        return output;
+    }
+
+    // Degradado con ruido, para que los predictores tengan algo que aprovechar
+    private static BufferedImage gradient(int type, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int red = (x * 7 + random.nextInt(4)) & 0xFF;
+                int green = (y * 11 + random.nextInt(4)) & 0xFF;
+                int blue = (x * y + random.nextInt(4)) & 0xFF;
+                int alpha = 255 - ((x + y) & 0x7F);
+                image.setRGB(x, y, (alpha << 24) | (red << 16) | (green << 8) | blue);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y) & 0xFFFFFF, actual.getRGB(x, y) & 0xFFFFFF,
+                        "píxel (" + x + ", " + y + ")");
+            }
+        }
+    }
+
+    // El BMP leído tiene los colores de los píxeles (ImageIO no lee el canal alfa de un BMP)
+    private static void assertBmpHolds(ImageCompressor.Pixels pixels, BufferedImage bmp) {
+        assertEquals(pixels.width, bmp.getWidth());
+        assertEquals(pixels.height, bmp.getHeight());
+        for (int y = 0; y < pixels.height; y++) {
+            for (int x = 0; x < pixels.width; x++) {
+                int i = (y * pixels.width + x) * pixels.channels;
+                if (pixels.channels == 1) {
+                    // La paleta de grises es la identidad: el raster guarda el mismo valor
+                    assertEquals(pixels.data[i] & 0xFF, bmp.getRaster().getSample(x, y, 0),
+                            "píxel (" + x + ", " + y + ")");
+                    continue;
+                }
+                int color = ((pixels.data[i + 2] & 0xFF) << 16) | ((pixels.data[i + 1] & 0xFF) << 8)
+                        | (pixels.data[i] & 0xFF);
+                assertEquals(color, bmp.getRGB(x, y) & 0xFFFFFF, "píxel (" + x + ", " + y + ")");
+            }
+        }
+    }
+}
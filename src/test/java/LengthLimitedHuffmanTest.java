@@ -0,0 +1,92 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Package-merge respeta la longitud máxima, forma un código prefijo completo
+ * y cuesta lo mismo que el mejor código con esa longitud máxima, hallado por
+ * fuerza bruta en alfabetos chicos.
+ */
+class LengthLimitedHuffmanTest {
+
+    @Test
+    void lengthsRespectTheLimit() {
+        // Frecuencias de Fibonacci: sin límite, los códigos llegarían a 39 bits
+        long[] histogram = new long[40];
+        histogram[0] = 1;
+        histogram[1] = 1;
+        for (int symbol = 2; symbol < histogram.length; symbol++) {
+            histogram[symbol] = histogram[symbol - 1] + histogram[symbol - 2];
+        }
+        for (int maxCodeLength = 6; maxCodeLength <= 20; maxCodeLength++) {
+            byte[] lengths = LengthLimitedHuffman.codeLengths(histogram, maxCodeLength);
+            for (byte length : lengths) {
+                assertTrue(length >= 1 && length <= maxCodeLength, "longitud " + length);
+            }
+            assertEquals(1.0, kraftSum(lengths), 1e-12);
+        }
+    }
+
+    @Test
+    void costMatchesTheBruteForceOptimum() {
+        Random random = new Random(8);
+        for (int attempt = 0; attempt < 300; attempt++) {
+            int symbols = 2 + random.nextInt(5);
+            int maxCodeLength = 32 - Integer.numberOfLeadingZeros(symbols - 1) + random.nextInt(3);
+            long[] histogram = new long[symbols];
+            for (int symbol = 0; symbol < symbols; symbol++) {
+                // Pesos muy sesgados, para que el límite importe
+                histogram[symbol] = 1 + (long) Math.pow(random.nextInt(1000), 1 + random.nextInt(3));
+            }
+            byte[] lengths = LengthLimitedHuffman.codeLengths(histogram, maxCodeLength);
+            for (byte length : lengths) {
+                assertTrue(length <= maxCodeLength);
+            }
+            assertTrue(kraftSum(lengths) <= 1.0);
+            assertEquals(bruteForceCost(histogram, maxCodeLength, new byte[symbols], 0), cost(histogram, lengths));
+        }
+    }
+
+    @Test
+    void tooManySymbolsForTheLimitIsRejected() {
+        long[] histogram = new long[5];
+        Arrays.fill(histogram, 1);
+        assertThrows(IllegalArgumentException.class, () -> LengthLimitedHuffman.codeLengths(histogram, 2));
+    }
+
+    // Menor costo entre todas las asignaciones de longitudes de 1 a
+    // maxCodeLength que cumplen la desigualdad de Kraft
+    private static long bruteForceCost(long[] histogram, int maxCodeLength, byte[] lengths, int symbol) {
+        if (symbol == lengths.length) {
+            return kraftSum(lengths) <= 1.0 ? cost(histogram, lengths) : Long.MAX_VALUE;
+        }
+        long best = Long.MAX_VALUE;
+        for (int length = 1; length <= maxCodeLength; length++) {
+            lengths[symbol] = (byte) length;
+            best = Math.min(best, bruteForceCost(histogram, maxCodeLength, lengths, symbol + 1));
+        }
+        return best;
+    }
+
+    private static long cost(long[] histogram, byte[] lengths) {
+        long cost = 0;
+        for (int symbol = 0; symbol < histogram.length; symbol++) {
+            cost += histogram[symbol] * lengths[symbol];
+        }
+        return cost;
+    }
+
+    private static double kraftSum(byte[] lengths) {
+        double sum = 0;
+        for (byte length : lengths) {
+            if (length > 0) {
+                sum += Math.pow(2, -length);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,97 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * LZ77 más Huffman devuelve los bytes originales en todos los niveles y
+ * achica mucho más que Huffman solo las entradas con repeticiones.
+ */
+class LzCompressorTest {
+    private static final Map<String, byte[]> INPUTS = TestData.inputs();
+
+    @TempDir
+    Path directory;
+
+    static Iterable<String> inputs() {
+        return INPUTS.keySet();
+    }
+
+    @ParameterizedTest(name = "entrada {0}")
+    @MethodSource("inputs")
+    void roundTripAtEveryLevel(String inputName) throws IOException {
+        byte[] data = INPUTS.get(inputName);
+        for (int level = LzCompressor.MIN_LEVEL; level <= LzCompressor.MAX_LEVEL; level++) {
+            assertArrayEquals(data, LzCompressor.decompress(LzCompressor.compress(data, level)), "nivel " + level);
+        }
+    }
+
+    @Test
+    void repetitiveInputBeatsPlainHuffman() throws IOException {
+        byte[] data = logLines(20_000);
+        byte[] compressed = LzCompressor.compress(data);
+        long huffman = TestData.huffmanFileSize(data);
+        assertTrue(compressed.length < huffman / 4, compressed.length + " contra " + huffman);
+        assertArrayEquals(data, LzCompressor.decompress(compressed));
+    }
+
+    @Test
+    void higherLevelsDoNotCompressWorse() {
+        byte[] data = logLines(5_000);
+        assertTrue(LzCompressor.compress(data, LzCompressor.MAX_LEVEL).length
+                <= LzCompressor.compress(data, LzCompressor.MIN_LEVEL).length);
+    }
+
+    @Test
+    void longMatchesAndOverlappingCopies() throws IOException {
+        // Distancia 1 con coincidencias de 258 bytes y distancias cerca del límite de la ventana
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        data.write(TestData.repeated((byte) 'x', 100_000));
+        byte[] chunk = TestData.randomBytes(32 * 1024 - 1, 1);
+        data.write(chunk);
+        data.write(chunk);
+        byte[] input = data.toByteArray();
+        assertArrayEquals(input, LzCompressor.decompress(LzCompressor.compress(input)));
+    }
+
+    @Test
+    void fileRoundTrip() throws IOException {
+        byte[] data = logLines(10_000);
+        Path input = Files.write(directory.resolve("registro.log"), data);
+        Path compressed = directory.resolve("registro.hlz");
+        Path restored = directory.resolve("restaurado.log");
+        LzCompressor.compressFile(input.toString(), compressed.toString(), LzCompressor.DEFAULT_LEVEL);
+        LzCompressor.decompressFile(compressed.toString(), restored.toString());
+        assertArrayEquals(data, Files.readAllBytes(restored));
+    }
+
+    @Test
+    void invalidLevelsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> LzCompressor.compress(new byte[1], 0));
+        assertThrows(IllegalArgumentException.class, () -> LzCompressor.compress(new byte[1], 10));
+    }
+
+    @Test
+    void damageIsReported() {
+        TestData.assertDamageReported(LzCompressor.compress(logLines(2_000)), LzCompressor::decompress);
+    }
+
+    private static byte[] logLines(int lines) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            text.append("2024-05-").append(10 + i % 20).append(" INFO servidor: solicitud ").append(i % 97)
+                    .append(" atendida en ").append(i % 13).append(" ms\n");
+        }
+        return text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * La compresión por bloques en paralelo produce los mismos bits que la
+ * codificación secuencial, y el índice de bloques permite decodificarlos en
+ * paralelo, también con los bloques de cuatro flujos; un índice que apunta
+ * fuera de los datos se rechaza.
+ */
+class ParallelHuffmanTest {
+    private static final byte[] DATA = TestData.randomText(200_000, 4);
+    private static final int BLOCK_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void blocksAreStitchedIntoTheSequentialBitstream() {
+        Huffman.CompressionResult result = ParallelHuffman.compress(DATA, BLOCK_SIZE, 15, ForkJoinPool.commonPool());
+        byte[] lengths = Arrays.copyOf(result.codeLengths, 256);
+        long[] codes = Huffman.canonicalCodes(lengths);
+        BitWriter writer = new BitWriter(DATA.length);
+        writer.writeSymbols(DATA, 0, DATA.length, codes, lengths);
+        assertArrayEquals(writer.toByteArray(), result.packedData);
+    }
+
+    @Test
+    void blockIndexDecodesInParallel() throws IOException {
+        Huffman.CompressionResult result = ParallelHuffman.compress(DATA, BLOCK_SIZE, 15, ForkJoinPool.commonPool());
+        HuffmanFormat.Header header = HuffmanFormat.header(HuffmanFormat.TYPE_TEXT, result);
+        assertArrayEquals(DATA, ParallelHuffman.decompress(header, result.packedData));
+    }
+
+    @Test
+    void indexOutsideTheDataIsRejected() {
+        Huffman.CompressionResult result = ParallelHuffman.compress(DATA, BLOCK_SIZE, 15, ForkJoinPool.commonPool());
+        HuffmanFormat.Header header = HuffmanFormat.header(HuffmanFormat.TYPE_TEXT, result);
+        header.blockBitOffsets[1] = 8L * result.packedData.length + 1;
+        assertThrows(IOException.class, () -> ParallelHuffman.decompress(header, result.packedData));
+    }
+
+    @Test
+    void fourStreamBlocksOfEverySize() {
+        byte[] lengths = Arrays.copyOf(Huffman.compress(DATA, 15).codeLengths, 256);
+        long[] codes = Huffman.canonicalCodes(lengths);
+        HuffmanDecoder decoder = HuffmanDecoder.fromLengths(lengths);
+        // Bloques con menos símbolos que flujos y con tramos desparejos
+        for (int count = 0; count <= 21; count++) {
+            byte[] block = FourStreamHuffman.encode(DATA, 100, count, codes, lengths);
+            byte[] output = new byte[count + 2];
+            FourStreamHuffman.decode(block, 0, block.length, decoder, output, 1, count);
+            assertArrayEquals(Arrays.copyOfRange(DATA, 100, 100 + count), Arrays.copyOfRange(output, 1, count + 1));
+        }
+    }
+
+    @Test
+    void interleavedBlocksRoundTrip() throws IOException {
+        for (int blockSize : new int[] { 5, 4099, ParallelHuffman.DEFAULT_BLOCK_SIZE }) {
+            Huffman.CompressionResult result = ParallelHuffman.compress(DATA, blockSize, 15,
+                    ForkJoinPool.commonPool(), true);
+            HuffmanFormat.Header header = HuffmanFormat.header(HuffmanFormat.TYPE_TEXT, result);
+            assertArrayEquals(DATA, ParallelHuffman.decompress(header, result.packedData), "bloques de " + blockSize);
+        }
+        Path file = directory.resolve("intercalado.huf");
+        HuffmanFormat.write(file.toString(), HuffmanFormat.TYPE_TEXT, ParallelHuffman.compressInterleaved(DATA, 15));
+        assertArrayEquals(DATA, decompressFile(Files.readAllBytes(file)));
+    }
+
+    @Test
+    void damageIsReported() throws IOException {
+        Path file = directory.resolve("bloques.huf");
+        HuffmanFormat.write(file.toString(), HuffmanFormat.TYPE_TEXT,
+                ParallelHuffman.compress(TestData.randomText(20_000, 5), 1024, 15, ForkJoinPool.commonPool()));
+        TestData.assertDamageReported(Files.readAllBytes(file), this::decompressFile);
+        HuffmanFormat.write(file.toString(), HuffmanFormat.TYPE_TEXT,
+                ParallelHuffman.compress(TestData.randomText(20_000, 6), 1024, 15, ForkJoinPool.commonPool(), true));
+        TestData.assertDamageReported(Files.readAllBytes(file), this::decompressFile);
+    }
+
+    private byte[] decompressFile(byte[] compressed) throws IOException {
+        Path input = Files.write(directory.resolve("comprimido.huf"), compressed);
+        Path output = directory.resolve("descomprimido");
+        HuffmanFormat.decompressFile(input.toString(), output.toString(), HuffmanFormat.TYPE_TEXT);
+        return Files.readAllBytes(output);
+    }
+}
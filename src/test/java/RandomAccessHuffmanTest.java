@@ -0,0 +1,87 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Cada rango decodifica exactamente los bytes del original, esté dentro de
+ * un bloque, justo en sus bordes o repartido entre varios.
+ */
+class RandomAccessHuffmanTest {
+    private static final int BLOCK_SYMBOLS = 1000;
+    private static final byte[] DATA = TestData.randomText(20 * BLOCK_SYMBOLS + 123, 1);
+
+    @TempDir
+    Path directory;
+
+    private Path compressed;
+
+    @BeforeEach
+    void compress() throws IOException {
+        Path input = Files.write(directory.resolve("entrada"), DATA);
+        compressed = directory.resolve("entrada.huf");
+        RandomAccessHuffman.compressFile(input.toString(), compressed.toString(), HuffmanFormat.TYPE_TEXT, 15,
+                BLOCK_SYMBOLS);
+    }
+
+    @Test
+    void rangesAtBlockBoundaries() throws IOException {
+        try (RandomAccessHuffman file = RandomAccessHuffman.open(compressed.toString())) {
+            assertEquals(DATA.length, file.length());
+            assertEquals(HuffmanFormat.TYPE_TEXT, file.type());
+            for (int block = 0; block <= DATA.length / BLOCK_SYMBOLS; block++) {
+                int boundary = block * BLOCK_SYMBOLS;
+                // Un bloque entero, el último símbolo de uno y el primero del siguiente
+                assertRange(file, boundary, Math.min(BLOCK_SYMBOLS, DATA.length - boundary));
+                if (boundary > 0) {
+                    assertRange(file, boundary - 1, Math.min(2, DATA.length - boundary + 1));
+                }
+            }
+            assertRange(file, 0, DATA.length);
+            assertRange(file, 0, 1);
+            assertRange(file, DATA.length - 1, 1);
+            assertRange(file, DATA.length, 0);
+        }
+    }
+
+    @Test
+    void randomRanges() throws IOException {
+        Random random = new Random(2);
+        try (RandomAccessHuffman file = RandomAccessHuffman.open(compressed.toString())) {
+            for (int i = 0; i < 200; i++) {
+                int start = random.nextInt(DATA.length);
+                assertRange(file, start, random.nextInt(Math.min(5 * BLOCK_SYMBOLS, DATA.length - start) + 1));
+            }
+        }
+        assertArrayEquals(Arrays.copyOfRange(DATA, 5, 9),
+                RandomAccessHuffman.decompressRange(compressed.toString(), 5, 4));
+    }
+
+    @Test
+    void invalidUses() throws IOException {
+        RandomAccessHuffman file = RandomAccessHuffman.open(compressed.toString());
+        assertThrows(IllegalArgumentException.class, () -> file.decompressRange(-1, 2));
+        assertThrows(IllegalArgumentException.class, () -> file.decompressRange(DATA.length - 1, 2));
+        file.close();
+        assertThrows(IOException.class, () -> file.decompressRange(0, 1));
+
+        // Sin índice de bloques no hay acceso aleatorio
+        Path plain = directory.resolve("sin-indice.huf");
+        HuffmanFormat.compressFile(directory.resolve("entrada").toString(), plain.toString(),
+                HuffmanFormat.TYPE_TEXT);
+        assertThrows(IOException.class, () -> RandomAccessHuffman.open(plain.toString()));
+    }
+
+    private static void assertRange(RandomAccessHuffman file, int start, int length) throws IOException {
+        assertArrayEquals(Arrays.copyOfRange(DATA, start, start + length), file.decompressRange(start, length),
+                start + "+" + length);
+    }
+}
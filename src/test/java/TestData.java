@@ -0,0 +1,99 @@
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Entradas que comparten las pruebas, el tamaño de referencia de un .huf y
+ * la comprobación de que un formato informa los datos dañados con IOException.
+ */
+final class TestData {
+    private TestData() {
+    }
+
+    // Descompresión de un formato, para las pruebas de datos dañados
+    interface Decompression {
+        byte[] apply(byte[] compressed) throws IOException;
+    }
+
+    // Los casos borde y una entrada de más de 1 MB
+    static Map<String, byte[]> inputs() {
+        Map<String, byte[]> inputs = new LinkedHashMap<>();
+        inputs.put("vacía", new byte[0]);
+        inputs.put("un byte", new byte[] { 42 });
+        inputs.put("un símbolo", repeated((byte) 'A', 1000));
+        inputs.put("aleatoria", randomBytes(20_000, 1));
+        inputs.put("grande", randomText(3 * 1024 * 1024 / 2, 2));
+        return inputs;
+    }
+
+    static byte[] repeated(byte value, int length) {
+        byte[] data = new byte[length];
+        Arrays.fill(data, value);
+        return data;
+    }
+
+    static byte[] randomBytes(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    // Texto con letras de frecuencias muy distintas, para que los códigos tengan varias longitudes
+    static byte[] randomText(int length, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            int letter = (int) Math.min(25, -Math.log(1 - random.nextDouble()) * 4);
+            data[i] = (byte) (random.nextInt(12) == 0 ? ' ' : 'a' + letter);
+        }
+        return data;
+    }
+
+    // Tamaño de un .huf de 'data' con una sola tabla y sin índice de bloques,
+    // la referencia con la que se comparan los demás formatos
+    static long huffmanFileSize(byte[] data) {
+        Huffman.CompressionResult result = Huffman.compress(data, 15);
+        byte[] header = HuffmanFormat.headerBytes(
+                new HuffmanFormat.Header(HuffmanFormat.TYPE_BINARY, data.length, result.codeLengths));
+        return header.length + result.packedData.length;
+    }
+
+    // La magia cambiada y la cabecera cortada se rechazan con IOException, y
+    // ningún daño (bits cambiados en la cabecera o en los datos, archivo
+    // cortado) hace fallar la descompresión con otra excepción. No se exige
+    // detectar cada bit cambiado en los datos: los formatos no llevan sumas
+    // de verificación.
+    static void assertDamageReported(byte[] compressed, Decompression decompression) {
+        byte[] badMagic = compressed.clone();
+        badMagic[0] ^= 0x10;
+        assertThrows(IOException.class, () -> decompression.apply(badMagic));
+        assertThrows(IOException.class, () -> decompression.apply(Arrays.copyOf(compressed, 6)));
+
+        Random random = new Random(Arrays.hashCode(compressed));
+        for (int attempt = 0; attempt < 200; attempt++) {
+            byte[] damaged;
+            if (attempt % 10 == 9) {
+                damaged = Arrays.copyOf(compressed, random.nextInt(compressed.length));
+            } else {
+                // La mitad de los intentos daña la cabecera, donde están los tamaños y las tablas
+                damaged = compressed.clone();
+                int range = attempt % 2 == 0 ? Math.min(64, damaged.length) : damaged.length;
+                for (int flips = 1 + random.nextInt(3); flips > 0; flips--) {
+                    damaged[random.nextInt(range)] ^= (byte) (1 << random.nextInt(8));
+                }
+            }
+            try {
+                decompression.apply(damaged);
+            } catch (IOException e) {
+                // Esperado: el daño se detectó
+            } catch (RuntimeException | OutOfMemoryError e) {
+                fail("Intento " + attempt + ": " + e, e);
+            }
+        }
+    }
+}